@@ -0,0 +1,125 @@
+package com.gigaspaces.marcello.account;
+
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyContainerConfigurer;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the {@link com.gigaspaces.marcello.model.AccountChargeData} documents of one partition in line
+ * with their subscribers.
+ * <p>
+ * Meant to run inside each primary partition, on the partition's embedded (non-clustered) space proxy.
+ * A subscriber write, change or removal marks its bill dirty; dirty bills are re-merged locally every
+ * <code>delay</code>, so a burst of changes to one account costs a single merge. Row values can be added but
+ * not subtracted, so a bill is re-merged from its subscribers rather than patched.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class AccountChargeDataMaintainer implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(AccountChargeDataMaintainer.class.getName());
+
+    private final GigaSpace gigaSpace;
+    private final AccountMerger merger;
+    private final ConcurrentMap<String, Bill> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final SimpleNotifyEventListenerContainer notifyContainer;
+
+    public AccountChargeDataMaintainer(GigaSpace gigaSpace, AccountMerger merger, long delay, TimeUnit unit) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(merger, "merger can't be null");
+        Validate.isTrue(delay > 0, "delay must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.merger = merger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("account-charge-data-%d").setDaemon(true).build());
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "failed to rebuild account charge data", e);
+                }
+            }
+        }, delay, delay, unit);
+        this.notifyContainer = new SimpleNotifyContainerConfigurer(gigaSpace)
+                .template(new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class, ""))
+                .notifyWrite(true)
+                .notifyUpdate(true)
+                .notifyTake(true)
+                .notifyLeaseExpire(true)
+                .eventListener(new SpaceDataEventListener<SubscriberChargeData>() {
+                    @Override
+                    public void onEvent(SubscriberChargeData data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        markDirty(data.getCustomerAccountId(), data.getBillSequence());
+                    }
+                })
+                .notifyContainer();
+    }
+
+    public void markDirty(String customerAccountId, Integer billSequence) {
+        if (customerAccountId != null && billSequence != null) {
+            Bill bill = new Bill(customerAccountId, billSequence);
+            dirty.putIfAbsent(bill.key(), bill);
+        }
+    }
+
+    /**
+     * Re-merges every bill marked dirty so far.
+     *
+     * @return the number of bills rebuilt
+     */
+    public int flush() {
+        List<Bill> bills = new ArrayList<>(dirty.values());
+        for (Bill bill : bills) {
+            // unmark first, so a change arriving during the merge marks the bill again
+            dirty.remove(bill.key());
+            AccountChargeDataTask.rebuild(gigaSpace, bill.customerAccountId, bill.billSequence, merger);
+        }
+        return bills.size();
+    }
+
+    public int getPending() {
+        return dirty.size();
+    }
+
+    @Override
+    public void close() {
+        notifyContainer.destroy();
+        scheduler.shutdown();
+    }
+
+    private static final class Bill {
+        private final String customerAccountId;
+        private final int billSequence;
+
+        Bill(String customerAccountId, int billSequence) {
+            this.customerAccountId = customerAccountId;
+            this.billSequence = billSequence;
+        }
+
+        String key() {
+            return customerAccountId + "_" + billSequence;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.gigaspaces.marcello.account;
+
+import com.gigaspaces.marcello.model.AccountChargeData;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.executor.Task;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.Arrays;
+
+/**
+ * Builds and writes the {@link AccountChargeData} of one bill inside the account's partition, so the
+ * subscriber documents never leave the space.
+ * <pre>
+ * AccountChargeData account = gigaSpace.execute(new AccountChargeDataTask(ban, billSequence), ban).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class AccountChargeDataTask implements Task<AccountChargeData> {
+    private static final long serialVersionUID = 7354926095140272688L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+
+    private final String customerAccountId;
+    private final int billSequence;
+
+    public AccountChargeDataTask(String customerAccountId, int billSequence) {
+        Validate.notNull(customerAccountId, "customerAccountId can't be null");
+
+        this.customerAccountId = customerAccountId;
+        this.billSequence = billSequence;
+    }
+
+    @Override
+    public AccountChargeData execute() throws Exception {
+        return rebuild(gigaSpace, customerAccountId, billSequence, AccountMerger.DEFAULT);
+    }
+
+    /**
+     * Merges the account's subscriber documents and writes the result, or removes the account document
+     * when no subscribers are left.
+     *
+     * @return the written account document, null when there are no subscribers
+     */
+    static AccountChargeData rebuild(GigaSpace gigaSpace, String customerAccountId, int billSequence, AccountMerger merger) {
+        SQLQuery<SubscriberChargeData> query = new SQLQuery<>(SubscriberChargeData.class, "customerAccountId = ? AND billSequence = ?",
+                customerAccountId, billSequence);
+        query.setRouting(customerAccountId);
+        SubscriberChargeData[] subscribers = gigaSpace.readMultiple(query, Integer.MAX_VALUE);
+
+        AccountChargeData account = merger.merge(Arrays.asList(subscribers));
+        if (account != null) {
+            gigaSpace.write(account);
+        } else {
+            gigaSpace.takeById(AccountChargeData.class, AccountChargeData.idFor(customerAccountId, billSequence), customerAccountId);
+        }
+        return account;
+    }
+}
@@ -0,0 +1,106 @@
+package com.gigaspaces.marcello.billrun;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceRouting;
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+
+/**
+ * Progress of a bill run in one partition: every document whose id sorts at or before
+ * <code>lastCompletedId</code> has been post-processed and written back.
+ * <p>
+ * Routed by the partition index so it is stored next to the documents it tracks.
+ * </p>
+ *
+ * @since 10.2
+ */
+@SpaceClass
+public class BillRunCheckpoint implements Serializable {
+    private static final long serialVersionUID = -1482302937458719325L;
+
+    private String id;
+    private String runId;
+    private Integer partition;
+    private String lastCompletedId;
+    private Integer processed;
+    private Boolean completed;
+
+    public BillRunCheckpoint() {
+
+    }
+
+    public BillRunCheckpoint(String runId, int partition) {
+        this.id = idFor(runId, partition);
+        this.runId = runId;
+        this.partition = partition;
+        this.processed = 0;
+        this.completed = false;
+    }
+
+    public static String idFor(String runId, int partition) {
+        return runId + "_" + partition;
+    }
+
+    @SpaceId
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    @SpaceRouting
+    public Integer getPartition() {
+        return partition;
+    }
+
+    public void setPartition(Integer partition) {
+        this.partition = partition;
+    }
+
+    public String getLastCompletedId() {
+        return lastCompletedId;
+    }
+
+    public void setLastCompletedId(String lastCompletedId) {
+        this.lastCompletedId = lastCompletedId;
+    }
+
+    public Integer getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Integer processed) {
+        this.processed = processed;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("runId", runId)
+                .add("partition", partition)
+                .add("lastCompletedId", lastCompletedId)
+                .add("processed", processed)
+                .add("completed", completed)
+                .toString();
+    }
+}
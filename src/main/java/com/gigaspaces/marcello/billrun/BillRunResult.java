@@ -0,0 +1,102 @@
+package com.gigaspaces.marcello.billrun;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bill run, per partition or summed over all partitions.
+ *
+ * @since 10.2
+ */
+public class BillRunResult implements Serializable {
+    private static final long serialVersionUID = 2291783302561917361L;
+
+    /**
+     * At most this many failed ids are kept, the counter is always exact.
+     */
+    static final int MAX_FAILED_IDS = 100;
+
+    private int partitions;
+    private int processed;
+    private int skipped;
+    private int failed;
+    private final List<String> failedIds = new ArrayList<>();
+    private long elapsedMillis;
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return the documents skipped because a previous, interrupted run already completed them
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<String> getFailedIds() {
+        return failedIds;
+    }
+
+    /**
+     * @return the longest time any partition took
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void partitionDone(long elapsedMillis) {
+        this.partitions = 1;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void processed(int count) {
+        processed += count;
+    }
+
+    void skipped(int count) {
+        skipped += count;
+    }
+
+    synchronized void failed(String id) {
+        failed++;
+        if (failedIds.size() < MAX_FAILED_IDS) {
+            failedIds.add(id);
+        }
+    }
+
+    void merge(BillRunResult other) {
+        partitions += other.partitions;
+        processed += other.processed;
+        skipped += other.skipped;
+        failed += other.failed;
+        for (String id : other.failedIds) {
+            if (failedIds.size() < MAX_FAILED_IDS) {
+                failedIds.add(id);
+            }
+        }
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("partitions", partitions)
+                .add("processed", processed)
+                .add("skipped", skipped)
+                .add("failed", failed)
+                .add("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+}
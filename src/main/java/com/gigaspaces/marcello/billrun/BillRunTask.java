@@ -0,0 +1,237 @@
+package com.gigaspaces.marcello.billrun;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.TimePeriod;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+import org.openspaces.core.transaction.manager.DistributedJiniTxManagerConfigurer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs {@link ChargeData#postProcess()} over every document of a bill cycle, inside each partition.
+ * <p>
+ * The partition's matching ids are sorted and handled in batches: every batch is read, post-processed
+ * in parallel on a fork-join pool and written back with a single <code>writeMultiple</code>, in one local
+ * transaction with the {@link BillRunCheckpoint} that records the last id completed. Executing the task again
+ * with the same run id resumes each partition after its checkpoint, and skips partitions that already completed;
+ * since a batch and its checkpoint commit together, no document is post-processed twice.
+ * </p>
+ * <pre>
+ * BillRunResult result = gigaSpace.execute(
+ *         new BillRunTask&lt;&gt;("2015-07", SubscriberChargeData.class, 7, null, 500)).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class BillRunTask<T extends ChargeData> implements DistributedTask<BillRunResult, BillRunResult>, ClusterInfoAware {
+    private static final long serialVersionUID = -6139734201771536470L;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final String runId;
+    private final Class<T> type;
+    private final Integer billSequence;
+    private final TimePeriod period;
+    private final int batchSize;
+
+    /**
+     * @param runId        identifies the run; reuse it to resume an interrupted run
+     * @param billSequence the cycle to process, or null for any
+     * @param period       only documents whose period starts within it, or null for any
+     */
+    public BillRunTask(String runId, Class<T> type, Integer billSequence, TimePeriod period, int batchSize) {
+        Validate.notEmpty(runId, "runId can't be empty");
+        Validate.notNull(type, "type can't be null");
+        Validate.isTrue(batchSize > 0, "batchSize must be positive");
+
+        this.runId = runId;
+        this.type = type;
+        this.billSequence = billSequence;
+        this.period = period;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public BillRunResult execute() throws Exception {
+        long start = System.currentTimeMillis();
+        int partition = clusterInfo != null && clusterInfo.getInstanceId() != null ? clusterInfo.getInstanceId() - 1 : 0;
+        BillRunResult result = new BillRunResult();
+
+        BillRunCheckpoint checkpoint = gigaSpace.readById(BillRunCheckpoint.class, BillRunCheckpoint.idFor(runId, partition), partition);
+        if (checkpoint == null) {
+            checkpoint = new BillRunCheckpoint(runId, partition);
+        } else if (Boolean.TRUE.equals(checkpoint.getCompleted())) {
+            result.skipped(checkpoint.getProcessed());
+            result.partitionDone(System.currentTimeMillis() - start);
+            return result;
+        }
+
+        DistributedJiniTxManagerConfigurer transactionManagerConfigurer = new DistributedJiniTxManagerConfigurer();
+        try {
+            PlatformTransactionManager transactionManager = transactionManagerConfigurer.transactionManager();
+            GigaSpace transactional = new GigaSpaceConfigurer(gigaSpace.getSpace()).transactionManager(transactionManager).gigaSpace();
+            process(checkpoint, transactional, transactionManager, result);
+        } finally {
+            transactionManagerConfigurer.destroy();
+        }
+        result.partitionDone(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private void process(BillRunCheckpoint checkpoint, GigaSpace transactional, PlatformTransactionManager transactionManager,
+                         BillRunResult result) {
+        String[] ids = cycleIds();
+        int from = 0;
+        if (checkpoint.getLastCompletedId() != null) {
+            int position = Arrays.binarySearch(ids, checkpoint.getLastCompletedId());
+            from = position >= 0 ? position + 1 : -position - 1;
+            result.skipped(from);
+        }
+
+        for (int i = from; i < ids.length; i += batchSize) {
+            String[] batchIds = Arrays.copyOfRange(ids, i, Math.min(ids.length, i + batchSize));
+            T[] batch = gigaSpace.readByIds(type, batchIds).getResultsArray();
+            POOL.invoke(new PostProcessAction<>(batch, 0, batch.length, result));
+
+            T[] processed = compact(batch);
+            checkpoint.setLastCompletedId(batchIds[batchIds.length - 1]);
+            checkpoint.setProcessed(checkpoint.getProcessed() + processed.length);
+            TransactionStatus transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                if (processed.length > 0) {
+                    transactional.writeMultiple(processed);
+                }
+                transactional.write(checkpoint);
+            } catch (RuntimeException | Error e) {
+                transactionManager.rollback(transaction);
+                throw e;
+            }
+            transactionManager.commit(transaction);
+            result.processed(processed.length);
+        }
+
+        checkpoint.setCompleted(true);
+        gigaSpace.write(checkpoint);
+    }
+
+    @Override
+    public BillRunResult reduce(List<AsyncResult<BillRunResult>> results) throws Exception {
+        BillRunResult total = new BillRunResult();
+        for (AsyncResult<BillRunResult> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            total.merge(result.getResult());
+        }
+        return total;
+    }
+
+    private String[] cycleIds() {
+        StringBuilder where = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        if (billSequence != null) {
+            where.append("billSequence = ?");
+            parameters.add(billSequence);
+        }
+        if (period != null) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            where.append("period.start >= ? AND period.start < ?");
+            parameters.add(period.getStart());
+            parameters.add(period.getEnd());
+        }
+        SQLQuery<T> query = new SQLQuery<>(type, where.toString(), parameters.toArray()).setProjections("id");
+        T[] documents = gigaSpace.readMultiple(query, Integer.MAX_VALUE);
+
+        String[] ids = new String[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            ids[i] = documents[i].getId();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] compact(T[] batch) {
+        int count = 0;
+        for (T document : batch) {
+            if (document != null) {
+                count++;
+            }
+        }
+        T[] compacted = (T[]) Array.newInstance(type, count);
+        int index = 0;
+        for (T document : batch) {
+            if (document != null) {
+                compacted[index++] = document;
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Post-processes a slice of the batch, clearing the slots of documents that failed.
+     */
+    private static class PostProcessAction<T extends ChargeData> extends RecursiveAction {
+        private static final long serialVersionUID = 4189476104447591617L;
+
+        private final T[] batch;
+        private final int from;
+        private final int to;
+        private final BillRunResult result;
+
+        PostProcessAction(T[] batch, int from, int to, BillRunResult result) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    if (batch[i] == null) {
+                        continue;
+                    }
+                    try {
+                        batch[i].postProcess();
+                    } catch (RuntimeException e) {
+                        result.failed(batch[i].getId());
+                        batch[i] = null;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PostProcessAction<>(batch, from, middle, result), new PostProcessAction<>(batch, middle, to, result));
+        }
+    }
+}
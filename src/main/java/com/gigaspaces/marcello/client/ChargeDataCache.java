@@ -0,0 +1,161 @@
+package com.gigaspaces.marcello.client;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.codec.CompressedRowList;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyContainerConfigurer;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Client-side read-through cache of {@link ChargeData} documents keyed by space id.
+ * <p>
+ * The cache is bounded by the total number of rows held, not by the number of documents, so a few
+ * large account-level documents can't crowd out the heap; rows kept compressed are counted from their
+ * encoded size. Entries are invalidated by space notifications whenever a document is updated, taken or
+ * expires.
+ * </p>
+ * <p>
+ * Cached documents are shared between callers and must be treated as read-only.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class ChargeDataCache<T extends ChargeData> implements Closeable {
+
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final GigaSpace gigaSpace;
+    private final Class<T> type;
+    private final Cache<String, T> cache;
+    private final SimpleNotifyEventListenerContainer notifyContainer;
+
+    /**
+     * Per-stripe invalidation counters, used to drop a space read that raced with a notification
+     * for the same id instead of caching a stale document.
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public ChargeDataCache(GigaSpace gigaSpace, Class<T> type, long maxRows) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(type, "type can't be null");
+        Validate.isTrue(maxRows > 0, "maxRows must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.type = type;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher(new RowCountWeigher<T>())
+                .recordStats()
+                .build();
+        this.notifyContainer = new SimpleNotifyContainerConfigurer(gigaSpace)
+                .template(new SQLQuery<T>(type, ""))
+                .notifyWrite(false)
+                .notifyUpdate(true)
+                .notifyTake(true)
+                .notifyLeaseExpire(true)
+                .eventListener(new SpaceDataEventListener<T>() {
+                    @Override
+                    public void onEvent(T data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        invalidate(data.getId());
+                    }
+                })
+                .notifyContainer();
+    }
+
+    /**
+     * Returns the cached document, reading it from the space only on a miss.
+     *
+     * @return the document, or null when it isn't in the space
+     */
+    public T readById(String id, Object routing) {
+        Validate.notNull(id, "id can't be null");
+
+        T cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripeOf(id);
+        long before = invalidations.get(stripe);
+        T data = gigaSpace.readById(type, id, routing);
+        if (data != null) {
+            // put first and check after: a notification either bumps the counter before the check, or comes
+            // after the put and invalidates it itself
+            cache.put(id, data);
+            if (invalidations.get(stripe) != before) {
+                cache.invalidate(id);
+            }
+        }
+        return data;
+    }
+
+    public void invalidate(String id) {
+        invalidations.incrementAndGet(stripeOf(id));
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void close() {
+        notifyContainer.destroy();
+        cache.invalidateAll();
+    }
+
+    private static int stripeOf(String id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+    }
+
+    /**
+     * Weighs a document by its rows. Rows still held encoded by a {@link CompressedRowList} are weighed from the
+     * encoded length instead, so weighing a document never decodes them.
+     */
+    private static class RowCountWeigher<T extends ChargeData> implements Weigher<String, T> {
+        /**
+         * About what a charge row takes once serialized and deflated.
+         */
+        private static final int ENCODED_ROW_BYTES = 64;
+
+        @Override
+        public int weigh(String id, T data) {
+            return 1 + size(data.getChargeRows()) + size(data.getChargeGroupTotals());
+        }
+
+        private static int size(List<?> rows) {
+            if (rows == null) {
+                return 0;
+            }
+            if (rows instanceof CompressedRowList) {
+                int encodedLength = ((CompressedRowList) rows).getEncodedLength();
+                if (encodedLength >= 0) {
+                    return (encodedLength + ENCODED_ROW_BYTES - 1) / ENCODED_ROW_BYTES;
+                }
+            }
+            return rows.size();
+        }
+    }
+}
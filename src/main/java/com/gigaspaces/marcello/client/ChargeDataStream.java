@@ -0,0 +1,230 @@
+package com.gigaspaces.marcello.client;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TimePeriod;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.j_spaces.core.client.GSIterator;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.IteratorBuilder;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Streams the documents matching a query in pages, instead of materializing them all like <code>readMultiple</code>.
+ * <p>
+ * The space keeps only the matching ids and sends <code>pageSize</code> documents per round trip, and the
+ * client holds at most the page being consumed plus <code>prefetchPages</code> pages read ahead by a background
+ * thread. The reader blocks once the read-ahead is full, so a slow consumer slows the stream down instead of
+ * filling the heap. With no read-ahead, pages are fetched on the caller's thread as it iterates.
+ * </p>
+ * <pre>
+ * try (ChargeDataStream&lt;SubscriberChargeData&gt; stream = ChargeDataStream.forAccount(gigaSpace, ban, 500, 2)) {
+ *     stream.forEachRow(new ChargeDataStream.RowHandler&lt;SubscriberChargeData&gt;() { ... });
+ * }
+ * </pre>
+ * Documents are consumed once and must not be kept, or the memory bound is lost. Always close the stream,
+ * which releases the space-side iterator when it wasn't read to the end.
+ *
+ * @since 10.2
+ */
+public class ChargeDataStream<T extends ChargeData> implements Iterator<T>, Closeable {
+
+    private static final ThreadFactory READERS = new ThreadFactoryBuilder().setNameFormat("charge-data-stream-%d").setDaemon(true).build();
+    private static final List<Object> END = Collections.emptyList();
+
+    private final GSIterator iterator;
+    private final int pageSize;
+    private final BlockingQueue<List<Object>> pages;
+    private final Thread reader;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    private List<Object> page = Collections.emptyList();
+    private int position;
+    private boolean exhausted;
+
+    /**
+     * @param pageSize      documents per round trip to the space
+     * @param prefetchPages pages read ahead in the background, or 0 to read on the calling thread
+     */
+    public ChargeDataStream(GigaSpace gigaSpace, SQLQuery<T> query, int pageSize, int prefetchPages) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(query, "query can't be null");
+        Validate.isTrue(pageSize > 0, "pageSize must be positive");
+        Validate.isTrue(prefetchPages >= 0, "prefetchPages can't be negative");
+
+        this.pageSize = pageSize;
+        this.iterator = new IteratorBuilder(gigaSpace)
+                .addTemplate(query)
+                .bufferSize(pageSize)
+                .iteratorScope(IteratorBuilder.IteratorScope.CURRENT)
+                .iterate();
+        if (prefetchPages == 0) {
+            this.pages = null;
+            this.reader = null;
+        } else {
+            this.pages = new ArrayBlockingQueue<>(prefetchPages);
+            this.reader = READERS.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    readAhead();
+                }
+            });
+            this.reader.start();
+        }
+    }
+
+    /**
+     * @return every document of the account, over all bills
+     */
+    public static ChargeDataStream<SubscriberChargeData> forAccount(GigaSpace gigaSpace, String customerAccountId,
+                                                                    int pageSize, int prefetchPages) {
+        Validate.notEmpty(customerAccountId, "customerAccountId can't be empty");
+
+        SQLQuery<SubscriberChargeData> query = new SQLQuery<>(SubscriberChargeData.class, "customerAccountId = ?", customerAccountId);
+        query.setRouting(customerAccountId);
+        return new ChargeDataStream<>(gigaSpace, query, pageSize, prefetchPages);
+    }
+
+    /**
+     * @return every document whose period starts within the given period, from all partitions
+     */
+    public static ChargeDataStream<SubscriberChargeData> forPeriod(GigaSpace gigaSpace, TimePeriod period,
+                                                                   int pageSize, int prefetchPages) {
+        Validate.notNull(period, "period can't be null");
+
+        return new ChargeDataStream<>(gigaSpace, new SQLQuery<>(SubscriberChargeData.class,
+                "period.start >= ? AND period.start < ?", period.getStart(), period.getEnd()), pageSize, prefetchPages);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < page.size()) {
+            return true;
+        }
+        if (exhausted || closed) {
+            return false;
+        }
+        page = nextPage();
+        position = 0;
+        exhausted = page.isEmpty();
+        return !exhausted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T document = (T) page.get(position);
+        // drop the reference so consumed documents can be collected before the page ends
+        page.set(position++, null);
+        return document;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Hands every row of every remaining document to the handler as it arrives.
+     *
+     * @return the number of rows handled
+     */
+    public long forEachRow(RowHandler<? super T> handler) {
+        Validate.notNull(handler, "handler can't be null");
+
+        long rows = 0;
+        while (hasNext()) {
+            T document = next();
+            List<ChargeRow> chargeRows = document.getChargeRows();
+            if (chargeRows == null) {
+                continue;
+            }
+            for (ChargeRow row : chargeRows) {
+                handler.onRow(document, row);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (reader != null) {
+            reader.interrupt();
+            pages.clear();
+        }
+        iterator.cancel();
+    }
+
+    private List<Object> nextPage() {
+        if (reader == null) {
+            return readPage();
+        }
+        try {
+            List<Object> next = pages.take();
+            if (next == END && failure != null) {
+                throw Throwables.propagate(failure);
+            }
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the next page", e);
+        }
+    }
+
+    private List<Object> readPage() {
+        List<Object> next = new ArrayList<>(pageSize);
+        while (next.size() < pageSize && iterator.hasNext()) {
+            next.add(iterator.next());
+        }
+        return next;
+    }
+
+    private void readAhead() {
+        try {
+            List<Object> next;
+            do {
+                next = readPage();
+                // blocks while the consumer is behind
+                pages.put(next.isEmpty() ? END : next);
+            } while (!next.isEmpty() && !closed);
+        } catch (InterruptedException e) {
+            // closed by the consumer
+        } catch (Throwable e) {
+            failure = e;
+            try {
+                pages.put(END);
+            } catch (InterruptedException closed) {
+                // nobody is waiting anymore
+            }
+        }
+    }
+
+    /**
+     * Receives the rows of a stream one at a time.
+     */
+    public interface RowHandler<T extends ChargeData> {
+        void onRow(T document, ChargeRow row);
+    }
+}
@@ -0,0 +1,90 @@
+package com.gigaspaces.marcello.client;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.client.ChangeSet;
+import com.gigaspaces.marcello.existence.ExistenceFilter;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.marcello.model.TelephoneNumberKey;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.List;
+
+/**
+ * Rewrites the <code>telephoneKey</code> of every {@link SubscriberChargeData} from its number with the current
+ * {@link TelephoneNumberKey} encoding, on all partitions in parallel.
+ * <p>
+ * The first encoding packed the digits in base 10, which let a shorter number fall in the range of a longer prefix;
+ * the current one packs them in base 11. Keys stored by the first are neither found by exact lookups nor placed
+ * right in prefix ranges, so a space holding documents written before the change must run this once, before
+ * {@link TelephoneNumberLookup} serves it. Every document is rewritten, whatever its key, so running it again is
+ * harmless. A partition with an {@link ExistenceFilter} rebuilds it afterwards, as the filter holds the old keys.
+ * </p>
+ * <pre>
+ * long rekeyed = gigaSpace.execute(new TelephoneKeyMigrationTask(1000)).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class TelephoneKeyMigrationTask implements DistributedTask<Long, Long>, ClusterInfoAware {
+    private static final long serialVersionUID = 3391577240823460152L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final int pageSize;
+
+    public TelephoneKeyMigrationTask(int pageSize) {
+        Validate.isTrue(pageSize > 0, "pageSize must be positive");
+
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public Long execute() throws Exception {
+        long rekeyed = 0;
+        // the stored key isn't projected: the number's setter would overwrite it with the new key anyway
+        SQLQuery<SubscriberChargeData> query = new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class, "")
+                .setProjections("id", "customerAccountId", "telephoneNumber");
+        try (ChargeDataStream<SubscriberChargeData> documents = new ChargeDataStream<>(gigaSpace, query, pageSize, 0)) {
+            while (documents.hasNext()) {
+                SubscriberChargeData document = documents.next();
+                TelephoneNumber telephoneNumber = document.getTelephoneNumber();
+                Long key = telephoneNumber != null ? TelephoneNumberKey.of(telephoneNumber) : null;
+                rekeyed += gigaSpace.change(new IdQuery<>(SubscriberChargeData.class, document.getId(), document.getCustomerAccountId()),
+                        new ChangeSet().set("telephoneKey", key)).getNumberOfChangedEntries();
+            }
+        }
+
+        ExistenceFilter filter = ExistenceFilter.forPartition(gigaSpace.getName(), clusterInfo);
+        if (filter != null) {
+            filter.rebuild();
+        }
+        return rekeyed;
+    }
+
+    @Override
+    public Long reduce(List<AsyncResult<Long>> results) throws Exception {
+        long rekeyed = 0;
+        for (AsyncResult<Long> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            rekeyed += result.getResult();
+        }
+        return rekeyed;
+    }
+}
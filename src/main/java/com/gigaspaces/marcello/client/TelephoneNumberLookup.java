@@ -0,0 +1,75 @@
+package com.gigaspaces.marcello.client;
+
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.marcello.model.TelephoneNumberKey;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+/**
+ * Finds {@link SubscriberChargeData} by telephone number through the indexed <code>telephoneKey</code>,
+ * so lookups compare longs instead of {@link TelephoneNumber} objects. Numbers too long for a key, past the E.164
+ * maximum, are matched on the indexed <code>telephoneNumber</code> instead, and are never in prefix results.
+ * <p>
+ * Documents are routed by account, so every lookup is broadcast to all partitions. A space holding documents
+ * keyed by the earlier encoding must run {@link TelephoneKeyMigrationTask} first.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class TelephoneNumberLookup {
+
+    private final GigaSpace gigaSpace;
+
+    public TelephoneNumberLookup(GigaSpace gigaSpace) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+
+        this.gigaSpace = gigaSpace;
+    }
+
+    /**
+     * @return every document of the number, over all bills
+     */
+    public SubscriberChargeData[] byNumber(TelephoneNumber telephoneNumber) {
+        Long key = TelephoneNumberKey.of(telephoneNumber);
+        if (key == null) {
+            return gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "telephoneNumber = ?", telephoneNumber), Integer.MAX_VALUE);
+        }
+        return gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "telephoneKey = ?", key), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the documents of the number for one bill
+     */
+    public SubscriberChargeData[] byNumber(TelephoneNumber telephoneNumber, int billSequence) {
+        Long key = TelephoneNumberKey.of(telephoneNumber);
+        if (key == null) {
+            return gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "telephoneNumber = ? AND billSequence = ?",
+                    telephoneNumber, billSequence), Integer.MAX_VALUE);
+        }
+        return gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "telephoneKey = ? AND billSequence = ?",
+                key, billSequence), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return up to <code>max</code> documents of numbers in the country
+     */
+    public SubscriberChargeData[] byCountryCode(String countryCode, int max) {
+        return byPrefix(countryCode, "", max);
+    }
+
+    /**
+     * @return up to <code>max</code> documents of numbers in the country whose local number starts with the prefix
+     */
+    public SubscriberChargeData[] byPrefix(String countryCode, String localPrefix, int max) {
+        SQLQuery<SubscriberChargeData> query = new SQLQuery<>(SubscriberChargeData.class, "telephoneKey >= ? AND telephoneKey < ?",
+                TelephoneNumberKey.prefixFrom(countryCode, localPrefix), TelephoneNumberKey.prefixTo(countryCode, localPrefix));
+        return gigaSpace.readMultiple(query, max);
+    }
+
+    public int countByCountryCode(String countryCode) {
+        return gigaSpace.count(new SQLQuery<>(SubscriberChargeData.class, "telephoneKey >= ? AND telephoneKey < ?",
+                TelephoneNumberKey.countryCodeFrom(countryCode), TelephoneNumberKey.countryCodeTo(countryCode)));
+    }
+}
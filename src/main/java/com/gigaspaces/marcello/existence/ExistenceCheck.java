@@ -0,0 +1,119 @@
+package com.gigaspaces.marcello.existence;
+
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.marcello.model.TelephoneNumberKey;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.EntryAlreadyInSpaceException;
+import org.openspaces.core.GigaSpace;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tells ingest whether a {@link SubscriberChargeData} might already exist, from the partitions'
+ * {@link ExistenceFilter}s instead of an indexed read.
+ * <p>
+ * <code>false</code> is only probable: the filters learn of writes from notifications, which arrive
+ * asynchronously, so a document written moments ago, by this client or another, may not be in them yet. Use it
+ * to skip the read, never to skip the check the space makes: write with {@link WriteModifiers#WRITE_ONLY} and
+ * treat {@link EntryAlreadyInSpaceException} as "it existed after all", as
+ * {@link com.gigaspaces.marcello.model.ChargeDataChanges#upsert} does. <code>true</code> must be confirmed with a
+ * read before deciding between write and merge. Checks are cheapest in batches, one round trip to each partition
+ * for all candidates, and for an id with its account, which only asks the account's partition.
+ * </p>
+ * <pre>
+ * boolean[] mightExist = new ExistenceCheck(gigaSpace).idsMightExist(ids);
+ * ...
+ * if (!mightExist[i]) {
+ *     try {
+ *         gigaSpace.write(document, WriteModifiers.WRITE_ONLY);
+ *     } catch (EntryAlreadyInSpaceException e) {
+ *         // not in the filters yet; merge as for a positive answer
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class ExistenceCheck {
+
+    private final GigaSpace gigaSpace;
+
+    /**
+     * @param gigaSpace a clustered proxy
+     */
+    public ExistenceCheck(GigaSpace gigaSpace) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+
+        this.gigaSpace = gigaSpace;
+    }
+
+    public boolean mightExist(String customerAccountId, String id) {
+        Validate.notEmpty(customerAccountId, "customerAccountId can't be empty");
+        Validate.notEmpty(id, "id can't be empty");
+
+        return execute(new MightExistTask(Collections.singletonList(id), new long[0]), customerAccountId).get(0);
+    }
+
+    public boolean mightExist(TelephoneNumber telephoneNumber) {
+        return numbersMightExist(Collections.singletonList(telephoneNumber))[0];
+    }
+
+    /**
+     * @return for each id, whether a document with that id might exist in any partition; <code>false</code> is probable,
+     * not certain
+     */
+    public boolean[] idsMightExist(List<String> ids) {
+        Validate.notNull(ids, "ids can't be null");
+
+        BitSet mightExist = execute(new MightExistTask(ids, new long[0]), null);
+        boolean[] answers = new boolean[ids.size()];
+        for (int i = 0; i < answers.length; i++) {
+            answers[i] = mightExist.get(i);
+        }
+        return answers;
+    }
+
+    /**
+     * @return for each telephone number, whether a document with that number might exist in any partition;
+     * <code>false</code> is probable, not certain
+     */
+    public boolean[] numbersMightExist(List<TelephoneNumber> telephoneNumbers) {
+        Validate.notNull(telephoneNumbers, "telephoneNumbers can't be null");
+
+        long[] keys = new long[telephoneNumbers.size()];
+        int keyed = 0;
+        for (TelephoneNumber telephoneNumber : telephoneNumbers) {
+            Validate.notNull(telephoneNumber, "telephoneNumbers can't hold null");
+            Long key = TelephoneNumberKey.of(telephoneNumber);
+            if (key != null) {
+                keys[keyed++] = key;
+            }
+        }
+        BitSet mightExist = keyed == 0 ? new BitSet()
+                : execute(new MightExistTask(Collections.<String>emptyList(), Arrays.copyOf(keys, keyed)), null);
+        boolean[] answers = new boolean[keys.length];
+        keyed = 0;
+        for (int i = 0; i < answers.length; i++) {
+            // numbers too long to pack are not in the filters
+            answers[i] = TelephoneNumberKey.of(telephoneNumbers.get(i)) == null || mightExist.get(keyed++);
+        }
+        return answers;
+    }
+
+    private BitSet execute(MightExistTask task, Object routing) {
+        try {
+            return routing != null ? gigaSpace.execute(task, routing).get() : gigaSpace.execute(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while checking existence", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to check existence", e.getCause());
+        }
+    }
+}
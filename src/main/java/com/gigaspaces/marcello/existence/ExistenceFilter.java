@@ -0,0 +1,215 @@
+package com.gigaspaces.marcello.existence;
+
+import com.gigaspaces.marcello.client.ChargeDataStream;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyContainerConfigurer;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Bloom filters over the ids and telephone numbers of the {@link SubscriberChargeData} of one partition, kept
+ * up to date as documents are written, for {@link MightExistTask} to answer most negative existence checks
+ * without an indexed read.
+ * <p>
+ * Meant to run inside each primary partition, on the partition's embedded (non-clustered) space proxy, like
+ * {@link com.gigaspaces.marcello.account.AccountChargeDataMaintainer}, and is found by the tasks of the partition
+ * through its {@link ClusterInfo}. The filters are filled from the partition
+ * when the filter starts and then from write and update notifications. A Bloom filter can't forget, so taken
+ * documents keep answering "might exist" until {@link #rebuild()}. A rebuild never drops a document the
+ * filters had, but notifications are asynchronous: a document is missing from the filters from its write until
+ * its notification arrives, so a negative answer is only probable and writes relying on one must still let the
+ * space reject a duplicate (see {@link ExistenceCheck}).
+ * </p>
+ *
+ * @since 10.2
+ */
+public class ExistenceFilter implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(ExistenceFilter.class.getName());
+
+    private static final ConcurrentMap<String, ExistenceFilter> PARTITIONS = new ConcurrentHashMap<>();
+
+    private static final int SCAN_PAGE_SIZE = 10000;
+
+    private final GigaSpace gigaSpace;
+    private final String key;
+    private final int expectedDocuments;
+    private final double falsePositiveRate;
+    private final SimpleNotifyEventListenerContainer notifyContainer;
+    // guards swapping the filters against notifications adding to them
+    private final Object swap = new Object();
+    private volatile Filters filters;
+    private volatile Filters rebuilding;
+
+    /**
+     * @param clusterInfo       the cluster info of the processing unit instance the filter runs in
+     * @param expectedDocuments the documents the partition is sized for; past it the false positive rate grows
+     */
+    public ExistenceFilter(GigaSpace gigaSpace, ClusterInfo clusterInfo, int expectedDocuments, double falsePositiveRate) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.isTrue(expectedDocuments > 0, "expectedDocuments must be positive");
+        Validate.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+
+        this.gigaSpace = gigaSpace;
+        this.key = keyOf(gigaSpace.getName(), clusterInfo);
+        this.expectedDocuments = expectedDocuments;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = new Filters(expectedDocuments, falsePositiveRate);
+        // listen before the first scan, so a document written during the scan is not missed
+        this.notifyContainer = new SimpleNotifyContainerConfigurer(gigaSpace)
+                .template(new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class, ""))
+                .notifyWrite(true)
+                .notifyUpdate(true)
+                .eventListener(new SpaceDataEventListener<SubscriberChargeData>() {
+                    @Override
+                    public void onEvent(SubscriberChargeData data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        add(data.getId(), data.getTelephoneKey());
+                    }
+                })
+                .notifyContainer();
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            notifyContainer.destroy();
+            throw e;
+        }
+        if (PARTITIONS.putIfAbsent(key, this) != null) {
+            notifyContainer.destroy();
+            throw new IllegalStateException("an existence filter is already running for " + key);
+        }
+    }
+
+    /**
+     * @param clusterInfo the cluster info injected into the task asking, which runs in the partition
+     * @return the filter of the partition running in this JVM, or <code>null</code> if it has none
+     */
+    public static ExistenceFilter forPartition(String spaceName, ClusterInfo clusterInfo) {
+        return PARTITIONS.get(keyOf(spaceName, clusterInfo));
+    }
+
+    /**
+     * @param partition the zero based partition, one less than the instance id of its processing unit
+     * @return the filter of the partition running in this JVM, or <code>null</code> if it has none
+     */
+    public static ExistenceFilter forPartition(String spaceName, int partition) {
+        return PARTITIONS.get(keyOf(spaceName, partition));
+    }
+
+    private static String keyOf(String spaceName, ClusterInfo clusterInfo) {
+        return keyOf(spaceName, clusterInfo != null && clusterInfo.getInstanceId() != null ? clusterInfo.getInstanceId() - 1 : 0);
+    }
+
+    private static String keyOf(String spaceName, int partition) {
+        return spaceName + "#" + partition;
+    }
+
+    public boolean mightContainId(String id) {
+        return filters.mightContainId(id);
+    }
+
+    public boolean mightContainTelephoneKey(long telephoneKey) {
+        return filters.mightContainTelephoneKey(telephoneKey);
+    }
+
+    /**
+     * @return the false positive rate the filters have reached with the documents added so far
+     */
+    public double getExpectedFalsePositiveRate() {
+        return filters.expectedFpp();
+    }
+
+    /**
+     * Refills the filters from the documents the partition holds now, dropping the ids of taken documents.
+     *
+     * @return the number of documents scanned
+     */
+    public synchronized long rebuild() {
+        Filters next = new Filters(expectedDocuments, falsePositiveRate);
+        synchronized (swap) {
+            rebuilding = next;
+        }
+        long scanned = 0;
+        boolean built = false;
+        SQLQuery<SubscriberChargeData> query = new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class, "")
+                .setProjections("id", "telephoneKey");
+        try (ChargeDataStream<SubscriberChargeData> documents = new ChargeDataStream<>(gigaSpace, query, SCAN_PAGE_SIZE, 0)) {
+            while (documents.hasNext()) {
+                SubscriberChargeData document = documents.next();
+                next.add(document.getId(), document.getTelephoneKey());
+                scanned++;
+            }
+            built = true;
+        } finally {
+            // publish and stop feeding the rebuilt filters at once, or a notification in between is lost
+            synchronized (swap) {
+                if (built) {
+                    filters = next;
+                }
+                rebuilding = null;
+            }
+        }
+        logger.info("existence filter " + key + " built from " + scanned + " documents");
+        return scanned;
+    }
+
+    private void add(String id, Long telephoneKey) {
+        // under the swap lock, so the document reaches whichever filters rebuild() publishes
+        synchronized (swap) {
+            filters.add(id, telephoneKey);
+            if (rebuilding != null) {
+                rebuilding.add(id, telephoneKey);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        PARTITIONS.remove(key, this);
+        notifyContainer.destroy();
+    }
+
+    private static final class Filters {
+        private final BloomFilter<CharSequence> ids;
+        private final BloomFilter<Long> telephoneKeys;
+
+        Filters(int expectedDocuments, double falsePositiveRate) {
+            this.ids = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), expectedDocuments, falsePositiveRate);
+            this.telephoneKeys = BloomFilter.create(Funnels.longFunnel(), expectedDocuments, falsePositiveRate);
+        }
+
+        // Guava's filters are not thread safe
+        synchronized void add(String id, Long telephoneKey) {
+            if (id != null) {
+                ids.put(id);
+            }
+            if (telephoneKey != null) {
+                telephoneKeys.put(telephoneKey);
+            }
+        }
+
+        synchronized boolean mightContainId(String id) {
+            return ids.mightContain(id);
+        }
+
+        synchronized boolean mightContainTelephoneKey(long telephoneKey) {
+            return telephoneKeys.mightContain(telephoneKey);
+        }
+
+        synchronized double expectedFpp() {
+            return ids.expectedFpp();
+        }
+    }
+}
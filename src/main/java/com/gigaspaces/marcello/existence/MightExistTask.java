@@ -0,0 +1,81 @@
+package com.gigaspaces.marcello.existence;
+
+import com.gigaspaces.async.AsyncResult;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Checks ids and packed telephone numbers against the {@link ExistenceFilter} of each partition it runs on.
+ * <p>
+ * Bit <code>i</code> of the result is set when candidate <code>i</code>, ids first and then telephone keys, might
+ * exist in any partition; a clear bit means it exists in none. A partition without a running filter answers
+ * "might exist" for every candidate.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class MightExistTask implements DistributedTask<BitSet, BitSet>, ClusterInfoAware {
+    private static final long serialVersionUID = 1874406218826347503L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final ArrayList<String> ids;
+    private final long[] telephoneKeys;
+
+    public MightExistTask(List<String> ids, long[] telephoneKeys) {
+        Validate.notNull(ids, "ids can't be null");
+        Validate.notNull(telephoneKeys, "telephoneKeys can't be null");
+
+        this.ids = new ArrayList<>(ids);
+        this.telephoneKeys = telephoneKeys;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public BitSet execute() throws Exception {
+        ExistenceFilter filter = ExistenceFilter.forPartition(gigaSpace.getName(), clusterInfo);
+
+        BitSet mightExist = new BitSet(ids.size() + telephoneKeys.length);
+        if (filter == null) {
+            mightExist.set(0, ids.size() + telephoneKeys.length);
+            return mightExist;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (filter.mightContainId(ids.get(i))) {
+                mightExist.set(i);
+            }
+        }
+        for (int i = 0; i < telephoneKeys.length; i++) {
+            if (filter.mightContainTelephoneKey(telephoneKeys[i])) {
+                mightExist.set(ids.size() + i);
+            }
+        }
+        return mightExist;
+    }
+
+    @Override
+    public BitSet reduce(List<AsyncResult<BitSet>> results) throws Exception {
+        BitSet mightExist = new BitSet(ids.size() + telephoneKeys.length);
+        for (AsyncResult<BitSet> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            mightExist.or(result.getResult());
+        }
+        return mightExist;
+    }
+}
@@ -0,0 +1,98 @@
+package com.gigaspaces.marcello.export;
+
+import com.google.common.base.Objects;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where the column chunks of one block of an export file are, and the statistics readers use to skip blocks
+ * that can't match a filter without decoding them.
+ *
+ * @since 10.2
+ */
+public class BlockMetadata {
+
+    private final int rows;
+    private final List<ColumnChunk> chunks;
+
+    BlockMetadata(int rows, List<ColumnChunk> chunks) {
+        this.rows = rows;
+        this.chunks = Collections.unmodifiableList(chunks);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the chunks in the file's column order
+     */
+    public List<ColumnChunk> getChunks() {
+        return chunks;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("rows", rows)
+                .add("chunks", chunks.size())
+                .toString();
+    }
+
+    /**
+     * One column's values within a block.
+     */
+    public static class ColumnChunk {
+        private final long offset;
+        private final int length;
+        private final int nullCount;
+        private final Object min;
+        private final Object max;
+
+        ColumnChunk(long offset, int length, int nullCount, Object min, Object max) {
+            this.offset = offset;
+            this.length = length;
+            this.nullCount = nullCount;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getNullCount() {
+            return nullCount;
+        }
+
+        /**
+         * @return the smallest non-null value, or null when every value is null (or NaN)
+         */
+        public Object getMin() {
+            return min;
+        }
+
+        /**
+         * @return the largest non-null value, or null when every value is null (or NaN)
+         */
+        public Object getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("offset", offset)
+                    .add("length", length)
+                    .add("nullCount", nullCount)
+                    .add("min", min)
+                    .add("max", max)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.gigaspaces.marcello.export;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes and decodes column chunks and the typed values of the block statistics.
+ * <p>
+ * A chunk starts with a presence bitmap, one bit per row, when the block has nulls; only the non-null values
+ * follow. Strings are a dictionary of the distinct values in first-seen order followed by one varint index
+ * per value; ints and longs are zigzag varints of the difference from the previous value; doubles are their
+ * raw 8-byte bits.
+ * </p>
+ *
+ * @since 10.2
+ */
+final class ColumnEncoding {
+
+    private ColumnEncoding() {
+    }
+
+    /**
+     * @return the min and max of the non-null values, both null when there are none
+     */
+    static Object[] writeChunk(DataOutput out, ExportColumn.Type type, Object[] values, int rows) throws IOException {
+        int nulls = nullCount(values, rows);
+        if (nulls > 0) {
+            byte[] presence = new byte[(rows + 7) >>> 3];
+            for (int i = 0; i < rows; i++) {
+                if (values[i] != null) {
+                    presence[i >>> 3] |= 1 << (i & 7);
+                }
+            }
+            out.write(presence);
+        }
+        Object[] stats = new Object[2];
+        switch (type) {
+            case STRING:
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                int[] indexes = new int[rows - nulls];
+                int count = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (values[i] != null) {
+                        String value = (String) values[i];
+                        Integer index = dictionary.get(value);
+                        if (index == null) {
+                            index = dictionary.size();
+                            dictionary.put(value, index);
+                            updateStats(stats, value);
+                        }
+                        indexes[count++] = index;
+                    }
+                }
+                writeVarLong(out, dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    out.writeUTF(value);
+                }
+                for (int index : indexes) {
+                    writeVarLong(out, index);
+                }
+                break;
+            case INT:
+            case LONG:
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (values[i] != null) {
+                        long value = ((Number) values[i]).longValue();
+                        writeVarLong(out, zigzag(value - previous));
+                        previous = value;
+                        updateStats(stats, (Comparable<?>) values[i]);
+                    }
+                }
+                break;
+            case DOUBLE:
+                for (int i = 0; i < rows; i++) {
+                    if (values[i] != null) {
+                        double value = (Double) values[i];
+                        out.writeLong(Double.doubleToRawLongBits(value));
+                        if (!Double.isNaN(value)) {
+                            updateStats(stats, value);
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+        return stats;
+    }
+
+    static Object[] readChunk(DataInput in, ExportColumn.Type type, int rows, int nulls) throws IOException {
+        boolean[] present = new boolean[rows];
+        if (nulls > 0) {
+            byte[] presence = new byte[(rows + 7) >>> 3];
+            in.readFully(presence);
+            for (int i = 0; i < rows; i++) {
+                present[i] = (presence[i >>> 3] & (1 << (i & 7))) != 0;
+            }
+        } else {
+            Arrays.fill(present, true);
+        }
+        Object[] values = new Object[rows];
+        switch (type) {
+            case STRING:
+                String[] dictionary = new String[(int) readVarLong(in)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = in.readUTF();
+                }
+                for (int i = 0; i < rows; i++) {
+                    if (present[i]) {
+                        values[i] = dictionary[(int) readVarLong(in)];
+                    }
+                }
+                break;
+            case INT:
+            case LONG:
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (present[i]) {
+                        previous += unzigzag(readVarLong(in));
+                        values[i] = type == ExportColumn.Type.INT ? (Object) (int) previous : (Object) previous;
+                    }
+                }
+                break;
+            case DOUBLE:
+                for (int i = 0; i < rows; i++) {
+                    if (present[i]) {
+                        values[i] = Double.longBitsToDouble(in.readLong());
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+        return values;
+    }
+
+    static void writeValue(DataOutput out, ExportColumn.Type type, Object value) throws IOException {
+        switch (type) {
+            case STRING:
+                out.writeUTF((String) value);
+                break;
+            case INT:
+            case LONG:
+                writeVarLong(out, zigzag(((Number) value).longValue()));
+                break;
+            case DOUBLE:
+                out.writeLong(Double.doubleToRawLongBits((Double) value));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+    }
+
+    static Object readValue(DataInput in, ExportColumn.Type type) throws IOException {
+        switch (type) {
+            case STRING:
+                return in.readUTF();
+            case INT:
+                return (int) unzigzag(readVarLong(in));
+            case LONG:
+                return unzigzag(readVarLong(in));
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    static int nullCount(Object[] values, int rows) {
+        int nulls = 0;
+        for (int i = 0; i < rows; i++) {
+            if (values[i] == null) {
+                nulls++;
+            }
+        }
+        return nulls;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void updateStats(Object[] stats, Comparable value) {
+        if (stats[0] == null || value.compareTo(stats[0]) < 0) {
+            stats[0] = value;
+        }
+        if (stats[1] == null || value.compareTo(stats[1]) > 0) {
+            stats[1] = value;
+        }
+    }
+}
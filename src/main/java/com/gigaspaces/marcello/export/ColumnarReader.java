@@ -0,0 +1,149 @@
+package com.gigaspaces.marcello.export;
+
+import org.apache.commons.lang.Validate;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link ColumnarWriter}: the block statistics from the footer, and any column of
+ * any block without touching the other columns.
+ * <pre>
+ * try (ColumnarReader reader = new ColumnarReader(file)) {
+ *     for (int b = 0; b &lt; reader.getBlocks().size(); b++) {
+ *         if (maxAmount(reader, b) &gt;= threshold) {
+ *             Object[] amounts = reader.read(b, ExportColumn.AMOUNT);
+ *             ...
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class ColumnarReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final List<String> columns;
+    private final List<ExportColumn.Type> types;
+    private final List<BlockMetadata> blocks;
+
+    public ColumnarReader(File path) throws IOException {
+        Validate.notNull(path, "path can't be null");
+
+        this.file = new RandomAccessFile(path, "r");
+        try {
+            int trailer = 4 + ColumnarWriter.MAGIC.length;
+            byte[] magic = new byte[ColumnarWriter.MAGIC.length];
+            file.seek(0);
+            file.readFully(magic);
+            checkMagic(magic, path);
+            file.seek(file.length() - trailer);
+            int footerLength = file.readInt();
+            file.readFully(magic);
+            checkMagic(magic, path);
+
+            byte[] footer = new byte[footerLength];
+            file.seek(file.length() - trailer - footerLength);
+            file.readFully(footer);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer));
+
+            int columnCount = (int) ColumnEncoding.readVarLong(in);
+            List<String> columns = new ArrayList<>(columnCount);
+            List<ExportColumn.Type> types = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                columns.add(in.readUTF());
+                types.add(ExportColumn.Type.values()[in.readByte()]);
+            }
+            int blockCount = (int) ColumnEncoding.readVarLong(in);
+            List<BlockMetadata> blocks = new ArrayList<>(blockCount);
+            for (int b = 0; b < blockCount; b++) {
+                int rows = (int) ColumnEncoding.readVarLong(in);
+                List<BlockMetadata.ColumnChunk> chunks = new ArrayList<>(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    long offset = in.readLong();
+                    int length = (int) ColumnEncoding.readVarLong(in);
+                    int nullCount = (int) ColumnEncoding.readVarLong(in);
+                    Object min = null;
+                    Object max = null;
+                    if (in.readBoolean()) {
+                        min = ColumnEncoding.readValue(in, types.get(c));
+                        max = ColumnEncoding.readValue(in, types.get(c));
+                    }
+                    chunks.add(new BlockMetadata.ColumnChunk(offset, length, nullCount, min, max));
+                }
+                blocks.add(new BlockMetadata(rows, chunks));
+            }
+            this.columns = Collections.unmodifiableList(columns);
+            this.types = Collections.unmodifiableList(types);
+            this.blocks = Collections.unmodifiableList(blocks);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static void checkMagic(byte[] magic, File path) throws IOException {
+        if (!Arrays.equals(magic, ColumnarWriter.MAGIC)) {
+            throw new IOException(path + " is not a columnar export file");
+        }
+    }
+
+    /**
+     * @return the column names in the file's order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<BlockMetadata> getBlocks() {
+        return blocks;
+    }
+
+    public long getRows() {
+        long rows = 0;
+        for (BlockMetadata block : blocks) {
+            rows += block.getRows();
+        }
+        return rows;
+    }
+
+    /**
+     * @return the chunk of the column in the block, for its statistics
+     */
+    public BlockMetadata.ColumnChunk getChunk(int block, ExportColumn column) {
+        return blocks.get(block).getChunks().get(indexOf(column));
+    }
+
+    /**
+     * @return the column's value of every row of the block, null where the row has none
+     */
+    public Object[] read(int block, ExportColumn column) throws IOException {
+        int index = indexOf(column);
+        BlockMetadata metadata = blocks.get(block);
+        BlockMetadata.ColumnChunk chunk = metadata.getChunks().get(index);
+        byte[] bytes = new byte[chunk.getLength()];
+        synchronized (file) {
+            file.seek(chunk.getOffset());
+            file.readFully(bytes);
+        }
+        return ColumnEncoding.readChunk(new DataInputStream(new ByteArrayInputStream(bytes)), types.get(index),
+                metadata.getRows(), chunk.getNullCount());
+    }
+
+    private int indexOf(ExportColumn column) {
+        int index = columns.indexOf(column.name());
+        Validate.isTrue(index >= 0, "the file has no column " + column);
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
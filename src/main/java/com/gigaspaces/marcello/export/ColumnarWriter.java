@@ -0,0 +1,156 @@
+package com.gigaspaces.marcello.export;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import org.apache.commons.lang.Validate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes {@link ChargeRow}s, flattened with their document's fields into the {@link ExportColumn}s, to a local
+ * columnar file.
+ * <p>
+ * Rows are buffered into blocks of <code>blockRows</code>; each block is written as one chunk per column,
+ * encoded as described in {@link ColumnEncoding}, so a reader decodes only the columns it needs. The footer
+ * lists the columns and, for every block, where each chunk is with its null count and min/max values:
+ * </p>
+ * <pre>
+ * MAGIC block* footer footerLength:int MAGIC
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class ColumnarWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_ROWS = 64 * 1024;
+
+    static final byte[] MAGIC = "CHGCOL01".getBytes(StandardCharsets.US_ASCII);
+    private static final ExportColumn[] COLUMNS = ExportColumn.values();
+
+    private final DataOutputStream out;
+    private final int blockRows;
+    private final Object[][] values;
+    private final List<BlockMetadata> blocks = new ArrayList<>();
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private int bufferedRows;
+    private long position;
+    private long rows;
+    private boolean closed;
+
+    public ColumnarWriter(File file, int blockRows) throws IOException {
+        Validate.notNull(file, "file can't be null");
+        Validate.isTrue(blockRows > 0, "blockRows must be positive");
+
+        this.blockRows = blockRows;
+        this.values = new Object[COLUMNS.length][blockRows];
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.write(MAGIC);
+        position = MAGIC.length;
+    }
+
+    /**
+     * Writes every charge row of the document.
+     */
+    public void write(ChargeData document) throws IOException {
+        List<ChargeRow> chargeRows = document.getChargeRows();
+        if (chargeRows != null) {
+            for (ChargeRow row : chargeRows) {
+                write(document, row);
+            }
+        }
+    }
+
+    public void write(ChargeData document, ChargeRow row) throws IOException {
+        Validate.isTrue(!closed, "writer is closed");
+
+        for (int c = 0; c < COLUMNS.length; c++) {
+            values[c][bufferedRows] = COLUMNS[c].valueOf(document, row);
+        }
+        rows++;
+        if (++bufferedRows == blockRows) {
+            flushBlock();
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the bytes written so far, the whole file once closed
+     */
+    public long getBytes() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (bufferedRows > 0) {
+                flushBlock();
+            }
+            writeFooter();
+            closed = true;
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        List<BlockMetadata.ColumnChunk> chunks = new ArrayList<>(COLUMNS.length);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            chunk.reset();
+            Object[] stats = ColumnEncoding.writeChunk(new DataOutputStream(chunk), COLUMNS[c].getType(), values[c], bufferedRows);
+            chunks.add(new BlockMetadata.ColumnChunk(position, chunk.size(),
+                    ColumnEncoding.nullCount(values[c], bufferedRows), stats[0], stats[1]));
+            chunk.writeTo(out);
+            position += chunk.size();
+            Arrays.fill(values[c], 0, bufferedRows, null);
+        }
+        blocks.add(new BlockMetadata(bufferedRows, chunks));
+        bufferedRows = 0;
+    }
+
+    private void writeFooter() throws IOException {
+        chunk.reset();
+        DataOutputStream footer = new DataOutputStream(chunk);
+        ColumnEncoding.writeVarLong(footer, COLUMNS.length);
+        for (ExportColumn column : COLUMNS) {
+            footer.writeUTF(column.name());
+            footer.writeByte(column.getType().ordinal());
+        }
+        ColumnEncoding.writeVarLong(footer, blocks.size());
+        for (BlockMetadata block : blocks) {
+            ColumnEncoding.writeVarLong(footer, block.getRows());
+            for (int c = 0; c < COLUMNS.length; c++) {
+                BlockMetadata.ColumnChunk columnChunk = block.getChunks().get(c);
+                footer.writeLong(columnChunk.getOffset());
+                ColumnEncoding.writeVarLong(footer, columnChunk.getLength());
+                ColumnEncoding.writeVarLong(footer, columnChunk.getNullCount());
+                footer.writeBoolean(columnChunk.getMin() != null);
+                if (columnChunk.getMin() != null) {
+                    ColumnEncoding.writeValue(footer, COLUMNS[c].getType(), columnChunk.getMin());
+                    ColumnEncoding.writeValue(footer, COLUMNS[c].getType(), columnChunk.getMax());
+                }
+            }
+        }
+        footer.flush();
+        chunk.writeTo(out);
+        out.writeInt(chunk.size());
+        out.write(MAGIC);
+        position += chunk.size() + 4 + MAGIC.length;
+    }
+}
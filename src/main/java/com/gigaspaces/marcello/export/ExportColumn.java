@@ -0,0 +1,188 @@
+package com.gigaspaces.marcello.export;
+
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.DiscountWithDouble;
+import com.gigaspaces.marcello.model.QuantityWithString;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.marcello.model.TimePeriod;
+
+/**
+ * The columns of an export: one flattened {@link ChargeRow} per record, next to the fields of its document.
+ * The column order is the order of the column chunks in every block.
+ *
+ * @since 10.2
+ */
+public enum ExportColumn {
+
+    DOCUMENT_ID(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return document.getId();
+        }
+    },
+    CUSTOMER_ACCOUNT_ID(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return document.getCustomerAccountId();
+        }
+    },
+    BILL_SEQUENCE(Type.INT) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return document.getBillSequence();
+        }
+    },
+    TELEPHONE_NUMBER(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            if (!(document instanceof SubscriberChargeData)) {
+                return null;
+            }
+            TelephoneNumber number = ((SubscriberChargeData) document).getTelephoneNumber();
+            return number == null ? null : number.getCountryCode() + number.getLocalNumber();
+        }
+    },
+    PERIOD_START(Type.LONG) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return start(document.getPeriod());
+        }
+    },
+    PERIOD_END(Type.LONG) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return end(document.getPeriod());
+        }
+    },
+    GROUP_NAME(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return row.getGroupName();
+        }
+    },
+    NAME(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return row.getName();
+        }
+    },
+    FEATURE_CATEGORY(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return row.getFeatureCategory();
+        }
+    },
+    ROW_PERIOD_START(Type.LONG) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return start(row.getPeriod());
+        }
+    },
+    ROW_PERIOD_END(Type.LONG) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            return end(row.getPeriod());
+        }
+    },
+    AMOUNT(Type.DOUBLE) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            AmountWithDoubles amount = row.getTotalAmount();
+            return amount == null ? null : amount.getAmount();
+        }
+    },
+    AMOUNT_EXCLUDING_VAT(Type.DOUBLE) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            AmountWithDoubles amount = row.getTotalAmount();
+            return amount == null ? null : amount.getAmountExcludingVat();
+        }
+    },
+    VAT(Type.DOUBLE) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            AmountWithDoubles amount = row.getTotalAmount();
+            return amount == null ? null : amount.getVat();
+        }
+    },
+    CURRENCY(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            AmountWithDoubles amount = row.getTotalAmount();
+            return amount == null ? null : amount.getCurrency();
+        }
+    },
+    QUANTITY(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            QuantityWithString quantity = row.getQuantity();
+            return quantity == null ? null : quantity.getQuantity();
+        }
+    },
+    QUANTITY_UNIT(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            QuantityWithString quantity = row.getQuantity();
+            return quantity == null ? null : quantity.getUnit();
+        }
+    },
+    DURATION(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            QuantityWithString duration = row.getDuration();
+            return duration == null ? null : duration.getQuantity();
+        }
+    },
+    DURATION_UNIT(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            QuantityWithString duration = row.getDuration();
+            return duration == null ? null : duration.getUnit();
+        }
+    },
+    DISCOUNT_PERCENTAGE(Type.STRING) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            DiscountWithDouble discount = row.getDiscount();
+            return discount == null ? null : discount.getPercentage();
+        }
+    },
+    DISCOUNT_AMOUNT(Type.DOUBLE) {
+        @Override
+        Object valueOf(ChargeData document, ChargeRow row) {
+            DiscountWithDouble discount = row.getDiscount();
+            return discount == null || discount.getDiscountAmount() == null ? null : discount.getDiscountAmount().getAmount();
+        }
+    };
+
+    /**
+     * How a column's values are stored: strings dictionary-encoded, integers as zigzag varint deltas and
+     * doubles as raw IEEE 754 bits.
+     */
+    public enum Type {
+        STRING, INT, LONG, DOUBLE
+    }
+
+    private final Type type;
+
+    ExportColumn(Type type) {
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    abstract Object valueOf(ChargeData document, ChargeRow row);
+
+    private static Long start(TimePeriod period) {
+        return period == null || period.getStart() == null ? null : period.getStart().getTime();
+    }
+
+    private static Long end(TimePeriod period) {
+        return period == null || period.getEnd() == null ? null : period.getEnd().getTime();
+    }
+}
@@ -0,0 +1,75 @@
+package com.gigaspaces.marcello.export;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an export, per partition or summed over all partitions.
+ *
+ * @since 10.2
+ */
+public class ExportResult implements Serializable {
+    private static final long serialVersionUID = -3342215796316254961L;
+
+    private final List<String> files = new ArrayList<>();
+    private long documents;
+    private long rows;
+    private long bytes;
+    private long elapsedMillis;
+
+    /**
+     * @return the file each partition wrote, as <code>host:path</code> since it is local to the partition's machine
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the longest time any partition took
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void partitionDone(String file, long documents, long rows, long bytes, long elapsedMillis) {
+        this.files.add(file);
+        this.documents = documents;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void merge(ExportResult other) {
+        files.addAll(other.files);
+        documents += other.documents;
+        rows += other.rows;
+        bytes += other.bytes;
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("files", files.size())
+                .add("documents", documents)
+                .add("rows", rows)
+                .add("bytes", bytes)
+                .add("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.gigaspaces.marcello.feeder;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes batches to the space without waiting for the previous batch to complete.
+ * <p>
+ * At most <code>maxInFlight</code> batches are outstanding at any time; {@link #submit(Object[])}
+ * blocks once that limit is reached, so a fast producer is throttled by the space instead of
+ * queueing unbounded batches in memory.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class AsyncBatchWriter<T> implements Closeable {
+
+    private final GigaSpace gigaSpace;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ListeningExecutorService executor;
+
+    private final AtomicInteger batchesSubmitted = new AtomicInteger();
+    private final AtomicLong entriesWritten = new AtomicLong();
+    private final Queue<WriteReport.BatchFailure> failures = new ConcurrentLinkedQueue<>();
+
+    public AsyncBatchWriter(GigaSpace gigaSpace, int maxInFlight) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(maxInFlight,
+                new ThreadFactoryBuilder().setNameFormat("async-writer-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * Hands a batch over for writing, blocking while <code>maxInFlight</code> batches are outstanding.
+     *
+     * @param batch the entries to write with a single <code>writeMultiple</code>
+     * @return a future holding the number of entries written, failed with the write error otherwise
+     * @throws InterruptedException when interrupted while waiting for an in-flight slot
+     */
+    public ListenableFuture<Integer> submit(final T[] batch) throws InterruptedException {
+        Validate.notNull(batch, "batch can't be null");
+
+        inFlight.acquire();
+        final int batchIndex = batchesSubmitted.getAndIncrement();
+        boolean submitted = false;
+        try {
+            ListenableFuture<Integer> future = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    try {
+                        gigaSpace.writeMultiple(batch);
+                        entriesWritten.addAndGet(batch.length);
+                        return batch.length;
+                    } catch (Exception | Error e) {
+                        failures.add(new WriteReport.BatchFailure(batchIndex, batch.length, e));
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            });
+            submitted = true;
+            return future;
+        } catch (RuntimeException | Error e) {
+            failures.add(new WriteReport.BatchFailure(batchIndex, batch.length, e));
+            throw e;
+        } finally {
+            // once submitted, the task releases the slot itself
+            if (!submitted) {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Waits for every submitted batch to complete.
+     *
+     * @return the report of everything submitted so far
+     */
+    public WriteReport awaitCompletion() throws InterruptedException {
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+        return report();
+    }
+
+    /**
+     * @return the report of the batches completed so far, without waiting for outstanding ones
+     */
+    public WriteReport report() {
+        List<WriteReport.BatchFailure> snapshot = new ArrayList<>(failures);
+        return new WriteReport(batchesSubmitted.get(), entriesWritten.get(), snapshot);
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Waits for outstanding batches and releases the writer threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -20,47 +20,69 @@ public class Feeder {
 
     static Random randomGenerator = new Random();
 
+    private final Random random;
+
+    public Feeder() {
+        this.random = randomGenerator;
+    }
+
+    /**
+     * A feeder generating the same documents on every run.
+     */
+    public Feeder(long seed) {
+        this.random = new Random(seed);
+    }
+
     void feedData(GigaSpace gigaSpace, final int amount, final int batchSize){
+        for(int j = 0;j < amount/batchSize; j++) {
+            gigaSpace.writeMultiple(generateBatch(j * batchSize, batchSize));
+        }
+    }
+
+    void feedDataAsync(AsyncBatchWriter<SubscriberChargeData> writer, final int amount, final int batchSize) throws InterruptedException {
+        for(int j = 0;j < amount/batchSize; j++) {
+            writer.submit(generateBatch(j * batchSize, batchSize));
+        }
+    }
+
+    public SubscriberChargeData[] generateBatch(final int firstId, final int batchSize){
         TelephoneNumber telephoneNumber;
         SubscriberChargeData subscriberChargeData;
-        List<SubscriberChargeData> objects;
-        for(int j = 0, i = 0;j < amount/batchSize; j++) {
-            objects = new ArrayList<>();
-            for (; i < j*batchSize+batchSize; i++) {
-                int rndTelephoneNumber = randomGenerator.nextInt(100);
-                int billSequence = randomGenerator.nextInt(1000000);
-                telephoneNumber = new TelephoneNumber(String.valueOf(rndTelephoneNumber), String.valueOf(rndTelephoneNumber));
-                subscriberChargeData = new SubscriberChargeData(String.valueOf(i), billSequence, telephoneNumber, generateTimePeriod());
-                List<ChargeRow> rows = new ArrayList<ChargeRow>();
-                for (int k = 0; k < 13; k++) {
-                    rows.add(generateChargeRow());
-                }
-                subscriberChargeData.setChargeRows(rows);
-
-                List<ChargeRow> rowTotals = new ArrayList<ChargeRow>();
-                rowTotals.add(generateChargeRow());
-                subscriberChargeData.setChargeGroupTotals(rowTotals);
-                objects.add(subscriberChargeData);
+        SubscriberChargeData[] objects = new SubscriberChargeData[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            int rndTelephoneNumber = random.nextInt(100);
+            int billSequence = random.nextInt(1000000);
+            telephoneNumber = new TelephoneNumber(String.valueOf(rndTelephoneNumber), String.valueOf(rndTelephoneNumber));
+            subscriberChargeData = new SubscriberChargeData(String.valueOf(firstId + i), billSequence, telephoneNumber, generateTimePeriod());
+            List<ChargeRow> rows = new ArrayList<ChargeRow>();
+            for (int k = 0; k < 13; k++) {
+                rows.add(generateChargeRow());
             }
-            gigaSpace.writeMultiple(((List<SubscriberChargeData>)objects).toArray(new SubscriberChargeData[objects.size()]));
+            subscriberChargeData.setChargeRows(rows);
+
+            List<ChargeRow> rowTotals = new ArrayList<ChargeRow>();
+            rowTotals.add(generateChargeRow());
+            subscriberChargeData.setChargeGroupTotals(rowTotals);
+            objects[i] = subscriberChargeData;
         }
+        return objects;
     }
 
-    TimePeriod generateTimePeriod(){
+    public TimePeriod generateTimePeriod(){
         long beginTime = Timestamp.valueOf("2000-01-01 00:00:00").getTime();
         long endTime = Timestamp.valueOf("2015-12-31 00:58:00").getTime();
         long diff = endTime - beginTime + 1;
 
-        Date beginDate = new Date(beginTime + (long) (Math.random() * diff));
-        Date endDate = new Date(beginDate.getTime() + (long) (Math.random() * diff));
+        Date beginDate = new Date(beginTime + (long) (random.nextDouble() * diff));
+        Date endDate = new Date(beginDate.getTime() + (long) (random.nextDouble() * diff));
         return new TimePeriod(beginDate, endDate);
     }
 
-    ChargeRow generateChargeRow(){
-        String groupName = String.valueOf(randomGenerator.nextInt(10000));
-        String name = String.valueOf(randomGenerator.nextInt(10000000));
-        AmountWithDoubles amountWithDoubles = new AmountWithDoubles(randomGenerator.nextDouble()
-                , String.valueOf(randomGenerator.nextInt(100)));
+    public ChargeRow generateChargeRow(){
+        String groupName = String.valueOf(random.nextInt(10000));
+        String name = String.valueOf(random.nextInt(10000000));
+        AmountWithDoubles amountWithDoubles = new AmountWithDoubles(random.nextDouble()
+                , String.valueOf(random.nextInt(100)));
         return new ChargeRow(groupName, name, amountWithDoubles);
     }
 
@@ -68,12 +90,16 @@ public class Feeder {
         return null;
     };
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 //        GigaSpace gigaSpace = new GigaSpaceConfigurer(new EmbeddedSpaceConfigurer("mySpace")).gigaSpace();
         GigaSpace gigaSpace = new GigaSpaceConfigurer(new SpaceProxyConfigurer("mySpace").lookupGroups("")).gigaSpace();
 
         Feeder feeder = new Feeder();
-        feeder.feedData(gigaSpace, 1000, 100);
+        AsyncBatchWriter<SubscriberChargeData> writer = new AsyncBatchWriter<>(gigaSpace, 4);
+        feeder.feedDataAsync(writer, 1000, 100);
+        WriteReport report = writer.awaitCompletion();
+        writer.close();
+        System.out.println(report);
 
 
 
@@ -0,0 +1,211 @@
+package com.gigaspaces.marcello.feeder;
+
+import com.gigaspaces.marcello.model.AccountChargeData;
+import com.gigaspaces.marcello.model.IndexProfile;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.SpaceProxyConfigurer;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Drives many concurrent simulated bill-view clients against the space.
+ * <p>
+ * Each client loops until the run ends, choosing a write with probability <code>writeRatio</code>
+ * and otherwise one of the read operations (point read by id, account lookup or period range
+ * query) with equal probability. Latencies are recorded per operation type.
+ * </p>
+ * <p>
+ * Every client gets its own thread with a small stack, so a few thousand clients fit in one JVM, and its own
+ * {@link Feeder}, so the clients don't contend on a shared random generator. The feeder given to the driver only
+ * generates the preloaded documents. A write is timed from after its document is generated.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class LoadDriver {
+
+    public enum Operation {
+        WRITE, READ_BY_ID, ACCOUNT_LOOKUP, PERIOD_RANGE
+    }
+
+    private static final long CLIENT_STACK_SIZE = 256 * 1024;
+    private static final int KNOWN_ENTRIES = 1 << 16;
+    private static final long RANGE_START = Timestamp.valueOf("2000-01-01 00:00:00").getTime();
+    private static final long RANGE_END = Timestamp.valueOf("2015-12-31 00:00:00").getTime();
+    private static final long RANGE_WINDOW = TimeUnit.DAYS.toMillis(30);
+
+    private final GigaSpace gigaSpace;
+    private final Feeder feeder;
+    private final int clients;
+    private final double writeRatio;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicReferenceArray<SubscriberChargeData> known = new AtomicReferenceArray<>(KNOWN_ENTRIES);
+    private final AtomicInteger knownCount = new AtomicInteger();
+
+    public LoadDriver(GigaSpace gigaSpace, Feeder feeder, int clients, double writeRatio) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.isTrue(clients > 0, "clients must be positive");
+        Validate.isTrue(writeRatio >= 0 && writeRatio <= 1, "writeRatio must be between 0 and 1");
+
+        this.gigaSpace = gigaSpace;
+        this.feeder = feeder;
+        this.clients = clients;
+        this.writeRatio = writeRatio;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Writes the initial documents the read operations pick their keys from.
+     */
+    public void preload(int amount, int batchSize) {
+        for (int written = 0; written < amount; written += batchSize) {
+            SubscriberChargeData[] batch = feeder.generateBatch(nextId.getAndAdd(batchSize), batchSize);
+            gigaSpace.writeMultiple(batch);
+            for (SubscriberChargeData data : batch) {
+                remember(data);
+            }
+        }
+    }
+
+    /**
+     * Runs all clients for the given duration and blocks until they have stopped.
+     */
+    public void run(long duration, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(duration);
+        final CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread client = new Thread(null, new Runnable() {
+                @Override
+                public void run() {
+                    Feeder clientFeeder = new Feeder(ThreadLocalRandom.current().nextLong());
+                    try {
+                        while (System.nanoTime() < deadline) {
+                            execute(nextOperation(), clientFeeder);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "load-client-" + i, CLIENT_STACK_SIZE);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public void printReport(long duration, TimeUnit unit, Appendable out) throws java.io.IOException {
+        double seconds = unit.toMillis(duration) / 1000.0;
+        out.append(String.format("%-15s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "ops/s", "p50(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            out.append(String.format("%-15s %10d %10.1f %10d %10d %10d %10d%n",
+                    operation,
+                    histogram.getCount(),
+                    histogram.getCount() / seconds,
+                    histogram.getPercentile(50, TimeUnit.MICROSECONDS),
+                    histogram.getPercentile(99, TimeUnit.MICROSECONDS),
+                    histogram.getPercentile(99.9, TimeUnit.MICROSECONDS),
+                    histogram.getMax(TimeUnit.MICROSECONDS)));
+        }
+        out.append(String.format("errors: %d%n", errors.get()));
+    }
+
+    Operation nextOperation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (knownCount.get() == 0 || random.nextDouble() < writeRatio) {
+            return Operation.WRITE;
+        }
+        return Operation.values()[1 + random.nextInt(Operation.values().length - 1)];
+    }
+
+    private void execute(Operation operation, Feeder clientFeeder) {
+        SubscriberChargeData data = operation == Operation.WRITE
+                ? clientFeeder.generateBatch(nextId.getAndIncrement(), 1)[0] : null;
+        long start = System.nanoTime();
+        try {
+            switch (operation) {
+                case WRITE:
+                    gigaSpace.write(data);
+                    remember(data);
+                    break;
+                case READ_BY_ID:
+                    SubscriberChargeData target = randomKnown();
+                    gigaSpace.readById(SubscriberChargeData.class, target.getId(), target.getCustomerAccountId());
+                    break;
+                case ACCOUNT_LOOKUP:
+                    gigaSpace.readMultiple(new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class,
+                            "customerAccountId = ?", randomKnown().getCustomerAccountId()));
+                    break;
+                case PERIOD_RANGE:
+                    long from = RANGE_START + (long) (ThreadLocalRandom.current().nextDouble() * (RANGE_END - RANGE_START));
+                    gigaSpace.readMultiple(new SQLQuery<SubscriberChargeData>(SubscriberChargeData.class,
+                            "period.start >= ? AND period.start < ?", new Date(from), new Date(from + RANGE_WINDOW)), 100);
+                    break;
+            }
+            latencies.get(operation).record(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private void remember(SubscriberChargeData data) {
+        SubscriberChargeData key = new SubscriberChargeData();
+        key.setId(data.getId());
+        key.setCustomerAccountId(data.getCustomerAccountId());
+        int slot = knownCount.getAndIncrement();
+        known.set(slot & (KNOWN_ENTRIES - 1), key);
+    }
+
+    private SubscriberChargeData randomKnown() {
+        int bound = Math.min(knownCount.get(), KNOWN_ENTRIES);
+        SubscriberChargeData key;
+        do {
+            // a slot may be claimed but not yet published by a concurrent writer
+            key = known.get(ThreadLocalRandom.current().nextInt(bound));
+        } while (key == null);
+        return key;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String spaceName = args.length > 0 ? args[0] : "mySpace";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        double writeRatio = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        IndexProfile indexProfile = IndexProfile.parse(args.length > 4 ? args[4] : "full", null);
+
+        GigaSpace gigaSpace = new GigaSpaceConfigurer(new SpaceProxyConfigurer(spaceName).lookupGroups("")).gigaSpace();
+        indexProfile.register(gigaSpace, SubscriberChargeData.class, AccountChargeData.class);
+
+        LoadDriver driver = new LoadDriver(gigaSpace, new Feeder(), clients, writeRatio);
+        driver.preload(10000, 100);
+        driver.run(seconds, TimeUnit.SECONDS);
+        driver.printReport(seconds, TimeUnit.SECONDS, System.out);
+    }
+}
@@ -0,0 +1,85 @@
+package com.gigaspaces.marcello.feeder;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Aggregated outcome of the batches handed to an {@link AsyncBatchWriter}.
+ *
+ * @since 10.2
+ */
+public class WriteReport {
+
+    private final int batchesSubmitted;
+    private final long entriesWritten;
+    private final List<BatchFailure> failures;
+
+    WriteReport(int batchesSubmitted, long entriesWritten, List<BatchFailure> failures) {
+        this.batchesSubmitted = batchesSubmitted;
+        this.entriesWritten = entriesWritten;
+        this.failures = ImmutableList.copyOf(failures);
+    }
+
+    public int getBatchesSubmitted() {
+        return batchesSubmitted;
+    }
+
+    public long getEntriesWritten() {
+        return entriesWritten;
+    }
+
+    public List<BatchFailure> getFailures() {
+        return failures;
+    }
+
+    public boolean hasErrors() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("batchesSubmitted", batchesSubmitted)
+                .add("entriesWritten", entriesWritten)
+                .add("failures", failures.size())
+                .toString();
+    }
+
+    /**
+     * A batch that could not be written, identified by its submission order.
+     */
+    public static class BatchFailure {
+        private final int batchIndex;
+        private final int batchSize;
+        private final Throwable cause;
+
+        BatchFailure(int batchIndex, int batchSize, Throwable cause) {
+            this.batchIndex = batchIndex;
+            this.batchSize = batchSize;
+            this.cause = cause;
+        }
+
+        public int getBatchIndex() {
+            return batchIndex;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("batchIndex", batchIndex)
+                    .add("batchSize", batchSize)
+                    .add("cause", cause)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.gigaspaces.marcello.footprint;
+
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Projects the memory of a cluster holding N documents from their measured {@link TypeFootprint}, both with every
+ * entry on the heap and with a blobstore, where the heap keeps only the entry holders, the indexes with their keys
+ * and the cached share of the entries, and the disk keeps the serialized entries.
+ * <p>
+ * The per-entry costs of the space itself are estimates for XAP 10.2 and default to the values below; calibrate
+ * them against a heap dump of a loaded partition before relying on the absolute numbers.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class CapacityProjection {
+
+    /**
+     * Entry holder, UID and metadata of an entry kept on the heap.
+     */
+    public static final int DEFAULT_ENTRY_OVERHEAD_BYTES = 250;
+
+    /**
+     * Entry holder and disk pointer of an entry stored in the blobstore.
+     */
+    public static final int DEFAULT_BLOBSTORE_ENTRY_BYTES = 120;
+
+    /**
+     * Hash bucket node of an entry in a basic index.
+     */
+    public static final int DEFAULT_BASIC_INDEX_ENTRY_BYTES = 48;
+
+    /**
+     * Hash bucket node plus ordered (skip list) node of an entry in an extended index.
+     */
+    public static final int DEFAULT_EXTENDED_INDEX_ENTRY_BYTES = 112;
+
+    private final TypeFootprint documents;
+    private final List<Index> indexes;
+    private int entryOverheadBytes = DEFAULT_ENTRY_OVERHEAD_BYTES;
+    private int blobStoreEntryBytes = DEFAULT_BLOBSTORE_ENTRY_BYTES;
+    private int basicIndexEntryBytes = DEFAULT_BASIC_INDEX_ENTRY_BYTES;
+    private int extendedIndexEntryBytes = DEFAULT_EXTENDED_INDEX_ENTRY_BYTES;
+    private int blobStoreCachePercentage = 20;
+
+    public CapacityProjection(TypeFootprint documents, List<Index> indexes) {
+        Validate.notNull(documents, "documents can't be null");
+        Validate.notNull(indexes, "indexes can't be null");
+
+        this.documents = documents;
+        this.indexes = Collections.unmodifiableList(new ArrayList<>(indexes));
+    }
+
+    public CapacityProjection entryOverheadBytes(int entryOverheadBytes) {
+        this.entryOverheadBytes = entryOverheadBytes;
+        return this;
+    }
+
+    public CapacityProjection blobStoreEntryBytes(int blobStoreEntryBytes) {
+        this.blobStoreEntryBytes = blobStoreEntryBytes;
+        return this;
+    }
+
+    public CapacityProjection basicIndexEntryBytes(int basicIndexEntryBytes) {
+        this.basicIndexEntryBytes = basicIndexEntryBytes;
+        return this;
+    }
+
+    public CapacityProjection extendedIndexEntryBytes(int extendedIndexEntryBytes) {
+        this.extendedIndexEntryBytes = extendedIndexEntryBytes;
+        return this;
+    }
+
+    /**
+     * The share of the entries the blobstore keeps cached on the heap, as configured on its data cache policy.
+     */
+    public CapacityProjection blobStoreCachePercentage(int blobStoreCachePercentage) {
+        Validate.isTrue(blobStoreCachePercentage >= 0 && blobStoreCachePercentage <= 100, "blobStoreCachePercentage must be between 0 and 100");
+
+        this.blobStoreCachePercentage = blobStoreCachePercentage;
+        return this;
+    }
+
+    public List<Index> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @return the index nodes of one entry, excluding the keys, which are part of the entry while it's on the heap
+     */
+    public double indexBytesPerDocument() {
+        double bytes = 0;
+        for (Index index : indexes) {
+            bytes += index.type == SpaceIndexType.EXTENDED ? extendedIndexEntryBytes : basicIndexEntryBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the part of {@link #indexBytesPerDocument()} spent on extended indexes, such as
+     * <code>period.start</code> and <code>period.end</code>
+     */
+    public double extendedIndexBytesPerDocument() {
+        double bytes = 0;
+        for (Index index : indexes) {
+            if (index.type == SpaceIndexType.EXTENDED) {
+                bytes += extendedIndexEntryBytes;
+            }
+        }
+        return bytes;
+    }
+
+    public double heapBytesPerDocument() {
+        return documents.getMeanRetainedBytes() + entryOverheadBytes + indexBytesPerDocument();
+    }
+
+    public double blobStoreHeapBytesPerDocument() {
+        double keys = 0;
+        for (Index index : indexes) {
+            keys += index.meanKeyBytes;
+        }
+        return blobStoreEntryBytes + indexBytesPerDocument() + keys
+                + documents.getMeanRetainedBytes() * blobStoreCachePercentage / 100;
+    }
+
+    public double blobStoreDiskBytesPerDocument() {
+        return documents.getMeanSerializedBytes();
+    }
+
+    /**
+     * @param backups backups per partition, each holding a full copy of its primary
+     */
+    public Estimate project(long documentCount, int partitions, int backups) {
+        Validate.isTrue(documentCount >= 0, "documentCount can't be negative");
+        Validate.isTrue(partitions > 0, "partitions must be positive");
+        Validate.isTrue(backups >= 0, "backups can't be negative");
+
+        long perPartition = (documentCount + partitions - 1) / partitions;
+        return new Estimate(documentCount, partitions, backups, perPartition,
+                (long) (perPartition * heapBytesPerDocument()),
+                (long) (perPartition * extendedIndexBytesPerDocument()),
+                (long) (perPartition * blobStoreHeapBytesPerDocument()),
+                (long) (perPartition * blobStoreDiskBytesPerDocument()));
+    }
+
+    /**
+     * An indexed property path of the document and the mean size of its values.
+     */
+    public static class Index {
+        private final String path;
+        private final SpaceIndexType type;
+        private final double meanKeyBytes;
+
+        public Index(String path, SpaceIndexType type, double meanKeyBytes) {
+            Validate.notEmpty(path, "path can't be empty");
+            Validate.notNull(type, "type can't be null");
+
+            this.path = path;
+            this.type = type;
+            this.meanKeyBytes = meanKeyBytes;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public SpaceIndexType getType() {
+            return type;
+        }
+
+        public double getMeanKeyBytes() {
+            return meanKeyBytes;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("path", path)
+                    .add("type", type)
+                    .add("meanKeyBytes", Math.round(meanKeyBytes))
+                    .toString();
+        }
+    }
+
+    /**
+     * Memory of one partition instance, and of the whole cluster counting every primary and backup.
+     */
+    public static class Estimate {
+        private final long documents;
+        private final int partitions;
+        private final int backups;
+        private final long documentsPerPartition;
+        private final long heapBytesPerPartition;
+        private final long extendedIndexBytesPerPartition;
+        private final long blobStoreHeapBytesPerPartition;
+        private final long blobStoreDiskBytesPerPartition;
+
+        Estimate(long documents, int partitions, int backups, long documentsPerPartition, long heapBytesPerPartition,
+                 long extendedIndexBytesPerPartition, long blobStoreHeapBytesPerPartition, long blobStoreDiskBytesPerPartition) {
+            this.documents = documents;
+            this.partitions = partitions;
+            this.backups = backups;
+            this.documentsPerPartition = documentsPerPartition;
+            this.heapBytesPerPartition = heapBytesPerPartition;
+            this.extendedIndexBytesPerPartition = extendedIndexBytesPerPartition;
+            this.blobStoreHeapBytesPerPartition = blobStoreHeapBytesPerPartition;
+            this.blobStoreDiskBytesPerPartition = blobStoreDiskBytesPerPartition;
+        }
+
+        public long getDocumentsPerPartition() {
+            return documentsPerPartition;
+        }
+
+        public long getHeapBytesPerPartition() {
+            return heapBytesPerPartition;
+        }
+
+        public long getExtendedIndexBytesPerPartition() {
+            return extendedIndexBytesPerPartition;
+        }
+
+        public long getBlobStoreHeapBytesPerPartition() {
+            return blobStoreHeapBytesPerPartition;
+        }
+
+        public long getBlobStoreDiskBytesPerPartition() {
+            return blobStoreDiskBytesPerPartition;
+        }
+
+        public long getClusterHeapBytes() {
+            return heapBytesPerPartition * instances();
+        }
+
+        public long getClusterBlobStoreHeapBytes() {
+            return blobStoreHeapBytesPerPartition * instances();
+        }
+
+        public long getClusterBlobStoreDiskBytes() {
+            return blobStoreDiskBytesPerPartition * instances();
+        }
+
+        private long instances() {
+            return (long) partitions * (1 + backups);
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("documents", documents)
+                    .add("partitions", partitions)
+                    .add("backups", backups)
+                    .add("documentsPerPartition", documentsPerPartition)
+                    .add("heapMBPerPartition", megabytes(heapBytesPerPartition))
+                    .add("extendedIndexMBPerPartition", megabytes(extendedIndexBytesPerPartition))
+                    .add("blobStoreHeapMBPerPartition", megabytes(blobStoreHeapBytesPerPartition))
+                    .add("blobStoreDiskMBPerPartition", megabytes(blobStoreDiskBytesPerPartition))
+                    .add("clusterHeapMB", megabytes(getClusterHeapBytes()))
+                    .add("clusterBlobStoreHeapMB", megabytes(getClusterBlobStoreHeapBytes()))
+                    .add("clusterBlobStoreDiskMB", megabytes(getClusterBlobStoreDiskBytes()))
+                    .toString();
+        }
+
+        private static long megabytes(long bytes) {
+            return (bytes + (1 << 20) - 1) >> 20;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.gigaspaces.marcello.footprint;
+
+import com.gigaspaces.marcello.feeder.Feeder;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.IndexProfile;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import org.apache.commons.lang.Validate;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the retained heap and serialized size of sampled documents and of each of their nested types, and the
+ * size of the values of every path an {@link IndexProfile} indexes, as input for a {@link CapacityProjection}.
+ * <p>
+ * Run <code>main</code> with
+ * <code>[samples] [minRows] [maxRows] [documents] [partitions] [backups] [blobStoreCachePercentage] [indexProfile]</code>
+ * to size a cluster for documents of uniformly <code>minRows</code> to <code>maxRows</code> charge rows.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class FootprintAnalyzer {
+
+    private final ObjectSizeEstimator estimator;
+
+    public FootprintAnalyzer(ObjectSizeEstimator estimator) {
+        Validate.notNull(estimator, "estimator can't be null");
+
+        this.estimator = estimator;
+    }
+
+    /**
+     * @return the footprint of the documents, then of their <code>ChargeRow</code>, <code>AmountWithDoubles</code>,
+     * <code>TimePeriod</code> and <code>TelephoneNumber</code> instances, by type name
+     */
+    public Map<String, TypeFootprint> measure(List<? extends ChargeData> documents) {
+        Validate.notEmpty(documents, "documents can't be empty");
+
+        Map<String, TypeFootprint> footprints = new LinkedHashMap<>();
+        for (String type : new String[]{documents.get(0).getClass().getSimpleName(), "ChargeRow", "AmountWithDoubles", "TimePeriod", "TelephoneNumber"}) {
+            footprints.put(type, new TypeFootprint(type));
+        }
+        for (ChargeData document : documents) {
+            add(footprints, document.getClass().getSimpleName(), document);
+            add(footprints, "TimePeriod", document.getPeriod());
+            if (document instanceof SubscriberChargeData) {
+                add(footprints, "TelephoneNumber", ((SubscriberChargeData) document).getTelephoneNumber());
+            }
+            addRows(footprints, document.getChargeRows());
+            addRows(footprints, document.getChargeGroupTotals());
+        }
+        return footprints;
+    }
+
+    /**
+     * @return the id and every path the profile indexes on the document class, with the mean retained size of its values
+     */
+    public List<CapacityProjection.Index> indexesOf(List<? extends ChargeData> documents, IndexProfile profile) {
+        Validate.notEmpty(documents, "documents can't be empty");
+        Validate.notNull(profile, "profile can't be null");
+
+        List<CapacityProjection.Index> indexes = new ArrayList<>();
+        indexes.add(index(documents, "id", SpaceIndexType.BASIC));
+        for (Map.Entry<String, SpaceIndexType> index : profile.indexesOf(documents.get(0).getClass()).entrySet()) {
+            indexes.add(index(documents, index.getKey(), index.getValue()));
+        }
+        return indexes;
+    }
+
+    private void addRows(Map<String, TypeFootprint> footprints, List<ChargeRow> rows) {
+        if (rows == null) {
+            return;
+        }
+        for (ChargeRow row : rows) {
+            add(footprints, "ChargeRow", row);
+            add(footprints, "AmountWithDoubles", row.getTotalAmount());
+        }
+    }
+
+    private void add(Map<String, TypeFootprint> footprints, String type, Object instance) {
+        TypeFootprint footprint = footprints.get(type);
+        if (footprint == null) {
+            footprint = new TypeFootprint(type);
+            footprints.put(type, footprint);
+        }
+        if (instance != null) {
+            footprint.add(estimator.retainedSizeOf(instance), ObjectSizeEstimator.serializedSizeOf(instance));
+        }
+    }
+
+    private CapacityProjection.Index index(List<? extends ChargeData> documents, String path, SpaceIndexType type) {
+        long bytes = 0;
+        for (ChargeData document : documents) {
+            bytes += estimator.retainedSizeOf(valueOf(document, path));
+        }
+        return new CapacityProjection.Index(path, type, (double) bytes / documents.size());
+    }
+
+    private static Object valueOf(Object object, String path) {
+        for (String property : path.split("\\.")) {
+            if (object == null) {
+                return null;
+            }
+            object = read(object, property);
+        }
+        return object;
+    }
+
+    private static Object read(Object object, String property) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : object.getClass().getMethods()) {
+            if (method.getParameterTypes().length == 0
+                    && (method.getName().equals("get" + suffix) || method.getName().equals("is" + suffix))) {
+                try {
+                    return method.invoke(object);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("can't read " + property + " of " + object.getClass().getName(), e);
+                }
+            }
+        }
+        throw new IllegalArgumentException(object.getClass().getName() + " has no property " + property);
+    }
+
+    static List<SubscriberChargeData> sample(int samples, int minRows, int maxRows) {
+        Validate.isTrue(minRows >= 0 && maxRows >= minRows, "rows must satisfy 0 <= minRows <= maxRows");
+
+        Feeder feeder = new Feeder();
+        Random random = new Random(42);
+        List<SubscriberChargeData> documents = new ArrayList<>(samples);
+        for (int i = 0; i < samples; i++) {
+            String number = String.valueOf(10000000 + random.nextInt(90000000));
+            TelephoneNumber telephoneNumber = new TelephoneNumber(String.valueOf(1 + random.nextInt(99)), number);
+            SubscriberChargeData document = new SubscriberChargeData(String.valueOf(i), random.nextInt(1000000),
+                    telephoneNumber, feeder.generateTimePeriod());
+            List<ChargeRow> rows = new ArrayList<>();
+            int rowCount = minRows + random.nextInt(maxRows - minRows + 1);
+            for (int k = 0; k < rowCount; k++) {
+                rows.add(feeder.generateChargeRow());
+            }
+            document.setChargeRows(rows);
+            List<ChargeRow> totals = new ArrayList<>();
+            totals.add(feeder.generateChargeRow());
+            document.setChargeGroupTotals(totals);
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int minRows = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+        int maxRows = args.length > 2 ? Integer.parseInt(args[2]) : minRows;
+        long documents = args.length > 3 ? Long.parseLong(args[3]) : 10000000L;
+        int partitions = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        int backups = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        int cachePercentage = args.length > 6 ? Integer.parseInt(args[6]) : 20;
+        IndexProfile profile = IndexProfile.parse(args.length > 7 ? args[7] : "full", null);
+
+        List<SubscriberChargeData> sampled = sample(samples, minRows, maxRows);
+        FootprintAnalyzer analyzer = new FootprintAnalyzer(ObjectSizeEstimator.forCurrentJvm());
+        Map<String, TypeFootprint> footprints = analyzer.measure(sampled);
+        for (TypeFootprint footprint : footprints.values()) {
+            System.out.println(footprint);
+        }
+
+        CapacityProjection projection = new CapacityProjection(footprints.get(SubscriberChargeData.class.getSimpleName()),
+                analyzer.indexesOf(sampled, profile)).blobStoreCachePercentage(cachePercentage);
+        for (CapacityProjection.Index index : projection.getIndexes()) {
+            System.out.println(index);
+        }
+        System.out.println(String.format("per document: heap %.0f B (indexes %.0f B, extended %.0f B), blobstore heap %.0f B, blobstore disk %.0f B",
+                projection.heapBytesPerDocument(), projection.indexBytesPerDocument(), projection.extendedIndexBytesPerDocument(),
+                projection.blobStoreHeapBytesPerDocument(), projection.blobStoreDiskBytesPerDocument()));
+        System.out.println(projection.project(documents, partitions, backups));
+    }
+}
@@ -0,0 +1,265 @@
+package com.gigaspaces.marcello.footprint;
+
+import org.apache.commons.lang.Validate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the heap an object graph retains by walking its fields, assuming a HotSpot layout: an object is its
+ * header plus its fields, padded to the alignment, and an array is its header plus its elements. Objects reached
+ * twice are counted once, and classes and enum constants are never counted since every entry shares them.
+ * <p>
+ * Fields of JDK classes that can't be made accessible (on Java 9 and later) are not walked; strings, collections
+ * and maps are then sized from their length and elements instead, anything else by its own fields only.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class ObjectSizeEstimator {
+
+    /**
+     * 64-bit JVM with compressed references, the default below 32 GB of heap.
+     */
+    public static final ObjectSizeEstimator COMPRESSED_REFERENCES = new ObjectSizeEstimator(12, 16, 4, 8);
+
+    /**
+     * 64-bit JVM without compressed references.
+     */
+    public static final ObjectSizeEstimator UNCOMPRESSED_REFERENCES = new ObjectSizeEstimator(16, 24, 8, 8);
+
+    private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version").startsWith("1.");
+
+    private final int objectHeader;
+    private final int arrayHeader;
+    private final int reference;
+    private final int alignment;
+    private final ConcurrentMap<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+
+    public ObjectSizeEstimator(int objectHeader, int arrayHeader, int reference, int alignment) {
+        Validate.isTrue(objectHeader > 0 && arrayHeader > 0 && reference > 0, "sizes must be positive");
+        Validate.isTrue(alignment > 0 && Integer.bitCount(alignment) == 1, "alignment must be a power of two");
+
+        this.objectHeader = objectHeader;
+        this.arrayHeader = arrayHeader;
+        this.reference = reference;
+        this.alignment = alignment;
+    }
+
+    /**
+     * @return the estimator matching this JVM's <code>UseCompressedOops</code> setting, or compressed references when
+     * it can't be read
+     */
+    public static ObjectSizeEstimator forCurrentJvm() {
+        try {
+            Object option = ManagementFactory.getPlatformMBeanServer().invoke(
+                    new javax.management.ObjectName("com.sun.management:type=HotSpotDiagnostic"),
+                    "getVMOption", new Object[]{"UseCompressedOops"}, new String[]{String.class.getName()});
+            javax.management.openmbean.CompositeData data = (javax.management.openmbean.CompositeData) option;
+            return Boolean.parseBoolean(String.valueOf(data.get("value"))) ? COMPRESSED_REFERENCES : UNCOMPRESSED_REFERENCES;
+        } catch (Exception e) {
+            return COMPRESSED_REFERENCES;
+        }
+    }
+
+    /**
+     * @return the bytes the object and everything it reaches occupy on the heap
+     */
+    public long retainedSizeOf(Object root) {
+        if (root == null) {
+            return 0;
+        }
+        Map<Object, Boolean> visited = new IdentityHashMap<>();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            if (isShared(object) || visited.put(object, Boolean.TRUE) != null) {
+                continue;
+            }
+            size += sizeAndChildren(object, pending);
+        }
+        return size;
+    }
+
+    /**
+     * @return the bytes of the object itself, without anything it references
+     */
+    public long shallowSizeOf(Object object) {
+        if (object == null) {
+            return 0;
+        }
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return arraySize(type.getComponentType(), Array.getLength(object));
+        }
+        return layoutOf(type).size;
+    }
+
+    /**
+     * @return the length of the object's Java serialization, without the stream header; this includes the class
+     * descriptors, which a small object written inside a larger one mostly shares with its siblings
+     */
+    public static int serializedSizeOf(Object object) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            int header = bytes.size();
+            out.writeObject(object);
+            out.close();
+            return bytes.size() - header;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can't serialize " + object.getClass().getName(), e);
+        }
+    }
+
+    private long sizeAndChildren(Object object, Deque<Object> pending) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            int length = Array.getLength(object);
+            if (!component.isPrimitive()) {
+                for (int i = 0; i < length; i++) {
+                    push(pending, Array.get(object, i));
+                }
+            }
+            return arraySize(component, length);
+        }
+        ClassLayout layout = layoutOf(type);
+        if (layout.accessible) {
+            for (Field field : layout.references) {
+                try {
+                    push(pending, field.get(object));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return layout.size;
+        }
+        return layout.size + opaqueContentSize(object, pending);
+    }
+
+    /**
+     * Sizes the internals of a JDK object whose fields can't be read, from what its public API reveals.
+     */
+    private long opaqueContentSize(Object object, Deque<Object> pending) {
+        if (object instanceof String) {
+            int length = ((String) object).length();
+            return COMPACT_STRINGS ? arraySize(byte.class, length) : arraySize(char.class, length);
+        }
+        if (object instanceof Collection) {
+            Collection<?> collection = (Collection<?>) object;
+            for (Object element : collection) {
+                push(pending, element);
+            }
+            return arraySize(Object.class, collection.size());
+        }
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                push(pending, entry.getKey());
+                push(pending, entry.getValue());
+            }
+            // a hash table of the next power of two, and one node of hash, key, value and next per entry
+            int table = map.isEmpty() ? 0 : Integer.highestOneBit(map.size() * 4 / 3 + 1) << 1;
+            return arraySize(Object.class, table) + (long) map.size() * align(objectHeader + 4 + 3 * reference);
+        }
+        return 0;
+    }
+
+    private static void push(Deque<Object> pending, Object child) {
+        if (child != null) {
+            pending.push(child);
+        }
+    }
+
+    private static boolean isShared(Object object) {
+        return object instanceof Class || object instanceof Enum;
+    }
+
+    private long arraySize(Class<?> component, int length) {
+        return align(arrayHeader + (long) length * fieldSize(component));
+    }
+
+    private long align(long size) {
+        return (size + alignment - 1) & -alignment;
+    }
+
+    private int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return reference;
+    }
+
+    private ClassLayout layoutOf(Class<?> type) {
+        ClassLayout layout = layouts.get(type);
+        if (layout == null) {
+            layout = new ClassLayout(type);
+            ClassLayout existing = layouts.putIfAbsent(type, layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    private final class ClassLayout {
+        private final long size;
+        private final List<Field> references = new ArrayList<>();
+        private final boolean accessible;
+
+        private ClassLayout(Class<?> type) {
+            long fields = 0;
+            boolean accessible = true;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    fields += fieldSize(field.getType());
+                    if (!field.getType().isPrimitive()) {
+                        accessible &= makeAccessible(field);
+                        references.add(field);
+                    }
+                }
+            }
+            this.size = align(objectHeader + fields);
+            this.accessible = accessible;
+        }
+
+        private boolean makeAccessible(Field field) {
+            try {
+                field.setAccessible(true);
+                return true;
+            } catch (RuntimeException e) {
+                // java.lang.reflect.InaccessibleObjectException on Java 9 and later
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.gigaspaces.marcello.footprint;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+
+/**
+ * Heap and serialized sizes measured over the sampled instances of one type.
+ *
+ * @since 10.2
+ */
+public class TypeFootprint {
+
+    private final String type;
+    private long instances;
+    private long retainedBytes;
+    private long serializedBytes;
+    private long maxRetainedBytes;
+
+    public TypeFootprint(String type) {
+        Validate.notEmpty(type, "type can't be empty");
+
+        this.type = type;
+    }
+
+    void add(long retained, long serialized) {
+        instances++;
+        retainedBytes += retained;
+        serializedBytes += serialized;
+        maxRetainedBytes = Math.max(maxRetainedBytes, retained);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getInstances() {
+        return instances;
+    }
+
+    public double getMeanRetainedBytes() {
+        return instances == 0 ? 0 : (double) retainedBytes / instances;
+    }
+
+    public double getMeanSerializedBytes() {
+        return instances == 0 ? 0 : (double) serializedBytes / instances;
+    }
+
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("type", type)
+                .add("instances", instances)
+                .add("meanRetainedBytes", Math.round(getMeanRetainedBytes()))
+                .add("meanSerializedBytes", Math.round(getMeanSerializedBytes()))
+                .add("maxRetainedBytes", maxRetainedBytes)
+                .toString();
+    }
+}
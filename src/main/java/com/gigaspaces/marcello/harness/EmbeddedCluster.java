@@ -0,0 +1,128 @@
+package com.gigaspaces.marcello.harness;
+
+import com.gigaspaces.blobstore.ssd.SanDiskBlobStoreConfigurer;
+import com.gigaspaces.marcello.model.AccountChargeData;
+import com.gigaspaces.marcello.model.IndexProfile;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.space.BlobStoreDataCachePolicy;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots every primary partition of a space inside this JVM, optionally storing the entries in a blobstore
+ * on local disk, so performance runs need neither a grid nor a lab.
+ * <p>
+ * The members join a lookup group of their own, so they never cluster with a space running elsewhere on the
+ * network. Partitions have no backups; {@link #getGigaSpace()} routes across all of them like a remote proxy would.
+ * The charge data types are registered with the given {@link IndexProfile}, {@link IndexProfile#FULL} by default.
+ * </p>
+ * <pre>
+ * try (EmbeddedCluster cluster = new EmbeddedCluster("harness", 2, new File("/tmp/blobstore"), 20)) {
+ *     cluster.getGigaSpace().writeMultiple(documents);
+ * }
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class EmbeddedCluster implements Closeable {
+
+    private final List<EmbeddedSpaceConfigurer> members = new ArrayList<>();
+    private final List<GigaSpace> partitions = new ArrayList<>();
+    private final GigaSpace gigaSpace;
+    private final boolean blobStore;
+
+    /**
+     * @param blobStoreDirectory       the directory the partitions keep their blobstore devices in, or null to keep
+     *                                 every entry on the heap
+     * @param blobStoreCachePercentage the share of the entries the blobstore caches on the heap
+     */
+    public EmbeddedCluster(String spaceName, int partitionCount, File blobStoreDirectory, int blobStoreCachePercentage) {
+        this(spaceName, partitionCount, blobStoreDirectory, blobStoreCachePercentage, IndexProfile.FULL);
+    }
+
+    public EmbeddedCluster(String spaceName, int partitionCount, File blobStoreDirectory, int blobStoreCachePercentage,
+                           IndexProfile indexProfile) {
+        Validate.notEmpty(spaceName, "spaceName can't be empty");
+        Validate.notNull(indexProfile, "indexProfile can't be null");
+        Validate.isTrue(partitionCount > 0, "partitionCount must be positive");
+        Validate.isTrue(blobStoreCachePercentage >= 0 && blobStoreCachePercentage <= 100, "blobStoreCachePercentage must be between 0 and 100");
+
+        String lookupGroup = spaceName + "-" + UUID.randomUUID();
+        try {
+            for (int instanceId = 1; instanceId <= partitionCount; instanceId++) {
+                EmbeddedSpaceConfigurer member = new EmbeddedSpaceConfigurer(spaceName).lookupGroups(lookupGroup);
+                if (partitionCount > 1) {
+                    member.clusterInfo(new ClusterInfo("partitioned-sync2backup", instanceId, null, partitionCount, 0));
+                }
+                if (blobStoreDirectory != null) {
+                    member.cachePolicy(blobStorePolicy(new File(blobStoreDirectory, "partition-" + instanceId), blobStoreCachePercentage));
+                }
+                members.add(member);
+                partitions.add(new GigaSpaceConfigurer(member.space()).gigaSpace());
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        this.gigaSpace = new GigaSpaceConfigurer(members.get(0).space()).clustered(true).gigaSpace();
+        indexProfile.register(gigaSpace, SubscriberChargeData.class, AccountChargeData.class);
+        this.blobStore = blobStoreDirectory != null;
+    }
+
+    private static BlobStoreDataCachePolicy blobStorePolicy(File directory, int cachePercentage) {
+        File devices = new File(directory, "devices");
+        File volume = new File(directory, "volume");
+        Validate.isTrue((devices.isDirectory() || devices.mkdirs()) && (volume.isDirectory() || volume.mkdirs()),
+                "can't create the blobstore directories under " + directory);
+
+        BlobStoreDataCachePolicy policy = new BlobStoreDataCachePolicy();
+        policy.setBlobStoreHandler(new SanDiskBlobStoreConfigurer()
+                .addDevices("[" + new File(devices, "data0").getPath() + "]")
+                .setVolumeDir(volume.getPath())
+                .create());
+        policy.setPersistent(false);
+        policy.setCacheEntriesPercentage(cachePercentage);
+        return policy;
+    }
+
+    /**
+     * @return a proxy routing to every partition
+     */
+    public GigaSpace getGigaSpace() {
+        return gigaSpace;
+    }
+
+    /**
+     * @return a proxy to one partition only, by zero-based partition index
+     */
+    public GigaSpace getPartition(int index) {
+        return partitions.get(index);
+    }
+
+    public List<GigaSpace> getPartitions() {
+        return Collections.unmodifiableList(partitions);
+    }
+
+    public boolean isBlobStore() {
+        return blobStore;
+    }
+
+    @Override
+    public void close() {
+        for (EmbeddedSpaceConfigurer member : members) {
+            member.destroy();
+        }
+        members.clear();
+        partitions.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package com.gigaspaces.marcello.harness;
+
+import com.gigaspaces.marcello.feeder.LatencyHistogram;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.apache.commons.lang.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The metrics of one harness run, written as a flat JSON document so runs of different commits can be kept
+ * next to each other and compared by {@link RegressionCheck} or any other tool.
+ * <p>
+ * Metric names end in their unit: <code>PerSecond</code> metrics are better higher, <code>Micros</code> and
+ * <code>Millis</code> metrics better lower.
+ * </p>
+ * <pre>
+ * {
+ *   "label": "3dadec4",
+ *   "metrics": {
+ *     "ingest.entriesPerSecond": 41211.7,
+ *     "query.readById.p99Micros": 310.0
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class HarnessResults {
+
+    private static final Pattern LABEL = Pattern.compile("\"label\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern METRIC = Pattern.compile("\"([^\"]+)\"\\s*:\\s*(-?[0-9][0-9.eE+-]*)");
+
+    private final String label;
+    private final Map<String, Double> metrics = new TreeMap<>();
+
+    public HarnessResults(String label) {
+        Validate.notNull(label, "label can't be null");
+
+        this.label = label;
+    }
+
+    public void put(String metric, double value) {
+        Validate.notEmpty(metric, "metric can't be empty");
+
+        metrics.put(metric, value);
+    }
+
+    /**
+     * Records the throughput and the median and 99th percentile latency of an operation.
+     */
+    public void put(String operation, LatencyHistogram latency, long elapsedNanos) {
+        put(operation + ".opsPerSecond", latency.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos));
+        put(operation + ".p50Micros", latency.getPercentile(50, TimeUnit.MICROSECONDS));
+        put(operation + ".p99Micros", latency.getPercentile(99, TimeUnit.MICROSECONDS));
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Map<String, Double> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"label\": \"").append(label.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n  \"metrics\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+            json.append(separator).append("    \"").append(metric.getKey()).append("\": ")
+                    .append(String.format(Locale.ROOT, "%.1f", metric.getValue()));
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    public void write(File file) throws IOException {
+        Files.write(toJson(), file, Charsets.UTF_8);
+    }
+
+    public static HarnessResults parse(String json) {
+        Matcher label = LABEL.matcher(json);
+        HarnessResults results = new HarnessResults(label.find() ? label.group(1).replace("\\\"", "\"").replace("\\\\", "\\") : "");
+        Matcher metric = METRIC.matcher(json);
+        while (metric.find()) {
+            results.put(metric.group(1), Double.parseDouble(metric.group(2)));
+        }
+        return results;
+    }
+
+    public static HarnessResults read(File file) throws IOException {
+        return parse(Files.toString(file, Charsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
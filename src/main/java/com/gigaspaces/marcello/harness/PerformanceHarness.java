@@ -0,0 +1,192 @@
+package com.gigaspaces.marcello.harness;
+
+import com.gigaspaces.marcello.billrun.BillRunResult;
+import com.gigaspaces.marcello.billrun.BillRunTask;
+import com.gigaspaces.marcello.client.TelephoneNumberLookup;
+import com.gigaspaces.marcello.feeder.Feeder;
+import com.gigaspaces.marcello.feeder.LatencyHistogram;
+import com.gigaspaces.marcello.model.IndexProfile;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the standard ingest, query and post-process workloads against an {@link EmbeddedCluster} and collects
+ * their throughput and latency into {@link HarnessResults}.
+ * <p>
+ * Documents and query keys come from fixed seeds, so two runs differ only by the code under test and the machine.
+ * Each query operation is warmed up before it is measured, one call at a time from a single thread.
+ * </p>
+ * <p>
+ * Run <code>main</code> with
+ * <code>[documents] [partitions] [blobStoreDirectory|-] [output.json] [baseline.json|-] [thresholdPercent] [label] [indexProfile]</code>;
+ * it writes the results, and with a baseline prints every regression and exits with status 1 if there is any.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class PerformanceHarness {
+
+    private static final long SEED = 42;
+    private static final int BATCH_SIZE = 100;
+    private static final int KEYS = 1024;
+    private static final long RANGE_START = Timestamp.valueOf("2000-01-01 00:00:00").getTime();
+    private static final long RANGE_END = Timestamp.valueOf("2015-12-31 00:00:00").getTime();
+    private static final long RANGE_WINDOW = TimeUnit.DAYS.toMillis(30);
+
+    private final GigaSpace gigaSpace;
+    private final int documents;
+    private final int queries;
+    private final List<SubscriberChargeData> keys = new ArrayList<>();
+
+    public PerformanceHarness(GigaSpace gigaSpace, int documents, int queries) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.isTrue(documents >= BATCH_SIZE, "documents must be at least " + BATCH_SIZE);
+        Validate.isTrue(queries > 0, "queries must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.documents = documents;
+        this.queries = queries;
+    }
+
+    public HarnessResults run(String label) throws Exception {
+        HarnessResults results = new HarnessResults(label);
+        ingest(results);
+        query(results);
+        postProcess(results);
+        return results;
+    }
+
+    /**
+     * Writes the documents in batches, timing only the writes.
+     */
+    void ingest(HarnessResults results) {
+        Feeder feeder = new Feeder(SEED);
+        LatencyHistogram latency = new LatencyHistogram();
+        long elapsed = 0;
+        for (int written = 0; written < documents; written += BATCH_SIZE) {
+            SubscriberChargeData[] batch = feeder.generateBatch(written, Math.min(BATCH_SIZE, documents - written));
+            long start = System.nanoTime();
+            gigaSpace.writeMultiple(batch);
+            long nanos = System.nanoTime() - start;
+            latency.record(nanos);
+            elapsed += nanos;
+            for (SubscriberChargeData document : batch) {
+                if (keys.size() < KEYS) {
+                    keys.add(document);
+                }
+            }
+        }
+        results.put("ingest.batch", latency, elapsed);
+        results.put("ingest.entriesPerSecond", documents * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+    }
+
+    void query(HarnessResults results) {
+        final TelephoneNumberLookup lookup = new TelephoneNumberLookup(gigaSpace);
+        measure(results, "query.readById", new Operation() {
+            @Override
+            public void run(Random random) {
+                SubscriberChargeData key = randomKey(random);
+                gigaSpace.readById(SubscriberChargeData.class, key.getId(), key.getCustomerAccountId());
+            }
+        });
+        measure(results, "query.accountLookup", new Operation() {
+            @Override
+            public void run(Random random) {
+                gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "customerAccountId = ?",
+                        randomKey(random).getCustomerAccountId()));
+            }
+        });
+        measure(results, "query.periodRange", new Operation() {
+            @Override
+            public void run(Random random) {
+                long from = RANGE_START + (long) (random.nextDouble() * (RANGE_END - RANGE_START));
+                gigaSpace.readMultiple(new SQLQuery<>(SubscriberChargeData.class, "period.start >= ? AND period.start < ?",
+                        new Date(from), new Date(from + RANGE_WINDOW)), 100);
+            }
+        });
+        measure(results, "query.telephoneNumber", new Operation() {
+            @Override
+            public void run(Random random) {
+                lookup.byNumber(randomKey(random).getTelephoneNumber());
+            }
+        });
+    }
+
+    /**
+     * Post-processes every document once with a {@link BillRunTask}.
+     */
+    void postProcess(HarnessResults results) throws Exception {
+        long start = System.nanoTime();
+        BillRunResult result = gigaSpace.execute(new BillRunTask<>("harness-" + System.currentTimeMillis(),
+                SubscriberChargeData.class, null, null, 500)).get();
+        long elapsed = System.nanoTime() - start;
+        Validate.isTrue(result.getFailed() == 0, "post-processing failed for " + result.getFailedIds());
+
+        results.put("postProcess.elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        results.put("postProcess.documentsPerSecond", result.getProcessed() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+    }
+
+    private void measure(HarnessResults results, String name, Operation operation) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < Math.max(1, queries / 10); i++) {
+            operation.run(random);
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        long begin = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            operation.run(random);
+            latency.record(System.nanoTime() - start);
+        }
+        results.put(name, latency, System.nanoTime() - begin);
+    }
+
+    private SubscriberChargeData randomKey(Random random) {
+        return keys.get(random.nextInt(keys.size()));
+    }
+
+    private interface Operation {
+        void run(Random random);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int partitions = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        File blobStoreDirectory = args.length > 2 && !"-".equals(args[2]) ? new File(args[2]) : null;
+        File output = new File(args.length > 3 ? args[3] : "harness-results.json");
+        File baseline = args.length > 4 && !"-".equals(args[4]) ? new File(args[4]) : null;
+        double thresholdPercent = args.length > 5 ? Double.parseDouble(args[5]) : 10;
+        String label = args.length > 6 ? args[6] : "";
+        IndexProfile indexProfile = IndexProfile.parse(args.length > 7 ? args[7] : "full", null);
+
+        HarnessResults results;
+        try (EmbeddedCluster cluster = new EmbeddedCluster("harness", partitions, blobStoreDirectory, 20, indexProfile)) {
+            results = new PerformanceHarness(cluster.getGigaSpace(), documents, 10000).run(label);
+        }
+        results.put("run.documents", documents);
+        results.put("run.partitions", partitions);
+        results.put("run.blobStore", blobStoreDirectory != null ? 1 : 0);
+        results.write(output);
+        System.out.print(results.toJson());
+
+        if (baseline != null) {
+            List<String> regressions = new RegressionCheck(thresholdPercent).compare(HarnessResults.read(baseline), results);
+            for (String regression : regressions) {
+                System.out.println("REGRESSION " + regression);
+            }
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gigaspaces.marcello.harness;
+
+import org.apache.commons.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a run against a baseline and reports every metric that got worse by more than its threshold.
+ * <p>
+ * Whether a metric got worse follows from its unit suffix, as described in {@link HarnessResults}; metrics
+ * without a known suffix, and metrics missing from either run, are not compared.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class RegressionCheck {
+
+    private final double defaultThresholdPercent;
+    private final Map<String, Double> thresholds = new HashMap<>();
+
+    public RegressionCheck(double defaultThresholdPercent) {
+        Validate.isTrue(defaultThresholdPercent >= 0, "defaultThresholdPercent can't be negative");
+
+        this.defaultThresholdPercent = defaultThresholdPercent;
+    }
+
+    /**
+     * Overrides the threshold of one metric, such as a tail latency that is noisier than the rest.
+     */
+    public RegressionCheck threshold(String metric, double thresholdPercent) {
+        Validate.isTrue(thresholdPercent >= 0, "thresholdPercent can't be negative");
+
+        thresholds.put(metric, thresholdPercent);
+        return this;
+    }
+
+    /**
+     * @return a description of each regression, empty when there are none
+     */
+    public List<String> compare(HarnessResults baseline, HarnessResults current) {
+        Validate.notNull(baseline, "baseline can't be null");
+        Validate.notNull(current, "current can't be null");
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> metric : current.getMetrics().entrySet()) {
+            String name = metric.getKey();
+            Double before = baseline.getMetrics().get(name);
+            int direction = directionOf(name);
+            if (before == null || direction == 0 || before == 0) {
+                continue;
+            }
+            double change = (metric.getValue() - before) / Math.abs(before) * 100;
+            double threshold = thresholds.containsKey(name) ? thresholds.get(name) : defaultThresholdPercent;
+            if (-direction * change > threshold) {
+                regressions.add(String.format("%s: %.1f -> %.1f (%+.1f%%, threshold %.1f%%)",
+                        name, before, metric.getValue(), change, threshold));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @return 1 when higher is better, -1 when lower is better, 0 when unknown
+     */
+    private static int directionOf(String metric) {
+        if (metric.endsWith("PerSecond")) {
+            return 1;
+        }
+        if (metric.endsWith("Micros") || metric.endsWith("Millis")) {
+            return -1;
+        }
+        return 0;
+    }
+}
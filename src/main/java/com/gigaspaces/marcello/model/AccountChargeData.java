@@ -0,0 +1,66 @@
+package com.gigaspaces.marcello.model;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.google.common.base.Objects;
+
+/**
+ * The charges of all subscribers of an account for one bill, with rows aggregated at account level:
+ * rows of the same name and feature category are merged regardless of their discounts.
+ *
+ * @since 10.2
+ */
+@SpaceClass
+public class AccountChargeData extends ChargeData {
+    private static final long serialVersionUID = -2419337407713826541L;
+
+    private Integer subscribers;
+
+    public AccountChargeData() {
+
+    }
+
+    public AccountChargeData(String customerAccountId, int billSequence, TimePeriod period) {
+        super(customerAccountId, billSequence, period);
+        setId(idFor(customerAccountId, billSequence));
+        this.subscribers = 0;
+    }
+
+    public static String idFor(String customerAccountId, int billSequence) {
+        return customerAccountId + "_" + billSequence + "_account";
+    }
+
+    /**
+     * @return the number of subscriber documents merged into this one
+     */
+    public Integer getSubscribers() {
+        return subscribers;
+    }
+
+    public void setSubscribers(Integer subscribers) {
+        this.subscribers = subscribers;
+    }
+
+    @Override
+    protected boolean isAccountLevel() {
+        return true;
+    }
+
+    /**
+     * Subscriber rows are merged after their own post-processing, so discounts are already applied.
+     */
+    @Override
+    public void postProcess() {
+        sortRows();
+        createChargeGroupTotals();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("ban", getCustomerAccountId())
+                .add("bill_seq", getBillSequence())
+                .add("subscribers", subscribers)
+                .add("period", getPeriod())
+                .toString();
+    }
+}
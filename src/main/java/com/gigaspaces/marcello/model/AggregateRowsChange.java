@@ -0,0 +1,113 @@
+package com.gigaspaces.marcello.model;
+
+import com.gigaspaces.client.CustomChangeOperation;
+import com.gigaspaces.marcello.model.codec.RowCodecs;
+import com.gigaspaces.server.MutableServerEntry;
+import com.google.common.base.Objects;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Space-side counterpart of {@link ChargeData#addRows(List)}: aggregates the given rows into the stored
+ * <code>chargeRows</code> and recomputes the <code>chargeGroupTotals</code> of the groups they touch.
+ * <p>
+ * Stored values are never modified in place; rows that absorb an aggregation are copied first.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class AggregateRowsChange extends CustomChangeOperation {
+    private static final long serialVersionUID = -3253394651468376027L;
+
+    static final String CHARGE_ROWS = "chargeRows";
+    static final String CHARGE_GROUP_TOTALS = "chargeGroupTotals";
+
+    private final List<ChargeRow> rows;
+    private final boolean accountLevel;
+
+    public AggregateRowsChange(List<ChargeRow> rows, boolean accountLevel) {
+        this.rows = rows;
+        this.accountLevel = accountLevel;
+    }
+
+    @Override
+    public String getName() {
+        return "aggregateRows";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object change(MutableServerEntry entry) {
+        List<ChargeRow> stored = (List<ChargeRow>) entry.getPathValue(CHARGE_ROWS);
+        List<ChargeRow> chargeRows = stored == null ? new ArrayList<ChargeRow>() : new ArrayList<>(stored);
+        Set<String> affectedGroups = new LinkedHashSet<>();
+
+        for (ChargeRow row : rows) {
+            int index = -1;
+            for (int i = 0; i < chargeRows.size(); i++) {
+                if (chargeRows.get(i).shouldBeAggregatedWith(row, accountLevel)) {
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                ChargeRow aggregated = chargeRows.get(index).copy();
+                aggregated.aggregate(row);
+                chargeRows.set(index, aggregated);
+                affectedGroups.add(aggregated.getGroupName());
+            } else {
+                chargeRows.add(row);
+            }
+            affectedGroups.add(row.getGroupName());
+        }
+        entry.setPathValue(CHARGE_ROWS, RowCodecs.wrapLike(stored, chargeRows));
+
+        List<ChargeRow> totals = (List<ChargeRow>) entry.getPathValue(CHARGE_GROUP_TOTALS);
+        if (totals != null) {
+            List<ChargeRow> chargeGroupTotals = new ArrayList<>(totals);
+            for (String groupName : affectedGroups) {
+                if (groupName != null) {
+                    replaceGroupTotal(chargeGroupTotals, groupTotal(chargeRows, groupName));
+                }
+            }
+            entry.setPathValue(CHARGE_GROUP_TOTALS, chargeGroupTotals);
+        }
+        return null;
+    }
+
+    private static ChargeRow groupTotal(List<ChargeRow> chargeRows, String groupName) {
+        ChargeRow group = new ChargeRow();
+        group.setGroupName(groupName);
+        for (ChargeRow chargeRow : chargeRows) {
+            if (!groupName.equals(chargeRow.getGroupName()) || chargeRow.getTotalAmount() == null) {
+                continue;
+            }
+            if (group.getTotalAmount() == null) {
+                group.setTotalAmount(new AmountWithDoubles(chargeRow.getTotalAmount()));
+            } else {
+                group.setTotalAmount(group.getTotalAmount().add(chargeRow.getTotalAmount()));
+            }
+        }
+        return group;
+    }
+
+    private static void replaceGroupTotal(List<ChargeRow> chargeGroupTotals, ChargeRow group) {
+        for (int i = 0; i < chargeGroupTotals.size(); i++) {
+            if (group.getGroupName().equals(chargeGroupTotals.get(i).getGroupName())) {
+                chargeGroupTotals.set(i, group);
+                return;
+            }
+        }
+        chargeGroupTotals.add(group);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("rows", rows.size())
+                .add("accountLevel", accountLevel)
+                .toString();
+    }
+}
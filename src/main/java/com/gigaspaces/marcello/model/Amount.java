@@ -5,11 +5,12 @@ package com.gigaspaces.marcello.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Objects;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.CompareToBuilder;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 /**
  * Represents an amount with a currency. Using the vat and amountExcludingVat field is optional.
@@ -24,28 +25,32 @@ public class Amount implements Serializable, Comparable<Amount> {
      * The serial version uid.
      */
     private static final long serialVersionUID = 1L;
+
+    private static final int MAX_CACHED_CURRENCIES = 256;
+    private static final BigDecimal ZERO_SCALE_TWO = BigDecimal.ZERO.setScale(2);
+    private static final ConcurrentMap<String, Amount> ZEROS = new ConcurrentHashMap<>();
     
     /**
      * The amount represented.
      */
-    private  BigDecimal amount;
+    private final BigDecimal amount;
 
     /**
      * The amount without the VAT.
      */
-    private  BigDecimal amountExcludingVat;
+    private final BigDecimal amountExcludingVat;
 
     /**
      * The amount of VAT.
      */
-    private  BigDecimal vat;
+    private final BigDecimal vat;
     
     /**
      * The currency of the amount.
      */
     private final String currency;
 
-    private  String amountString = null;
+    private final String amountString;
 
 
     public Amount(final BigDecimal amount, final String currency) {
@@ -65,6 +70,7 @@ public class Amount implements Serializable, Comparable<Amount> {
         }
         this.amountExcludingVat = amountExcludingVat;
         this.vat = vat;
+        this.amountString = null;
     }
 
     /**
@@ -79,6 +85,7 @@ public class Amount implements Serializable, Comparable<Amount> {
         this.amountExcludingVat = from.getAmountExcludingVat();
         this.vat = from.getVat();
         this.currency = from.getCurrency();
+        this.amountString = null;
     }
 
     public Amount(String amountString) {
@@ -87,10 +94,31 @@ public class Amount implements Serializable, Comparable<Amount> {
 
     public Amount(String amount, final String currency) {
         Validate.notNull(amount, "amount can't be null");
+        this.amount = null;
+        this.amountExcludingVat = null;
+        this.vat = null;
         this.amountString = amount;
         this.currency = currency;
     }
 
+    /**
+     * @return a shared amount of 0.00 in the currency, without vat fields, as {@link #valueOf(String, String)} returns for "0"
+     */
+    public static Amount zero(String currency) {
+        Validate.notEmpty(currency, "currency can't be empty");
+
+        String key = currency.toUpperCase();
+        Amount zero = ZEROS.get(key);
+        if (zero == null) {
+            zero = new Amount(ZERO_SCALE_TWO, key);
+            if (ZEROS.size() < MAX_CACHED_CURRENCIES) {
+                Amount existing = ZEROS.putIfAbsent(key, zero);
+                zero = existing != null ? existing : zero;
+            }
+        }
+        return zero;
+    }
+
     public static Amount valueOf(final String amountString, final String currency) {
         if(!"UNLIMITED".equalsIgnoreCase(amountString)){
             int decimalPlaces = 2;
@@ -194,6 +222,15 @@ public class Amount implements Serializable, Comparable<Amount> {
         return amountString;
     }
 
+    /**
+     * @return true when the amount is zero, whatever its scale, and the vat fields are zero or null
+     */
+    public boolean isZero() {
+        return amount != null && amount.signum() == 0
+                && (amountExcludingVat == null || amountExcludingVat.signum() == 0)
+                && (vat == null || vat.signum() == 0);
+    }
+
     @Override
     public boolean equals(final Object object) {
         if (object == null) {
@@ -207,20 +244,14 @@ public class Amount implements Serializable, Comparable<Amount> {
         }
         
         Amount other = (Amount) object;
-        return new EqualsBuilder()
-                .append(this.amount, other.getAmount())
-                .append(this.amountExcludingVat, other.getAmountExcludingVat())
-                .append(this.currency, other.getCurrency())
-                .isEquals();
+        return Objects.equal(this.amount, other.amount)
+                && Objects.equal(this.amountExcludingVat, other.amountExcludingVat)
+                && Objects.equal(this.currency, other.currency);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(getAmount())
-                .append(getAmountExcludingVat())
-                .append(getCurrency())
-                .toHashCode();
+        return ValueObjects.hash(amount, amountExcludingVat, currency);
     }
 
     @Override
@@ -252,10 +283,8 @@ public class Amount implements Serializable, Comparable<Amount> {
 
     @Override
     public int compareTo(Amount other) {
-        return new CompareToBuilder()
-                .append(getAmount(), other.getAmount())
-                .append(getCurrency(), other.getCurrency())
-                .toComparison();
+        int result = ValueObjects.compare(amount, other.amount);
+        return result != 0 ? result : ValueObjects.compare(currency, other.currency);
     }
     
     /**
@@ -270,6 +299,14 @@ public class Amount implements Serializable, Comparable<Amount> {
         Validate.notNull(augend.getCurrency(), "currency can't be null");
         Validate.notEmpty(augend.getCurrency(), "currency can't be empty");
         Validate.isTrue(this.getCurrency().equals(augend.getCurrency()), "currencies can't be different");
+
+        // the sum equals the other operand, unless the scales differ or a vat field would become null
+        if (augend.isZero() && getClass() == Amount.class && yields(this, augend, this)) {
+            return this;
+        }
+        if (isZero() && augend.getClass() == Amount.class && yields(this, augend, augend)) {
+            return augend;
+        }
         
         BigDecimal newAmount = this.amount.add(augend.getAmount());
         
@@ -312,6 +349,14 @@ public class Amount implements Serializable, Comparable<Amount> {
         Validate.notNull(subtrahend.getCurrency(), "currency can't be null");
         Validate.notEmpty(subtrahend.getCurrency(), "currency can't be empty");
         Validate.isTrue(this.getCurrency().equals(subtrahend.getCurrency()), "currencies can't be different");
+
+        if (subtrahend.isZero() && getClass() == Amount.class && yields(this, subtrahend, this)) {
+            return this;
+        }
+        // x - x keeps the scales, and only vat fields of scale 0 become null like the shared zero's
+        if (subtrahend == this && amount.scale() == 2 && hasScaleZeroOrNull(amountExcludingVat) && hasScaleZeroOrNull(vat)) {
+            return zero(currency);
+        }
         
         BigDecimal newAmount = this.amount.subtract(subtrahend.getAmount());
         
@@ -341,4 +386,29 @@ public class Amount implements Serializable, Comparable<Amount> {
         
         return new Amount(newAmount, newAmountExcludingVat, newVat, this.getCurrency());
     }
+
+    /**
+     * @return true when adding or subtracting <code>operand</code>, of which either it or <code>current</code> is
+     * zero, gives an amount with exactly the fields of <code>kept</code>, one of the two
+     */
+    private static boolean yields(Amount current, Amount operand, Amount kept) {
+        return kept.amount.scale() == Math.max(current.amount.scale(), operand.amount.scale())
+                && yields(current.amountExcludingVat, operand.amountExcludingVat, kept.amountExcludingVat)
+                && yields(current.vat, operand.vat, kept.vat);
+    }
+
+    /**
+     * @return true when the vat field the computation gives from <code>current</code> and <code>operand</code>,
+     * one of them zero or null, is <code>kept</code>: the same scale, or both null
+     */
+    private static boolean yields(BigDecimal current, BigDecimal operand, BigDecimal kept) {
+        BigDecimal base = current != null ? current : BigDecimal.ZERO;
+        int scale = operand != null ? Math.max(base.scale(), operand.scale()) : base.scale();
+        boolean nulled = scale == 0 && base.signum() == 0 && (operand == null || operand.signum() == 0);
+        return nulled ? kept == null : kept != null && kept.scale() == scale;
+    }
+
+    private static boolean hasScaleZeroOrNull(BigDecimal value) {
+        return value == null || value.scale() == 0;
+    }
 }
@@ -3,49 +3,61 @@
  **************************************************************************************************/
 package com.gigaspaces.marcello.model;
 
+import com.google.common.base.Objects;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.CompareToBuilder;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Represents an amount with a currency. Using the vat and amountExcludingVat field is optional.
  * 
- * This class is immutable.
+ * This class is immutable, so instances can be shared: arithmetic with a zero operand returns an existing
+ * instance where the result would be equal to it, and {@link #zero(String)} returns cached instances.
  * 
  * @author <a href="mailto:stephan.kohler@netcom-gsm.no">Stephan Köhler</a>
  */
 public class AmountWithDoubles implements Serializable, Comparable<AmountWithDoubles> {
     private static final long serialVersionUID = 6410939032828810832L;
 
+    private static final int MAX_CACHED_CURRENCIES = 256;
+
+    /**
+     * Zero amounts per currency, indexed by which of the vat fields are set.
+     */
+    private static final ConcurrentMap<String, AmountWithDoubles[]> ZEROS = new ConcurrentHashMap<>();
+
     /**
      * The amount represented.
      */
-    private Double amount;
+    private final Double amount;
 
     /**
      * The amount without the VAT.
      */
-    private Double amountExcludingVat;
+    private final Double amountExcludingVat;
 
     /**
      * The amount of VAT.
      */
-    private Double vat;
+    private final Double vat;
 
     /**
      * The currency of the amount.
      */
-    private String currency;
+    private final String currency;
 
-    private  String amountString = null;
+    private final String amountString;
 
     public AmountWithDoubles() {
-
+        this.amount = null;
+        this.amountExcludingVat = null;
+        this.vat = null;
+        this.currency = null;
+        this.amountString = null;
     }
 
     public AmountWithDoubles(final Double amount, final String currency) {
@@ -65,6 +77,7 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         }
         this.amountExcludingVat = amountExcludingVat;
         this.vat = vat;
+        this.amountString = null;
     }
 
     /**
@@ -79,6 +92,7 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         this.amountExcludingVat = from.getAmountExcludingVat();
         this.vat = from.getVat();
         this.currency = from.getCurrency();
+        this.amountString = null;
     }
 
     public AmountWithDoubles(String amountString) {
@@ -87,10 +101,51 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
 
     public AmountWithDoubles(String amount, final String currency) {
         Validate.notNull(amount, "amount can't be null");
+        this.amount = null;
+        this.amountExcludingVat = null;
+        this.vat = null;
         this.amountString = amount;
         this.currency = currency;
     }
 
+    /**
+     * @return a shared zero amount with both vat fields set to zero
+     */
+    public static AmountWithDoubles zero(String currency) {
+        return zero(currency, true, true);
+    }
+
+    /**
+     * @return a shared zero amount, with each vat field set to zero or left null
+     */
+    public static AmountWithDoubles zero(String currency, boolean withAmountExcludingVat, boolean withVat) {
+        Validate.notEmpty(currency, "currency can't be empty");
+
+        String key = currency.toUpperCase();
+        AmountWithDoubles[] zeros = ZEROS.get(key);
+        if (zeros == null) {
+            zeros = new AmountWithDoubles[4];
+            if (ZEROS.size() < MAX_CACHED_CURRENCIES) {
+                AmountWithDoubles[] existing = ZEROS.putIfAbsent(key, zeros);
+                zeros = existing != null ? existing : zeros;
+            }
+        }
+        int index = (withAmountExcludingVat ? 1 : 0) | (withVat ? 2 : 0);
+        AmountWithDoubles zero = zeros[index];
+        if (zero == null) {
+            zero = new AmountWithDoubles(0d, withAmountExcludingVat ? 0d : null, withVat ? 0d : null, key);
+            zeros[index] = zero;
+        }
+        return zero;
+    }
+
+    /**
+     * @return a shared zero amount in the currency of the given amount, with the same vat fields set
+     */
+    public static AmountWithDoubles zeroLike(AmountWithDoubles amount) {
+        return zero(amount.getCurrency(), amount.getAmountExcludingVat() != null, amount.getVat() != null);
+    }
+
     public static AmountWithDoubles valueOf(final String amountString, final String currency) {
         if(!"UNLIMITED".equalsIgnoreCase(amountString)){
             int decimalPlaces = 2;
@@ -193,6 +248,15 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         return amountString;
     }
 
+    /**
+     * @return true when the amount is zero and the vat fields are zero or null
+     */
+    public boolean isZero() {
+        return amount != null && amount == 0d
+                && (amountExcludingVat == null || amountExcludingVat == 0d)
+                && (vat == null || vat == 0d);
+    }
+
     @Override
     public boolean equals(final Object object) {
         if (object == null) {
@@ -206,20 +270,14 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         }
         
         AmountWithDoubles other = (AmountWithDoubles) object;
-        return new EqualsBuilder()
-                .append(this.amount, other.getAmount())
-                .append(this.amountExcludingVat, other.getAmountExcludingVat())
-                .append(this.currency, other.getCurrency())
-                .isEquals();
+        return Objects.equal(this.amount, other.amount)
+                && Objects.equal(this.amountExcludingVat, other.amountExcludingVat)
+                && Objects.equal(this.currency, other.currency);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(getAmount())
-                .append(getAmountExcludingVat())
-                .append(getCurrency())
-                .toHashCode();
+        return ValueObjects.hash(amount, amountExcludingVat, currency);
     }
 
     @Override
@@ -251,10 +309,8 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
 
     @Override
     public int compareTo(AmountWithDoubles other) {
-        return new CompareToBuilder()
-                .append(getAmount(), other.getAmount())
-                .append(getCurrency(), other.getCurrency())
-                .toComparison();
+        int result = ValueObjects.compare(amount, other.amount);
+        return result != 0 ? result : ValueObjects.compare(currency, other.currency);
     }
     
     /**
@@ -269,6 +325,14 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         Validate.notNull(augend.getCurrency(), "currency can't be null");
         Validate.notEmpty(augend.getCurrency(), "currency can't be empty");
         Validate.isTrue(this.getCurrency().equals(augend.getCurrency()), "currencies can't be different");
+
+        // the sum equals the other operand, unless a vat field is null (it becomes 0) or -0.0 (it becomes 0.0)
+        if (augend.isPositiveZero() && !hasNegativeZero() && this.amountExcludingVat != null && this.vat != null) {
+            return this;
+        }
+        if (isPositiveZero() && !augend.hasNegativeZero() && augend.getAmountExcludingVat() != null && augend.getVat() != null) {
+            return augend;
+        }
         
         Double newAmount = this.amount + augend.getAmount();
         
@@ -311,6 +375,13 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         Validate.notNull(subtrahend.getCurrency(), "currency can't be null");
         Validate.notEmpty(subtrahend.getCurrency(), "currency can't be empty");
         Validate.isTrue(this.getCurrency().equals(subtrahend.getCurrency()), "currencies can't be different");
+
+        if (subtrahend.isPositiveZero() && this.amountExcludingVat != null && this.vat != null) {
+            return this;
+        }
+        if (subtrahend == this && isFinite()) {
+            return zero(currency);
+        }
         
         Double newAmount = this.amount -subtrahend.getAmount();
         
@@ -341,6 +412,26 @@ public class AmountWithDoubles implements Serializable, Comparable<AmountWithDou
         return new AmountWithDoubles(newAmount, newAmountExcludingVat, newVat, this.getCurrency());
     }
 
+    private boolean isPositiveZero() {
+        return amount != null && Double.doubleToRawLongBits(amount) == 0L
+                && (amountExcludingVat == null || Double.doubleToRawLongBits(amountExcludingVat) == 0L)
+                && (vat == null || Double.doubleToRawLongBits(vat) == 0L);
+    }
+
+    private boolean hasNegativeZero() {
+        return isNegativeZero(amount) || isNegativeZero(amountExcludingVat) || isNegativeZero(vat);
+    }
+
+    private static boolean isNegativeZero(Double value) {
+        return value != null && Double.doubleToRawLongBits(value) == Long.MIN_VALUE;
+    }
+
+    private boolean isFinite() {
+        return !amount.isInfinite() && !amount.isNaN()
+                && (amountExcludingVat == null || !(amountExcludingVat.isInfinite() || amountExcludingVat.isNaN()))
+                && (vat == null || !(vat.isInfinite() || vat.isNaN()));
+    }
+
     public static AmountWithDoubles valueOf(Amount amount) {
         return valueOf(amount.getAmount(), amount.getAmountExcludingVat(), amount.getVat(), amount.getCurrency());
     }
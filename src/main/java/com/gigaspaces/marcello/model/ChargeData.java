@@ -1,6 +1,9 @@
 package com.gigaspaces.marcello.model;
 
 import com.gigaspaces.annotation.pojo.*;
+import com.gigaspaces.marcello.model.codec.ChargeRowView;
+import com.gigaspaces.marcello.model.codec.LazyRowList;
+import com.gigaspaces.marcello.model.codec.RowCodecs;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 import com.google.common.base.Objects;
 import com.google.common.collect.ComparisonChain;
@@ -10,8 +13,16 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+
+/**
+ * Base of the charge documents. The annotated indexes are those of {@link IndexProfile#FULL}; a deployment that
+ * registers another profile before its first write overrides them.
+ *
+ * @since 10.2
+ */
 public abstract class ChargeData implements Serializable {
     private static final long serialVersionUID = 8054828245479249671L;
 
@@ -26,6 +37,18 @@ public abstract class ChargeData implements Serializable {
     private List<ChargeRow> chargeRows;
     private List<ChargeRow> chargeGroupTotals;
 
+    /**
+     * Rows added since change tracking started, replayed on the space by {@link ChargeDataChanges#flush}.
+     */
+    private transient List<ChargeRow> pendingRows;
+
+    /**
+     * Case-folded row name to the position of the first row with that name, built on the first
+     * {@link #getRowByName(String)} and dropped whenever the rows are replaced or reordered. Volatile, as
+     * documents shared read-only between threads, like those of a cache, build it lazily on any of them.
+     */
+    private transient volatile RowIndex rowIndex;
+
 
     public ChargeData() {
 
@@ -70,8 +93,15 @@ public abstract class ChargeData implements Serializable {
         return chargeRows;
     }
 
+    /**
+     * Sets the rows, in the storage form configured in {@link RowCodecs}. Without a codec or lazy rows configured
+     * the given list itself is kept; with one, {@link #getChargeRows()} returns an encoding list backed by the given
+     * one, so the rows can be modified through either list.
+     */
     public void setChargeRows(List<ChargeRow> chargeRows) {
-        this.chargeRows = chargeRows;
+        this.chargeRows = RowCodecs.wrap(chargeRows);
+        this.pendingRows = null;
+        this.rowIndex = null;
     }
 
     public List<ChargeRow> getChargeGroupTotals() {
@@ -119,6 +149,40 @@ public abstract class ChargeData implements Serializable {
             rowToAggregate.aggregate(chargeRow);
         } else {
             chargeRows.add(chargeRow);
+            RowIndex index = rowIndex;
+            if (index != null && index.rows == chargeRows.size() - 1) {
+                rowIndex = index.with(chargeRow.getName());
+            }
+        }
+        if (pendingRows != null) {
+            pendingRows.add(chargeRow.copy());
+        }
+    }
+
+    /**
+     * Starts recording the rows passed to {@link #addRow(ChargeRow)}, so they can be sent to the space
+     * as a change instead of rewriting the whole document.
+     * Replacing the rows with {@link #setChargeRows(List)} stops tracking, since that can't be expressed as a delta.
+     */
+    public void trackChanges() {
+        if (pendingRows == null) {
+            pendingRows = new ArrayList<>();
+        }
+    }
+
+    @SpaceExclude
+    public boolean isTrackingChanges() {
+        return pendingRows != null;
+    }
+
+    @SpaceExclude
+    public List<ChargeRow> getPendingRows() {
+        return pendingRows == null ? Collections.<ChargeRow>emptyList() : pendingRows;
+    }
+
+    public void clearPendingRows() {
+        if (pendingRows != null) {
+            pendingRows.clear();
         }
     }
 
@@ -133,12 +197,75 @@ public abstract class ChargeData implements Serializable {
         if (chargeRows == null) {
             return null;
         }
-        for (ChargeRow chargeRow : chargeRows) {
-            if (name.equalsIgnoreCase(chargeRow.getName())) {
-                return chargeRow;
+        RowIndex index = rowIndex;
+        if (index == null || index.rows != chargeRows.size()) {
+            index = buildRowIndex();
+        }
+        Integer position = index.positions.get(foldCase(name));
+        if (position == null) {
+            return null;
+        }
+        ChargeRow chargeRow = chargeRows.get(position);
+        if (!name.equalsIgnoreCase(chargeRow.getName())) {
+            // a row was renamed or replaced through getChargeRows()
+            position = buildRowIndex().positions.get(foldCase(name));
+            return position == null ? null : chargeRows.get(position);
+        }
+        return chargeRow;
+    }
+
+    /**
+     * Drops the name index used by {@link #getRowByName(String)}. Call it after replacing rows through
+     * <code>getChargeRows().set(...)</code> or renaming them: a lookup notices a changed row count or a renamed
+     * hit by itself, but not a row that now has a name it didn't have, at the same count.
+     */
+    public void invalidateRowIndex() {
+        rowIndex = null;
+    }
+
+    private RowIndex buildRowIndex() {
+        Map<String, Integer> index = new HashMap<>(chargeRows.size() * 2);
+        if (chargeRows instanceof LazyRowList) {
+            ChargeRowView view = ((LazyRowList) chargeRows).view();
+            for (int i = 0; i < chargeRows.size(); i++) {
+                indexRow(index, view.moveTo(i).getName(), i);
+            }
+        } else {
+            for (int i = 0; i < chargeRows.size(); i++) {
+                indexRow(index, chargeRows.get(i).getName(), i);
             }
         }
-        return null;
+        RowIndex built = new RowIndex(index, chargeRows.size());
+        rowIndex = built;
+        return built;
+    }
+
+    private static void indexRow(Map<String, Integer> index, String name, int position) {
+        if (name != null) {
+            String key = foldCase(name);
+            if (!index.containsKey(key)) {
+                index.put(key, position);
+            }
+        }
+    }
+
+    /**
+     * Folds each char the way {@link String#equalsIgnoreCase(String)} compares them, so two names fold
+     * to the same key exactly when they are equal ignoring case.
+     */
+    private static String foldCase(String name) {
+        char[] folded = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c && folded == null) {
+                folded = name.toCharArray();
+            }
+            if (folded != null) {
+                folded[i] = f;
+            }
+        }
+        return folded == null ? name : new String(folded);
     }
 
 
@@ -180,6 +307,7 @@ public abstract class ChargeData implements Serializable {
     }
 
     public void sortRows() {
+        rowIndex = null;
         if (chargeRows != null) {
             Collections.sort(getChargeRows(), new Comparator<ChargeRow>() {
                 @Override
@@ -199,4 +327,30 @@ public abstract class ChargeData implements Serializable {
     }
 
     public abstract void postProcess();
+
+    /**
+     * Never modified once published, so a reader on another thread sees a whole index or none; adding a row
+     * swaps in a new one.
+     */
+    private static final class RowIndex {
+        private final Map<String, Integer> positions;
+        private final int rows;
+
+        RowIndex(Map<String, Integer> positions, int rows) {
+            this.positions = positions;
+            this.rows = rows;
+        }
+
+        /**
+         * @return the index with one more row, named <code>name</code>; the positions are copied only if the name is new
+         */
+        RowIndex with(String name) {
+            if (name == null || positions.containsKey(foldCase(name))) {
+                return new RowIndex(positions, rows + 1);
+            }
+            Map<String, Integer> copy = new HashMap<>(positions);
+            indexRow(copy, name, rows);
+            return new RowIndex(copy, rows + 1);
+        }
+    }
 }
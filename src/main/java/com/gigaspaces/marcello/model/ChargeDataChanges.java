@@ -0,0 +1,98 @@
+package com.gigaspaces.marcello.model;
+
+import com.gigaspaces.client.ChangeResult;
+import com.gigaspaces.client.ChangeSet;
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.query.IdQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.EntryAlreadyInSpaceException;
+import org.openspaces.core.GigaSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends row-level changes of a {@link ChargeData} to the space instead of rewriting the whole document.
+ * <p>
+ * Usage: read the document, call {@link ChargeData#trackChanges()}, add rows as usual and then
+ * {@link #flush(GigaSpace, ChargeData)}. Only the added rows travel to the space, where they are
+ * aggregated by {@link AggregateRowsChange}.
+ * </p>
+ * <p>
+ * Without a prior read, {@link #upsert(GigaSpace, ChargeData, boolean)} aggregates the rows of a new document into
+ * its stored copy, or writes it when there is none.
+ * </p>
+ *
+ * @since 10.2
+ */
+public final class ChargeDataChanges {
+
+    private static final int MAX_UPSERT_ATTEMPTS = 5;
+
+    private ChargeDataChanges() {
+    }
+
+    public static ChangeSet aggregateRows(List<ChargeRow> rows, boolean accountLevel) {
+        Validate.notNull(rows, "rows can't be null");
+
+        return new ChangeSet().custom(new AggregateRowsChange(new ArrayList<>(rows), accountLevel));
+    }
+
+    /**
+     * Applies the pending rows of the given document to its stored copy.
+     *
+     * @return the number of changed entries; 0 when there was nothing to send or the document is not in the space,
+     * in which case the pending rows are kept.
+     * @throws IllegalArgumentException when the document doesn't track changes
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends ChargeData> int flush(GigaSpace gigaSpace, T chargeData) {
+        Validate.notNull(chargeData, "chargeData can't be null");
+        Validate.isTrue(chargeData.isTrackingChanges(), "chargeData doesn't track changes");
+
+        List<ChargeRow> pendingRows = chargeData.getPendingRows();
+        if (pendingRows.isEmpty()) {
+            return 0;
+        }
+        IdQuery<T> query = new IdQuery<>((Class<T>) chargeData.getClass(), chargeData.getId(), chargeData.getCustomerAccountId());
+        ChangeResult<T> result = gigaSpace.change(query, aggregateRows(pendingRows, chargeData.isAccountLevel()));
+        if (result.getNumberOfChangedEntries() > 0) {
+            chargeData.clearPendingRows();
+        }
+        return result.getNumberOfChangedEntries();
+    }
+
+    /**
+     * Aggregates the rows of the given document into its stored copy, or writes the document as given when the
+     * space has none. Meant to run next to the data, in the document's partition.
+     *
+     * @param mightExist false when the document is probably missing, to skip straight to the write; the write is
+     *                   {@link WriteModifiers#WRITE_ONLY}, so a document that exists after all is changed instead
+     * @return true when the document was written, false when its rows were aggregated into the stored copy
+     * @throws IllegalStateException when the stored copy is taken and written again by others on every attempt,
+     * in which case the rows were applied to none
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends ChargeData> boolean upsert(GigaSpace gigaSpace, T chargeData, boolean mightExist) {
+        Validate.notNull(chargeData, "chargeData can't be null");
+
+        IdQuery<T> query = new IdQuery<>((Class<T>) chargeData.getClass(), chargeData.getId(), chargeData.getCustomerAccountId());
+        ChangeSet rows = aggregateRows(chargeData.getChargeRows() != null ? chargeData.getChargeRows() : new ArrayList<ChargeRow>(),
+                chargeData.isAccountLevel());
+        boolean tryChange = mightExist;
+        for (int attempt = 0; attempt < MAX_UPSERT_ATTEMPTS; attempt++) {
+            if (tryChange && gigaSpace.change(query, rows).getNumberOfChangedEntries() > 0) {
+                return false;
+            }
+            try {
+                gigaSpace.write(chargeData, WriteModifiers.WRITE_ONLY);
+                return true;
+            } catch (EntryAlreadyInSpaceException e) {
+                // written by another upsert since the change; change it, unless it was taken again meanwhile
+                tryChange = true;
+            }
+        }
+        throw new IllegalStateException("gave up upserting " + chargeData.getId() + " after " + MAX_UPSERT_ATTEMPTS
+                + " attempts, the document keeps being written and taken concurrently");
+    }
+}
@@ -3,13 +3,10 @@ package com.gigaspaces.marcello.model;
 import com.google.common.base.Objects;
 
 import java.io.*;
-import java.math.BigDecimal;
 
 public class ChargeRow implements Serializable {
     private static final long serialVersionUID = 8690976519192547147L;
 
-    private static final BigDecimal ZERO_SCALE_TWO = BigDecimal.ZERO.setScale(2);
-
     private QuantityWithString duration;
     private QuantityWithString quantity;
     private AmountWithDoubles totalAmount;
@@ -95,10 +92,7 @@ public class ChargeRow implements Serializable {
     }
 
     public void updateWithDiscount(String percentage) {
-        if (totalAmount != null && "NO-DISC".equals(discountCode)) {
-            setDiscount(DiscountWithDouble.createForAmount(totalAmount, percentage));
-            setTotalAmount(totalAmount.subtract(discount.getDiscountAmount()));
-        }
+        DiscountEngine.DEFAULT.apply(this, percentage);
     }
 
     public void aggregate(ChargeRow other) {
@@ -120,7 +114,7 @@ public class ChargeRow implements Serializable {
 
         if (other.getTotalAmount() != null) {
             if (this.totalAmount == null) {
-                this.totalAmount = new AmountWithDoubles(other.getTotalAmount());
+                this.totalAmount = other.getTotalAmount();
             } else {
                 this.totalAmount = this.totalAmount.add(other.getTotalAmount());
             }
@@ -189,7 +183,7 @@ public class ChargeRow implements Serializable {
 
         copy.duration = duration != null ? new QuantityWithString(duration) : null;
         copy.quantity = quantity != null ? new QuantityWithString(quantity) : null;
-        copy.totalAmount = totalAmount != null ? new AmountWithDoubles(totalAmount) : null;
+        copy.totalAmount = totalAmount;
         copy.discount = discount != null ? new DiscountWithDouble(discount) : null;
         copy.name = name;
         copy.featureCategory = featureCategory;
@@ -209,7 +203,7 @@ public class ChargeRow implements Serializable {
     }
 
     public void updateDiscountAmount(AmountWithDoubles totalAmount) {
-        if (totalAmount == null || ZERO_SCALE_TWO.equals(totalAmount.getAmount())) {
+        if (totalAmount == null || totalAmount.isZero()) {
             return;
         }
         if (this.discount == null) {
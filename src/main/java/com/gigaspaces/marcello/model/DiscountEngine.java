@@ -0,0 +1,154 @@
+package com.gigaspaces.marcello.model;
+
+import org.apache.commons.lang.Validate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Applies percentage discounts to many rows with primitive arithmetic.
+ * <p>
+ * Produces exactly the amounts of {@link DiscountWithDouble#createForAmount(AmountWithDoubles, String)}:
+ * each part is <code>value * percentage / 100</code> rounded to 2 decimals with
+ * {@link RoundingMode#HALF_DOWN}. Every distinct percentage is parsed once; the product is computed in
+ * <code>double</code> and only falls back to exact <code>BigDecimal</code> arithmetic when it lies too close
+ * to a rounding tie to decide in floating point.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class DiscountEngine {
+
+    public static final DiscountEngine DEFAULT = new DiscountEngine();
+
+    private static final String NO_DISCOUNT_CODE = "NO-DISC";
+    private static final int MAX_RATES = 1024;
+    private static final double MAX_EXACT = 1L << 52;
+    private static final double TIE_MARGIN = 1e-9;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final ConcurrentMap<String, Rate> rates = new ConcurrentHashMap<>();
+
+    /**
+     * Discounts every row of the given feature category, as {@link ChargeRow#updateWithDiscount(String)} would.
+     *
+     * @return the number of rows discounted
+     */
+    public int applyToCategory(List<ChargeRow> rows, String featureCategory, String percentage) {
+        Validate.notNull(rows, "rows can't be null");
+
+        if (percentage == null) {
+            return 0;
+        }
+        Rate rate = rate(percentage);
+        int discounted = 0;
+        for (ChargeRow row : rows) {
+            if (row.getFeatureCategory().equals(featureCategory) && apply(row, rate)) {
+                discounted++;
+            }
+        }
+        return discounted;
+    }
+
+    /**
+     * @return true when the row qualified for the discount
+     */
+    public boolean apply(ChargeRow row, String percentage) {
+        return percentage != null && apply(row, rate(percentage));
+    }
+
+    /**
+     * Same result as {@link DiscountWithDouble#createForAmount(AmountWithDoubles, String)}.
+     */
+    public DiscountWithDouble createForAmount(AmountWithDoubles amount, String percentage) {
+        if (amount == null || percentage == null) {
+            return null;
+        }
+        return new DiscountWithDouble(percentage, discountAmount(amount, rate(percentage)));
+    }
+
+    private boolean apply(ChargeRow row, Rate rate) {
+        AmountWithDoubles total = row.getTotalAmount();
+        if (total == null || !NO_DISCOUNT_CODE.equals(row.getDiscountCode())) {
+            return false;
+        }
+        AmountWithDoubles discountAmount = discountAmount(total, rate);
+        row.setDiscount(new DiscountWithDouble(rate.percentage, discountAmount));
+        if (discountAmount.isZero() && total.getAmountExcludingVat() != null && total.getVat() != null) {
+            return true;
+        }
+
+        // same as total.subtract(discountAmount), which never drops the vat fields to null
+        double amountExcludingVat = total.getAmountExcludingVat() != null
+                ? total.getAmountExcludingVat() - discountAmount.getAmountExcludingVat() : 0d;
+        double vat = total.getVat() != null ? total.getVat() - discountAmount.getVat() : 0d;
+        row.setTotalAmount(new AmountWithDoubles(total.getAmount() - discountAmount.getAmount(), amountExcludingVat, vat, total.getCurrency()));
+        return true;
+    }
+
+    private static AmountWithDoubles discountAmount(AmountWithDoubles amount, Rate rate) {
+        double discount = part(amount.getAmount(), rate);
+        Double amountExcludingVat = amount.getAmountExcludingVat() != null ? part(amount.getAmountExcludingVat(), rate) : null;
+        Double vat = amount.getVat() != null ? part(amount.getVat(), rate) : null;
+        if (isPositiveZero(discount) && (amountExcludingVat == null || isPositiveZero(amountExcludingVat))
+                && (vat == null || isPositiveZero(vat))) {
+            return AmountWithDoubles.zeroLike(amount);
+        }
+        return new AmountWithDoubles(discount, amountExcludingVat, vat, amount.getCurrency());
+    }
+
+    /**
+     * The shared zero amounts hold <code>0.0</code>, which {@link Double#equals(Object)} tells apart from <code>-0.0</code>.
+     */
+    private static boolean isPositiveZero(double value) {
+        return Double.doubleToRawLongBits(value) == 0L;
+    }
+
+    /**
+     * @return <code>value * percentage / 100</code> rounded HALF_DOWN to 2 decimals
+     */
+    static double part(double value, Rate rate) {
+        // value * percentage / 100, scaled by 100 to round to an integer number of cents
+        double scaled = value * rate.value;
+        double magnitude = Math.abs(scaled);
+        if (magnitude < MAX_EXACT) {
+            double cents = Math.floor(magnitude);
+            double fraction = magnitude - cents;
+            if (Math.abs(fraction - 0.5) > TIE_MARGIN * Math.max(1d, magnitude)) {
+                if (fraction > 0.5) {
+                    cents++;
+                }
+                return cents == 0 ? 0d : Math.copySign(cents / 100, scaled);
+            }
+        }
+        return new BigDecimal(value).multiply(rate.factor).setScale(2, RoundingMode.HALF_DOWN).doubleValue();
+    }
+
+    private Rate rate(String percentage) {
+        Rate rate = rates.get(percentage);
+        if (rate == null) {
+            if (rates.size() >= MAX_RATES) {
+                rates.clear();
+            }
+            rate = new Rate(percentage);
+            rates.putIfAbsent(percentage, rate);
+        }
+        return rate;
+    }
+
+    static final class Rate {
+        final String percentage;
+        final double value;
+        final BigDecimal factor;
+
+        Rate(String percentage) {
+            BigDecimal parsed = new BigDecimal(percentage);
+            this.percentage = percentage;
+            this.value = parsed.doubleValue();
+            this.factor = parsed.divide(HUNDRED);
+        }
+    }
+}
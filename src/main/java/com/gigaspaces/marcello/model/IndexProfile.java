@@ -0,0 +1,190 @@
+package com.gigaspaces.marcello.model;
+
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The properties and paths a deployment indexes on the {@link ChargeData} types, and with which index type.
+ * <p>
+ * The types declare the indexes of {@link #FULL} with annotations, so a space that never registers a profile,
+ * a pu.xml deployment included, indexes everything the queries use. A profile registered with {@link #register}
+ * before the first document of a type is written overrides the annotations: ingest clusters can then skip the
+ * extended period and telephone indexes that only query clusters need, which cost a skip list node per document
+ * on every write. Profiles are either one of the presets or declared as <code>path:TYPE</code> pairs, for
+ * example from a system property:
+ * </p>
+ * <pre>
+ * IndexProfile.parse("billing", "customerAccountId:BASIC,period.start:EXTENDED")
+ *         .register(gigaSpace, SubscriberChargeData.class, AccountChargeData.class);
+ * </pre>
+ * The id and the routing property <code>customerAccountId</code> are part of every profile.
+ *
+ * @since 10.2
+ */
+public class IndexProfile {
+
+    /**
+     * Every index the queries of this project use; the indexes the types are annotated with.
+     */
+    public static final IndexProfile FULL = new IndexProfile("full", indexes(
+            "customerAccountId", SpaceIndexType.BASIC,
+            "billSequence", SpaceIndexType.BASIC,
+            "period.start", SpaceIndexType.EXTENDED,
+            "period.end", SpaceIndexType.EXTENDED,
+            "telephoneKey", SpaceIndexType.EXTENDED,
+            "telephoneNumber", SpaceIndexType.BASIC));
+
+    /**
+     * What bill runs and account rebuilds need; period and telephone queries scan.
+     */
+    public static final IndexProfile INGEST = new IndexProfile("ingest", indexes(
+            "customerAccountId", SpaceIndexType.BASIC,
+            "billSequence", SpaceIndexType.BASIC));
+
+    /**
+     * The routing property only.
+     */
+    public static final IndexProfile MINIMAL = new IndexProfile("minimal", indexes(
+            "customerAccountId", SpaceIndexType.BASIC));
+
+    private final String name;
+    private final Map<String, SpaceIndexType> indexes;
+
+    public IndexProfile(String name, Map<String, SpaceIndexType> indexes) {
+        Validate.notEmpty(name, "name can't be empty");
+        Validate.notNull(indexes, "indexes can't be null");
+
+        Map<String, SpaceIndexType> copy = new LinkedHashMap<>();
+        copy.put("customerAccountId", SpaceIndexType.BASIC);
+        copy.putAll(indexes);
+        Validate.isTrue(copy.get("customerAccountId") != SpaceIndexType.NONE, "the routing property must be indexed");
+        this.name = name;
+        this.indexes = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return a preset by name, or a profile declared as comma separated <code>path:TYPE</code> pairs
+     */
+    public static IndexProfile parse(String name, String spec) {
+        Validate.notEmpty(name, "name can't be empty");
+
+        if (spec == null || spec.trim().isEmpty()) {
+            for (IndexProfile preset : new IndexProfile[]{FULL, INGEST, MINIMAL}) {
+                if (preset.name.equalsIgnoreCase(name)) {
+                    return preset;
+                }
+            }
+            throw new IllegalArgumentException("no index profile named " + name);
+        }
+        Map<String, SpaceIndexType> indexes = new LinkedHashMap<>();
+        for (String index : spec.split(",")) {
+            String[] pathAndType = index.trim().split(":");
+            Validate.isTrue(pathAndType.length == 2, "index must be path:TYPE, was " + index);
+            indexes.put(pathAndType[0].trim(), SpaceIndexType.valueOf(pathAndType[1].trim().toUpperCase()));
+        }
+        return new IndexProfile(name, indexes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the indexed paths in declaration order, including those a given type doesn't have
+     */
+    public Map<String, SpaceIndexType> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @return the indexes of the profile that apply to the type, skipping paths whose property it doesn't have
+     */
+    public Map<String, SpaceIndexType> indexesOf(Class<? extends ChargeData> type) {
+        Map<String, SpaceIndexType> applicable = new LinkedHashMap<>();
+        for (Map.Entry<String, SpaceIndexType> index : indexes.entrySet()) {
+            if (index.getValue() != SpaceIndexType.NONE && hasProperty(type, index.getKey().split("\\.")[0])) {
+                applicable.put(index.getKey(), index.getValue());
+            }
+        }
+        return applicable;
+    }
+
+    /**
+     * @return the descriptor of the type with the profile's indexes; every annotated index the profile leaves out
+     * is declared {@link SpaceIndexType#NONE}, so the descriptor overrides the annotations
+     */
+    public SpaceTypeDescriptor descriptorFor(Class<? extends ChargeData> type) {
+        Validate.notNull(type, "type can't be null");
+
+        Map<String, SpaceIndexType> declared = new LinkedHashMap<>();
+        for (String annotated : FULL.indexesOf(type).keySet()) {
+            declared.put(annotated, SpaceIndexType.NONE);
+        }
+        declared.putAll(indexesOf(type));
+
+        SpaceTypeDescriptorBuilder builder = new SpaceTypeDescriptorBuilder(type, null)
+                .idProperty("id")
+                .routingProperty("customerAccountId", indexes.get("customerAccountId"));
+        for (Map.Entry<String, SpaceIndexType> index : declared.entrySet()) {
+            if (index.getKey().equals("customerAccountId")) {
+                continue;
+            }
+            if (index.getKey().contains(".")) {
+                builder.addPathIndex(index.getKey(), index.getValue());
+            } else {
+                builder.addPropertyIndex(index.getKey(), index.getValue());
+            }
+        }
+        return builder.create();
+    }
+
+    /**
+     * Registers the types with the profile's indexes in place of the annotated ones; has no effect on a type the
+     * space already knows.
+     */
+    @SafeVarargs
+    public final void register(GigaSpace gigaSpace, Class<? extends ChargeData>... types) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+
+        for (Class<? extends ChargeData> type : types) {
+            gigaSpace.getTypeManager().registerTypeDescriptor(descriptorFor(type));
+        }
+    }
+
+    private static boolean hasProperty(Class<?> type, String property) {
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (method.getParameterTypes().length == 0 && name.startsWith("get") && name.length() > 3
+                    && Introspector.decapitalize(name.substring(3)).equals(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, SpaceIndexType> indexes(Object... pathsAndTypes) {
+        Map<String, SpaceIndexType> indexes = new LinkedHashMap<>();
+        for (int i = 0; i < pathsAndTypes.length; i += 2) {
+            indexes.put((String) pathsAndTypes[i], (SpaceIndexType) pathsAndTypes[i + 1]);
+        }
+        return indexes;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("name", name)
+                .add("indexes", indexes)
+                .toString();
+    }
+}
@@ -3,10 +3,8 @@
  **************************************************************************************************/
 package com.gigaspaces.marcello.model;
 
+import com.google.common.base.Objects;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.CompareToBuilder;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -132,18 +130,13 @@ public class Quantity implements Serializable, Comparable<Quantity> {
         }
 
         Quantity other = (Quantity) object;
-        return new EqualsBuilder()
-            .append(this.quantity, other.getQuantity())
-            .append(this.unit, other.getUnit())
-            .isEquals();
+        return Objects.equal(this.quantity, other.quantity)
+            && Objects.equal(this.unit, other.unit);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-            .append(getQuantity())
-            .append(getUnit())
-            .toHashCode();
+        return ValueObjects.hash(quantity, unit);
     }
 
     @Override
@@ -153,10 +146,8 @@ public class Quantity implements Serializable, Comparable<Quantity> {
 
     @Override
     public int compareTo(Quantity other) {
-        return new CompareToBuilder()
-            .append(getQuantity(), other.getQuantity())
-            .append(getUnit(), other.getUnit())
-            .toComparison();
+        int result = ValueObjects.compare(quantity, other.quantity);
+        return result != 0 ? result : ValueObjects.compare(unit, other.unit);
     }
 
     /**
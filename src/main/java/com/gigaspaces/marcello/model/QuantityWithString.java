@@ -3,10 +3,8 @@
  **************************************************************************************************/
 package com.gigaspaces.marcello.model;
 
+import com.google.common.base.Objects;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.CompareToBuilder;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -101,18 +99,13 @@ public class QuantityWithString implements Serializable, Comparable<QuantityWith
         }
 
         QuantityWithString other = (QuantityWithString) object;
-        return new EqualsBuilder()
-            .append(this.quantity, other.getQuantity())
-            .append(this.unit, other.getUnit())
-            .isEquals();
+        return Objects.equal(this.quantity, other.quantity)
+            && Objects.equal(this.unit, other.unit);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-            .append(getQuantity())
-            .append(getUnit())
-            .toHashCode();
+        return ValueObjects.hash(quantity, unit);
     }
 
     @Override
@@ -122,10 +115,8 @@ public class QuantityWithString implements Serializable, Comparable<QuantityWith
 
     @Override
     public int compareTo(QuantityWithString other) {
-        return new CompareToBuilder()
-            .append(getQuantity(), other.getQuantity())
-            .append(getUnit(), other.getUnit())
-            .toComparison();
+        int result = ValueObjects.compare(quantity, other.quantity);
+        return result != 0 ? result : ValueObjects.compare(unit, other.unit);
     }
 
     /**
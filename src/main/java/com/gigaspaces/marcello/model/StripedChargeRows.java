@@ -0,0 +1,191 @@
+package com.gigaspaces.marcello.model;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rows of one {@link ChargeData} that many threads can add to at once, aggregated exactly like
+ * {@link ChargeData#addRow(ChargeRow)} does.
+ * <p>
+ * Rows only ever aggregate with rows of the same name and feature category, so the rows are striped by that
+ * key: threads adding rows of different keys take different locks, and only rows of the same key serialize.
+ * {@link #snapshot()} takes every stripe lock, so it never sees a row half aggregated; write it back with
+ * {@link #writeTo(ChargeData)} before serializing or writing the document to the space.
+ * </p>
+ * <pre>
+ * StripedChargeRows rows = new StripedChargeRows(document, 16);
+ * // on any number of threads
+ * rows.addRow(usage);
+ * // once the streams are done
+ * rows.writeTo(document);
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class StripedChargeRows {
+
+    private static final Comparator<Slot> BY_SEQUENCE = new Comparator<Slot>() {
+        @Override
+        public int compare(Slot left, Slot right) {
+            return Long.compare(left.sequence, right.sequence);
+        }
+    };
+
+    private final boolean accountLevel;
+    private final ReentrantLock[] locks;
+    private final List<Map<RowKey, List<Slot>>> stripes;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param document the document whose rows, copied, the stripes start from
+     * @param stripes  the number of locks, rounded up to a power of two
+     */
+    public StripedChargeRows(ChargeData document, int stripes) {
+        Validate.notNull(document, "document can't be null");
+        Validate.isTrue(stripes > 0, "stripes must be positive");
+
+        int count = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.accountLevel = document.isAccountLevel();
+        this.locks = new ReentrantLock[count];
+        this.stripes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock();
+            this.stripes.add(new HashMap<RowKey, List<Slot>>());
+        }
+        if (document.getChargeRows() != null) {
+            for (ChargeRow row : document.getChargeRows()) {
+                // stored rows are not aggregated with each other, as in ChargeData
+                RowKey key = new RowKey(row);
+                append(this.stripes.get(stripeOf(key)), key, row.copy());
+            }
+        }
+    }
+
+    public void addRow(ChargeRow chargeRow) {
+        Validate.notNull(chargeRow, "chargeRow can't be null");
+
+        RowKey key = new RowKey(chargeRow);
+        int stripe = stripeOf(key);
+        locks[stripe].lock();
+        try {
+            Map<RowKey, List<Slot>> rows = stripes.get(stripe);
+            List<Slot> sameKey = rows.get(key);
+            ChargeRow rowToAggregate = null;
+            if (sameKey != null) {
+                for (Slot slot : sameKey) {
+                    if (slot.row.shouldBeAggregatedWith(chargeRow, accountLevel)) {
+                        rowToAggregate = slot.row;
+                    }
+                }
+            }
+            if (rowToAggregate != null) {
+                rowToAggregate.aggregate(chargeRow);
+            } else {
+                append(rows, key, chargeRow);
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public void addRows(List<ChargeRow> chargeRows) {
+        if (chargeRows != null) {
+            for (ChargeRow chargeRow : chargeRows) {
+                addRow(chargeRow);
+            }
+        }
+    }
+
+    /**
+     * @return copies of the rows, in the order they were first added, as of one instant
+     */
+    public List<ChargeRow> snapshot() {
+        List<Slot> slots = new ArrayList<>();
+        List<ChargeRow> rows = new ArrayList<>();
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            for (Map<RowKey, List<Slot>> stripe : stripes) {
+                for (List<Slot> sameKey : stripe.values()) {
+                    slots.addAll(sameKey);
+                }
+            }
+            Collections.sort(slots, BY_SEQUENCE);
+            for (Slot slot : slots) {
+                rows.add(slot.row.copy());
+            }
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Replaces the rows of the document with a {@link #snapshot()}.
+     */
+    public void writeTo(ChargeData document) {
+        Validate.notNull(document, "document can't be null");
+
+        document.setChargeRows(snapshot());
+    }
+
+    private void append(Map<RowKey, List<Slot>> rows, RowKey key, ChargeRow row) {
+        List<Slot> sameKey = rows.get(key);
+        if (sameKey == null) {
+            sameKey = new ArrayList<>(1);
+            rows.put(key, sameKey);
+        }
+        sameKey.add(new Slot(row, sequence.getAndIncrement()));
+    }
+
+    private int stripeOf(RowKey key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    private static final class Slot {
+        private final ChargeRow row;
+        private final long sequence;
+
+        Slot(ChargeRow row, long sequence) {
+            this.row = row;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class RowKey {
+        private final String name;
+        private final String featureCategory;
+
+        RowKey(ChargeRow row) {
+            this.name = row.getName();
+            this.featureCategory = row.getFeatureCategory();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(name, featureCategory);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RowKey)) {
+                return false;
+            }
+            RowKey other = (RowKey) obj;
+            return Objects.equal(name, other.name) && Objects.equal(featureCategory, other.featureCategory);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.gigaspaces.marcello.model;
 
 import com.gigaspaces.annotation.pojo.SpaceClass;
 import com.gigaspaces.annotation.pojo.SpaceIndex;
+import com.gigaspaces.metadata.index.SpaceIndexType;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
@@ -16,6 +17,7 @@ public class SubscriberChargeData extends ChargeData {
 
 
     private TelephoneNumber telephoneNumber;
+    private Long telephoneKey;
 
     public SubscriberChargeData() {
 
@@ -27,11 +29,14 @@ public class SubscriberChargeData extends ChargeData {
 
     public SubscriberChargeData(String customerAccountId, int billSequence, TelephoneNumber telephoneNumber, TimePeriod period) {
         super(customerAccountId, billSequence, period);
-        this.telephoneNumber = telephoneNumber;
+        setTelephoneNumber(telephoneNumber);
         setId(customerAccountId + "_" + billSequence + "_" + telephoneNumber.getCountryCode() + telephoneNumber.getLocalNumber());
     }
 
 
+    /**
+     * Indexed for the numbers too long for a {@link TelephoneNumberKey}, which lookups match on the number itself.
+     */
     @SpaceIndex
     public TelephoneNumber getTelephoneNumber() {
         return telephoneNumber;
@@ -39,6 +44,19 @@ public class SubscriberChargeData extends ChargeData {
 
     public void setTelephoneNumber(TelephoneNumber telephoneNumber) {
         this.telephoneNumber = telephoneNumber;
+        this.telephoneKey = telephoneNumber != null ? TelephoneNumberKey.of(telephoneNumber) : null;
+    }
+
+    /**
+     * The telephone number packed by {@link TelephoneNumberKey}, indexed for exact and prefix lookups.
+     */
+    @SpaceIndex(type = SpaceIndexType.EXTENDED)
+    public Long getTelephoneKey() {
+        return telephoneKey;
+    }
+
+    public void setTelephoneKey(Long telephoneKey) {
+        this.telephoneKey = telephoneKey;
     }
 
     @Override
@@ -78,12 +96,9 @@ public class SubscriberChargeData extends ChargeData {
         for (ChargeRow discountRow : discountRows) {
             if ( discountRow.getDiscount().getDiscountAmount() == null ){
                 getChargeRows().remove(discountRow);
+                invalidateRowIndex();
             }
-            for (ChargeRow chargeRow : getChargeRows()) {
-                if (chargeRow.getFeatureCategory().equals(discountRow.getFeatureCategory())) {
-                    chargeRow.updateWithDiscount(discountRow.getDiscount().getPercentage());
-                }
-            }
+            DiscountEngine.DEFAULT.applyToCategory(getChargeRows(), discountRow.getFeatureCategory(), discountRow.getDiscount().getPercentage());
         }
 
     }
@@ -6,14 +6,11 @@ package com.gigaspaces.marcello.model;
 import java.io.Serializable;
 import java.util.regex.Pattern;
 
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
+import com.google.common.base.Objects;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.Phonenumber.*;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 /**
  * Represents a telephone number by the 2 digit ISO country code with a local number.
@@ -33,6 +30,11 @@ public class TelephoneNumber implements Serializable, Comparable<TelephoneNumber
      */
     private String localNumber;
 
+    /**
+     * Cached hash code, 0 until first computed.
+     */
+    private transient int hash;
+
     private static final Pattern COUNTRY_CODE_PATTERN = Pattern.compile("^\\d{1,4}$");
     private static final Pattern LOCAL_NUMBER_PATTERN = Pattern.compile("^\\d+$");
 
@@ -128,18 +130,21 @@ public class TelephoneNumber implements Serializable, Comparable<TelephoneNumber
         }
         
         TelephoneNumber other = (TelephoneNumber) object;
-        return new EqualsBuilder()
-                .append(this.countryCode, other.getCountryCode())
-                .append(this.localNumber, other.getLocalNumber())
-                .isEquals();
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        return Objects.equal(this.localNumber, other.localNumber)
+                && Objects.equal(this.countryCode, other.countryCode);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(getCountryCode())
-                .append(getLocalNumber())
-                .toHashCode();
+        int result = hash;
+        if (result == 0) {
+            result = ValueObjects.hash(countryCode, localNumber);
+            hash = result;
+        }
+        return result;
     }
 
     @Override
@@ -153,6 +158,7 @@ public class TelephoneNumber implements Serializable, Comparable<TelephoneNumber
 
     @Override
     public int compareTo(TelephoneNumber o) {
-        return ComparisonChain.start().compare(countryCode, o.countryCode, Ordering.natural().nullsFirst()).compare(localNumber, o.localNumber, Ordering.natural().nullsFirst()).result();
+        int result = ValueObjects.compare(countryCode, o.countryCode);
+        return result != 0 ? result : ValueObjects.compare(localNumber, o.localNumber);
     }
 }
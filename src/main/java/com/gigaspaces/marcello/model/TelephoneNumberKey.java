@@ -0,0 +1,103 @@
+package com.gigaspaces.marcello.model;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Packs a {@link TelephoneNumber} into a single <code>long</code> that can be indexed and range-queried.
+ * <p>
+ * The key is <code>countryCodeLength * 11^15 + digits</code>, where <code>digits</code> is the country code followed
+ * by the local number written left-aligned in base 11: each digit <code>d</code> as <code>d + 1</code>, padded with
+ * zeros to {@link #MAX_DIGITS} places. Left-aligning the digits makes every number sharing a prefix fall in one
+ * contiguous key range, the country code length keeps <code>46/123</code> apart from <code>4/6123</code>, and
+ * padding with a value no digit takes keeps <code>4612</code> apart from <code>46120</code> and out of the range
+ * of the prefix <code>46120</code>. Numbers of more than {@link #MAX_DIGITS} digits, the E.164 maximum, have no key.
+ * </p>
+ * <p>
+ * Keys stored by the earlier base 10 encoding don't match these; rewrite them with
+ * {@link com.gigaspaces.marcello.client.TelephoneKeyMigrationTask}.
+ * </p>
+ *
+ * @since 10.2
+ */
+public final class TelephoneNumberKey {
+
+    public static final int MAX_DIGITS = 15;
+
+    private static final int RADIX = 11;
+    private static final long[] POWERS = new long[MAX_DIGITS + 1];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i <= MAX_DIGITS; i++) {
+            POWERS[i] = POWERS[i - 1] * RADIX;
+        }
+    }
+
+    private static final long DIGITS_SPAN = POWERS[MAX_DIGITS];
+
+    private TelephoneNumberKey() {
+    }
+
+    /**
+     * @return the number's key, or null when it has more than {@link #MAX_DIGITS} digits
+     */
+    public static Long of(TelephoneNumber telephoneNumber) {
+        Validate.notNull(telephoneNumber, "telephoneNumber can't be null");
+
+        String countryCode = telephoneNumber.getCountryCode();
+        String localNumber = telephoneNumber.getLocalNumber();
+        int length = countryCode.length() + localNumber.length();
+        if (length > MAX_DIGITS) {
+            return null;
+        }
+        long digits = append(append(0, countryCode), localNumber);
+        return countryCode.length() * DIGITS_SPAN + digits * POWERS[MAX_DIGITS - length];
+    }
+
+    /**
+     * @return the lowest key of the numbers in the country
+     */
+    public static long countryCodeFrom(String countryCode) {
+        return prefixFrom(countryCode, "");
+    }
+
+    /**
+     * @return the key just above the numbers in the country
+     */
+    public static long countryCodeTo(String countryCode) {
+        return prefixTo(countryCode, "");
+    }
+
+    /**
+     * @return the lowest key of the numbers in the country whose local number starts with the prefix
+     */
+    public static long prefixFrom(String countryCode, String localPrefix) {
+        return countryCode.length() * DIGITS_SPAN + prefixDigits(countryCode, localPrefix);
+    }
+
+    /**
+     * @return the key just above the numbers in the country whose local number starts with the prefix
+     */
+    public static long prefixTo(String countryCode, String localPrefix) {
+        int length = countryCode.length() + localPrefix.length();
+        return countryCode.length() * DIGITS_SPAN + prefixDigits(countryCode, localPrefix) + POWERS[MAX_DIGITS - length];
+    }
+
+    private static long prefixDigits(String countryCode, String localPrefix) {
+        Validate.notEmpty(countryCode, "countryCode can't be empty");
+        Validate.notNull(localPrefix, "localPrefix can't be null");
+        int length = countryCode.length() + localPrefix.length();
+        Validate.isTrue(length <= MAX_DIGITS, "prefix can't be longer than " + MAX_DIGITS + " digits");
+
+        return append(append(0, countryCode), localPrefix) * POWERS[MAX_DIGITS - length];
+    }
+
+    private static long append(long value, String digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            Validate.isTrue(c >= '0' && c <= '9', "only digits are allowed");
+            value = value * RADIX + (c - '0' + 1);
+        }
+        return value;
+    }
+}
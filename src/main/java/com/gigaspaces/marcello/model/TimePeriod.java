@@ -7,9 +7,8 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.GregorianCalendar;
 
+import com.google.common.base.Objects;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.time.DateUtils;
 
@@ -34,6 +33,11 @@ public class TimePeriod implements Serializable, Comparable<TimePeriod> {
      */
     private Date end;
 
+    /**
+     * Cached hash code, 0 until first computed. The dates returned by the getters must not be modified.
+     */
+    private transient int hash;
+
     public TimePeriod(Date start, Date end) {
         this.start = start;
         this.end = end;
@@ -81,18 +85,21 @@ public class TimePeriod implements Serializable, Comparable<TimePeriod> {
         }
         
         TimePeriod other = (TimePeriod) object;
-        return new EqualsBuilder()
-                .append(this.start, other.getStart())
-                .append(this.end, other.getEnd())
-                .isEquals();
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        return Objects.equal(this.start, other.start)
+                && Objects.equal(this.end, other.end);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(getStart())
-                .append(getEnd())
-                .toHashCode();
+        int result = hash;
+        if (result == 0) {
+            result = ValueObjects.hash(start, end);
+            hash = result;
+        }
+        return result;
     }
 
     @Override
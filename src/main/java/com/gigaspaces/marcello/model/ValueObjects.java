@@ -0,0 +1,43 @@
+package com.gigaspaces.marcello.model;
+
+/**
+ * Allocation-free helpers for the <code>equals</code>, <code>hashCode</code> and <code>compareTo</code> of the
+ * value types, producing the same results as the commons-lang builders they replace:
+ * hashes are <code>17 * 37^n + ...</code> as with <code>new HashCodeBuilder(17, 37)</code>, and nulls compare
+ * first as with <code>CompareToBuilder</code>.
+ *
+ * @since 10.2
+ */
+final class ValueObjects {
+
+    static final int SEED = 17;
+    static final int MULTIPLIER = 37;
+
+    private ValueObjects() {
+    }
+
+    static int hash(int hash, Object value) {
+        return hash * MULTIPLIER + (value == null ? 0 : value.hashCode());
+    }
+
+    static int hash(Object first, Object second) {
+        return hash(hash(SEED, first), second);
+    }
+
+    static int hash(Object first, Object second, Object third) {
+        return hash(hash(hash(SEED, first), second), third);
+    }
+
+    static <T extends Comparable<? super T>> int compare(T left, T right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        return left.compareTo(right);
+    }
+}
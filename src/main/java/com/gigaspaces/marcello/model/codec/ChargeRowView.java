@@ -0,0 +1,120 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.ChargeRow;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight cursor over the rows of a {@link LazyRowList}.
+ * <p>
+ * Reads <code>name</code>, <code>groupName</code> and the total amount of the current row directly from
+ * the serialized bytes, without decoding the row. Rows that were already decoded are read from the object,
+ * since it may have been modified. A view is not thread-safe; create one per thread.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class ChargeRowView {
+
+    private final LazyRowList list;
+    private ByteBuffer buffer;
+    private int index = -1;
+    private int rowStart;
+    private ChargeRow row;
+
+    ChargeRowView(LazyRowList list) {
+        this.list = list;
+    }
+
+    public ChargeRowView moveTo(int index) {
+        this.index = index;
+        this.row = list.decodedRow(index);
+        if (row == null) {
+            if (buffer == null) {
+                buffer = list.body().duplicate();
+            }
+            list.position(buffer, index);
+            rowStart = buffer.position();
+        }
+        return this;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        if (row != null) {
+            return row.getName();
+        }
+        buffer.position(rowStart + 1);
+        return RowEncoding.readString(buffer);
+    }
+
+    public boolean nameEqualsIgnoreCase(String name) {
+        if (row != null) {
+            return name.equalsIgnoreCase(row.getName());
+        }
+        buffer.position(rowStart + 1);
+        return RowEncoding.stringEqualsIgnoreCase(buffer, name);
+    }
+
+    public String getGroupName() {
+        if (row != null) {
+            return row.getGroupName();
+        }
+        buffer.position(rowStart + 1);
+        RowEncoding.skipString(buffer);
+        return RowEncoding.readString(buffer);
+    }
+
+    public boolean hasTotalAmount() {
+        if (row != null) {
+            return row.getTotalAmount() != null;
+        }
+        return (buffer.get(rowStart) & RowEncoding.TOTAL_AMOUNT) != 0;
+    }
+
+    /**
+     * @return the <code>amount</code> of the row's total, NaN when there is no total or its amount is null
+     */
+    public double getAmount() {
+        if (row != null) {
+            return row.getTotalAmount() != null && row.getTotalAmount().getAmount() != null
+                    ? row.getTotalAmount().getAmount() : Double.NaN;
+        }
+        if (!hasTotalAmount()) {
+            return Double.NaN;
+        }
+        skipToTotalAmount();
+        return RowEncoding.peekAmount(buffer);
+    }
+
+    /**
+     * @return the currency of the row's total, null when there is no total
+     */
+    public String getCurrency() {
+        if (row != null) {
+            return row.getTotalAmount() != null ? row.getTotalAmount().getCurrency() : null;
+        }
+        if (!hasTotalAmount()) {
+            return null;
+        }
+        skipToTotalAmount();
+        return RowEncoding.peekCurrency(buffer);
+    }
+
+    /**
+     * @return the fully decoded row, cached by the list
+     */
+    public ChargeRow toChargeRow() {
+        row = list.get(index);
+        return row;
+    }
+
+    private void skipToTotalAmount() {
+        buffer.position(rowStart + 1);
+        RowEncoding.skipString(buffer);
+        RowEncoding.skipString(buffer);
+    }
+}
@@ -0,0 +1,153 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.ChargeRow;
+import org.apache.commons.lang.Validate;
+
+import java.io.ByteArrayInputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A row list that is stored encoded by a {@link RowCodec} and decoded lazily on first access.
+ * <p>
+ * A list that was read but never accessed is written back with its original bytes, so the space and
+ * the blobstore only pay for decoding when the rows are actually used. Once decoded, the list behaves
+ * like an <code>ArrayList</code> and is encoded again when serialized.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class CompressedRowList extends AbstractList<ChargeRow> implements Externalizable, RandomAccess {
+    private static final long serialVersionUID = -2406233766585651398L;
+
+    private RowCodec codec;
+    private int rawLength;
+    private byte[] encoded;
+    private List<ChargeRow> rows;
+
+    /**
+     * For deserialization only.
+     */
+    public CompressedRowList() {
+    }
+
+    public CompressedRowList(Collection<ChargeRow> rows, RowCodec codec) {
+        Validate.notNull(rows, "rows can't be null");
+        Validate.notNull(codec, "codec can't be null");
+
+        this.rows = new ArrayList<>(rows);
+        this.codec = codec;
+    }
+
+    private CompressedRowList(RowCodec codec, List<ChargeRow> rows) {
+        this.rows = rows;
+        this.codec = codec;
+    }
+
+    /**
+     * @return the given rows encoded with the codec; the rows themselves when either is null
+     * or they are already encoded. The result is backed by the given list, not a copy of it: a change
+     * to either is seen through the other, and is encoded when the result is serialized.
+     */
+    public static List<ChargeRow> wrap(List<ChargeRow> rows, RowCodec codec) {
+        if (rows == null || codec == null || rows instanceof CompressedRowList) {
+            return rows;
+        }
+        return new CompressedRowList(codec, rows);
+    }
+
+    public RowCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return true while the rows are still held in their encoded form
+     */
+    public synchronized boolean isEncoded() {
+        return rows == null;
+    }
+
+    /**
+     * @return the size of the encoded payload, or -1 once the rows were decoded
+     */
+    public synchronized int getEncodedLength() {
+        return rows == null ? encoded.length : -1;
+    }
+
+    @Override
+    public ChargeRow get(int index) {
+        return rows().get(index);
+    }
+
+    @Override
+    public ChargeRow set(int index, ChargeRow element) {
+        return rows().set(index, element);
+    }
+
+    @Override
+    public void add(int index, ChargeRow element) {
+        rows().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public ChargeRow remove(int index) {
+        modCount++;
+        return rows().remove(index);
+    }
+
+    @Override
+    public int size() {
+        return rows().size();
+    }
+
+    private synchronized List<ChargeRow> rows() {
+        if (rows == null) {
+            rows = decode(codec.decode(encoded, rawLength));
+            encoded = null;
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ChargeRow> decode(byte[] raw) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(raw));
+            return (List<ChargeRow>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("failed to deserialize rows", e);
+        }
+    }
+
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        byte[] payload = encoded;
+        int length = rawLength;
+        if (rows != null) {
+            byte[] raw = RowCodecs.serialize(rows);
+            payload = codec.encode(raw);
+            length = raw.length;
+        }
+        out.writeByte(codec.getId());
+        out.writeInt(length);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException {
+        codec = RowCodecs.get(in.readByte());
+        rawLength = in.readInt();
+        encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        rows = null;
+    }
+}
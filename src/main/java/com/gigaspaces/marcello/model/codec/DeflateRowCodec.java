@@ -0,0 +1,124 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate with an optional preset dictionary.
+ * <p>
+ * A dictionary holding the strings that recur in every payload (class and field names, currencies,
+ * common row names) lets even a small row list compress well, since deflate can reference it
+ * from the first byte. The same dictionary must be used to encode and decode.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class DeflateRowCodec implements RowCodec {
+
+    private final byte id;
+    private final String name;
+    private final int level;
+    private final byte[] dictionary;
+
+    private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(level, true);
+        }
+    };
+
+    private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    /**
+     * @param level      the deflate level, {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     * @param dictionary the preset dictionary, or null for none
+     */
+    public DeflateRowCodec(byte id, String name, int level, byte[] dictionary) {
+        Validate.notEmpty(name, "name can't be empty");
+        Validate.isTrue(level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION, "level must be between 1 and 9");
+
+        this.id = id;
+        this.name = name;
+        this.level = level;
+        this.dictionary = dictionary != null ? dictionary.clone() : null;
+    }
+
+    @Override
+    public byte getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(byte[] raw) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(raw);
+        deflater.finish();
+
+        byte[] out = new byte[Math.max(64, raw.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded, int rawLength) {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        if (dictionary != null) {
+            inflater.setDictionary(dictionary);
+        }
+        inflater.setInput(encoded);
+
+        byte[] raw = new byte[rawLength];
+        int length = 0;
+        try {
+            while (length < rawLength) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupt " + name + " payload", e);
+        }
+        if (length != rawLength) {
+            throw new IllegalStateException("truncated " + name + " payload: expected " + rawLength + " bytes, got " + length);
+        }
+        return raw;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("id", id)
+                .add("name", name)
+                .add("level", level)
+                .add("dictionary", dictionary != null ? dictionary.length : 0)
+                .toString();
+    }
+}
@@ -0,0 +1,253 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.ChargeRow;
+import org.apache.commons.lang.Validate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A row list that keeps its serialized form and decodes individual rows on demand.
+ * <p>
+ * Every row is stored in the {@link RowEncoding} layout behind an offset table, so {@link #get(int)}
+ * decodes a single row and a {@link ChargeRowView} reads <code>name</code>, <code>groupName</code> and the
+ * total amount straight from the buffer. The body can additionally be compressed with a {@link RowCodec},
+ * in which case it is decompressed as a whole on first access.
+ * </p>
+ * <p>
+ * Decoded rows are cached and may be modified in place; structural changes (add, remove, set) switch the
+ * list to a plain <code>ArrayList</code>. Rows that were never decoded are written back as their original
+ * bytes.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class LazyRowList extends AbstractList<ChargeRow> implements Externalizable, RandomAccess {
+    private static final long serialVersionUID = 5046950437317622935L;
+
+    private RowCodec codec;
+    private int size;
+
+    /**
+     * The body as read, still encoded by the codec; kept so an untouched list is written back as-is.
+     */
+    private byte[] encoded;
+    private int rawLength;
+
+    /**
+     * The decoded body: <code>size + 1</code> int offsets followed by the rows.
+     */
+    private ByteBuffer body;
+    private ChargeRow[] decoded;
+
+    /**
+     * Set once the list was structurally modified or built from objects; the buffers are dropped then.
+     */
+    private List<ChargeRow> rows;
+
+    /**
+     * For deserialization only.
+     */
+    public LazyRowList() {
+    }
+
+    public LazyRowList(Collection<ChargeRow> rows, RowCodec codec) {
+        Validate.notNull(rows, "rows can't be null");
+        Validate.notNull(codec, "codec can't be null");
+
+        this.rows = new ArrayList<>(rows);
+        this.codec = codec;
+    }
+
+    private LazyRowList(RowCodec codec, List<ChargeRow> rows) {
+        this.rows = rows;
+        this.codec = codec;
+    }
+
+    /**
+     * @return a list backed by the given rows, not a copy of them: a change to either is seen through the
+     * other, and is encoded when the list is serialized
+     */
+    public static LazyRowList wrap(List<ChargeRow> rows, RowCodec codec) {
+        Validate.notNull(rows, "rows can't be null");
+        Validate.notNull(codec, "codec can't be null");
+
+        return new LazyRowList(codec, rows);
+    }
+
+    public RowCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return a flyweight cursor over this list's rows
+     */
+    public ChargeRowView view() {
+        return new ChargeRowView(this);
+    }
+
+    /**
+     * @return the index of the first row whose name equals the given name ignoring case, -1 if there is none
+     */
+    public int indexOfName(String name) {
+        ChargeRowView view = view();
+        for (int i = 0; i < size(); i++) {
+            if (view.moveTo(i).nameEqualsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized ChargeRow get(int index) {
+        if (rows != null) {
+            return rows.get(index);
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        if (decoded[index] == null) {
+            decoded[index] = RowEncoding.read(positionedAt(index));
+        }
+        return decoded[index];
+    }
+
+    @Override
+    public synchronized int size() {
+        return rows != null ? rows.size() : size;
+    }
+
+    @Override
+    public synchronized ChargeRow set(int index, ChargeRow element) {
+        return rows().set(index, element);
+    }
+
+    @Override
+    public synchronized void add(int index, ChargeRow element) {
+        rows().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public synchronized ChargeRow remove(int index) {
+        modCount++;
+        return rows().remove(index);
+    }
+
+    /**
+     * @return the decoded row at the index if it may differ from its bytes, otherwise null
+     */
+    synchronized ChargeRow decodedRow(int index) {
+        return rows != null ? rows.get(index) : decoded[index];
+    }
+
+    /**
+     * @return a buffer positioned at the start of the row, private to the caller
+     */
+    synchronized ByteBuffer positionedAt(int index) {
+        ByteBuffer buffer = body().duplicate();
+        buffer.position(buffer.getInt(index * 4));
+        return buffer;
+    }
+
+    synchronized void position(ByteBuffer buffer, int index) {
+        buffer.position(body().getInt(index * 4));
+    }
+
+    synchronized ByteBuffer body() {
+        if (body == null) {
+            body = ByteBuffer.wrap(codec.decode(encoded, rawLength));
+        }
+        return body;
+    }
+
+    private List<ChargeRow> rows() {
+        if (rows == null) {
+            List<ChargeRow> all = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                all.add(get(i));
+            }
+            rows = all;
+            encoded = null;
+            body = null;
+            decoded = null;
+        }
+        return rows;
+    }
+
+    private boolean isUntouched() {
+        if (rows != null) {
+            return false;
+        }
+        for (ChargeRow row : decoded) {
+            if (row != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(codec.getId());
+        out.writeInt(size());
+        if (isUntouched()) {
+            out.writeInt(rawLength);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+            return;
+        }
+
+        int count = size();
+        ByteArrayOutputStream rowBytes = new ByteArrayOutputStream(count * 64);
+        DataOutputStream rowOut = new DataOutputStream(rowBytes);
+        int[] offsets = new int[count + 1];
+        int headerLength = (count + 1) * 4;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = headerLength + rowOut.size();
+            ChargeRow row = decodedRow(i);
+            if (row != null) {
+                RowEncoding.write(rowOut, row);
+            } else {
+                ByteBuffer source = positionedAt(i);
+                int length = body().getInt((i + 1) * 4) - source.position();
+                rowOut.write(source.array(), source.arrayOffset() + source.position(), length);
+            }
+        }
+        offsets[count] = headerLength + rowOut.size();
+        rowOut.flush();
+
+        ByteBuffer raw = ByteBuffer.allocate(offsets[count]);
+        for (int offset : offsets) {
+            raw.putInt(offset);
+        }
+        raw.put(rowBytes.toByteArray());
+        byte[] payload = codec.encode(raw.array());
+        out.writeInt(raw.capacity());
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException {
+        codec = RowCodecs.get(in.readByte());
+        size = in.readInt();
+        rawLength = in.readInt();
+        encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        decoded = new ChargeRow[size];
+        body = null;
+        rows = null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.gigaspaces.marcello.model.codec;
+
+/**
+ * Encodes the serialized form of a row list before it is stored, e.g. by compressing it.
+ * <p>
+ * The id is written next to every encoded payload, so it must never be reused for a codec
+ * with a different format or dictionary. Implementations must be thread-safe.
+ * </p>
+ *
+ * @since 10.2
+ */
+public interface RowCodec {
+
+    byte getId();
+
+    String getName();
+
+    byte[] encode(byte[] raw);
+
+    /**
+     * @param encoded   the bytes returned by {@link #encode(byte[])}
+     * @param rawLength the length of the original input
+     */
+    byte[] decode(byte[] encoded, int rawLength);
+}
@@ -0,0 +1,211 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.ChargeRow;
+import org.apache.commons.lang.Validate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.Deflater;
+
+/**
+ * Registry of the {@link RowCodec}s known to this JVM, and the codec applied to newly set row lists.
+ * <p>
+ * The built-in codecs are registered everywhere, so a payload written by any client can be decoded by
+ * the space and by every other client. Compression of new documents is off unless a default codec is
+ * set, either with {@link #setDefault(RowCodec)} or the <code>chargeRows.codec</code> system property
+ * holding a codec name. Likewise, new row lists are stored as a {@link LazyRowList} only when
+ * {@link #setLazyRows(boolean)} or the <code>chargeRows.lazy</code> system property says so.
+ * </p>
+ *
+ * @since 10.2
+ */
+public final class RowCodecs {
+
+    public static final String CODEC_PROPERTY = "chargeRows.codec";
+    public static final String LAZY_PROPERTY = "chargeRows.lazy";
+
+    /**
+     * Strings found in every serialized row list, most frequent last so they are the cheapest to reference.
+     * Never change it: payloads encoded with {@link #DEFLATE} depend on it. Add a new codec id instead.
+     */
+    private static final String DICTIONARY_V1 =
+            "NOK SEK DKK EUR USD GBP UNLIMITED NO-DISC " +
+            "java.lang.Number java.lang.Integer java.lang.Long java.math.BigDecimal java.util.Date " +
+            "com.gigaspaces.marcello.model.TimePeriod start end Ljava/util/Date; " +
+            "com.gigaspaces.marcello.model.DiscountWithDouble percentage discountAmount " +
+            "com.gigaspaces.marcello.model.QuantityWithString quantity unit " +
+            "Lcom/gigaspaces/marcello/model/QuantityWithString; Lcom/gigaspaces/marcello/model/DiscountWithDouble; " +
+            "Lcom/gigaspaces/marcello/model/TimePeriod; Lcom/gigaspaces/marcello/model/AmountWithDoubles; " +
+            "java.util.ArrayList size " +
+            "com.gigaspaces.marcello.model.ChargeRow discountCode featureCategory groupName name " +
+            "discount duration period totalAmount java.lang.Double value " +
+            "com.gigaspaces.marcello.model.AmountWithDoubles amount amountExcludingVat amountString currency vat " +
+            "Ljava/lang/Double; Ljava/lang/String; ";
+
+    public static final RowCodec NONE = new RowCodec() {
+        @Override
+        public byte getId() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "none";
+        }
+
+        @Override
+        public byte[] encode(byte[] raw) {
+            return raw;
+        }
+
+        @Override
+        public byte[] decode(byte[] encoded, int rawLength) {
+            return encoded;
+        }
+    };
+
+    public static final RowCodec DEFLATE = new DeflateRowCodec((byte) 1, "deflate", Deflater.BEST_SPEED,
+            DICTIONARY_V1.getBytes(Charset.forName("ISO-8859-1")));
+
+    public static final RowCodec DEFLATE_NO_DICTIONARY = new DeflateRowCodec((byte) 2, "deflate-nodict", Deflater.BEST_SPEED, null);
+
+    private static final AtomicReferenceArray<RowCodec> CODECS = new AtomicReferenceArray<>(256);
+
+    private static volatile RowCodec defaultCodec;
+
+    private static volatile boolean lazyRows = Boolean.getBoolean(LAZY_PROPERTY);
+
+    static {
+        register(NONE);
+        register(DEFLATE);
+        register(DEFLATE_NO_DICTIONARY);
+        String configured = System.getProperty(CODEC_PROPERTY);
+        if (configured != null) {
+            defaultCodec = forName(configured);
+        }
+    }
+
+    private RowCodecs() {
+    }
+
+    /**
+     * @throws IllegalArgumentException when a different codec is already registered with the same id
+     */
+    public static void register(RowCodec codec) {
+        Validate.notNull(codec, "codec can't be null");
+
+        int slot = codec.getId() & 0xFF;
+        if (!CODECS.compareAndSet(slot, null, codec) && CODECS.get(slot) != codec) {
+            throw new IllegalArgumentException("codec id " + slot + " is already registered to " + CODECS.get(slot).getName());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when no codec is registered with the given id
+     */
+    public static RowCodec get(byte id) {
+        RowCodec codec = CODECS.get(id & 0xFF);
+        if (codec == null) {
+            throw new IllegalArgumentException("unknown row codec id " + (id & 0xFF));
+        }
+        return codec;
+    }
+
+    /**
+     * @throws IllegalArgumentException when no codec is registered with the given name
+     */
+    public static RowCodec forName(String name) {
+        for (int i = 0; i < CODECS.length(); i++) {
+            RowCodec codec = CODECS.get(i);
+            if (codec != null && codec.getName().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("unknown row codec " + name);
+    }
+
+    /**
+     * @return the codec applied to new row lists, or null when compression is off
+     */
+    public static RowCodec getDefault() {
+        return defaultCodec;
+    }
+
+    public static void setDefault(RowCodec codec) {
+        defaultCodec = codec;
+    }
+
+    public static boolean isLazyRows() {
+        return lazyRows;
+    }
+
+    public static void setLazyRows(boolean lazy) {
+        lazyRows = lazy;
+    }
+
+    /**
+     * @return the rows in the configured storage form; the rows themselves when no form is configured
+     * or they are already encoded. The storage form is backed by the given list, so changes made through
+     * either are kept, as they are when the list is stored as it is.
+     */
+    public static List<ChargeRow> wrap(List<ChargeRow> rows) {
+        if (rows == null || rows instanceof CompressedRowList || rows instanceof LazyRowList) {
+            return rows;
+        }
+        if (lazyRows) {
+            return LazyRowList.wrap(rows, defaultCodec != null ? defaultCodec : NONE);
+        }
+        return CompressedRowList.wrap(rows, defaultCodec);
+    }
+
+    /**
+     * @return the rows in the same storage form and codec as <code>stored</code>
+     */
+    public static List<ChargeRow> wrapLike(List<?> stored, List<ChargeRow> rows) {
+        if (stored instanceof LazyRowList) {
+            return new LazyRowList(rows, ((LazyRowList) stored).getCodec());
+        }
+        if (stored instanceof CompressedRowList) {
+            return new CompressedRowList(rows, ((CompressedRowList) stored).getCodec());
+        }
+        return rows;
+    }
+
+    /**
+     * Builds a preset dictionary from sample rows, for deployments whose names and groupNames differ
+     * from the built-in dictionary. Register the resulting codec under a new id on every client and space.
+     *
+     * @param samples     representative row lists
+     * @param maxLength   the dictionary size; deflate can't reference more than 32KB back
+     */
+    public static byte[] trainDictionary(List<List<ChargeRow>> samples, int maxLength) {
+        Validate.notNull(samples, "samples can't be null");
+        Validate.isTrue(maxLength > 0 && maxLength <= 32 * 1024, "maxLength must be between 1 and 32768");
+
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        for (List<ChargeRow> sample : samples) {
+            byte[] serialized = serialize(sample);
+            dictionary.write(serialized, 0, serialized.length);
+        }
+        byte[] bytes = dictionary.toByteArray();
+        return bytes.length <= maxLength ? bytes : Arrays.copyOfRange(bytes, bytes.length - maxLength, bytes.length);
+    }
+
+    static byte[] serialize(List<ChargeRow> rows) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 256);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(rows instanceof ArrayList ? rows : new ArrayList<>(rows));
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to serialize rows", e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.DiscountWithDouble;
+import com.gigaspaces.marcello.model.QuantityWithString;
+import com.gigaspaces.marcello.model.TimePeriod;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Date;
+
+/**
+ * Compact binary layout of a single {@link ChargeRow}, readable in place from a {@link ByteBuffer}.
+ * <p>
+ * Layout: a flags byte, <code>name</code>, <code>groupName</code>, then the optional fields in flag order.
+ * <code>name</code>, <code>groupName</code> and <code>totalAmount</code> come first so flyweight accessors
+ * reach them by skipping at most two strings. Strings are an int UTF-8 length (-1 for null) and the bytes;
+ * nullable doubles and dates are preceded by a presence bit.
+ * </p>
+ *
+ * @since 10.2
+ */
+final class RowEncoding {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final int TOTAL_AMOUNT = 1;
+    static final int QUANTITY = 1 << 1;
+    static final int DURATION = 1 << 2;
+    static final int DISCOUNT = 1 << 3;
+    static final int PERIOD = 1 << 4;
+    static final int FEATURE_CATEGORY = 1 << 5;
+    static final int DISCOUNT_CODE = 1 << 6;
+
+    private static final int AMOUNT = 1;
+    private static final int AMOUNT_EXCLUDING_VAT = 1 << 1;
+    private static final int VAT = 1 << 2;
+    private static final int AMOUNT_STRING = 1 << 3;
+    private static final int START = 1;
+    private static final int END = 1 << 1;
+
+    private RowEncoding() {
+    }
+
+    static void write(DataOutput out, ChargeRow row) throws IOException {
+        int flags = (row.getTotalAmount() != null ? TOTAL_AMOUNT : 0)
+                | (row.getQuantity() != null ? QUANTITY : 0)
+                | (row.getDuration() != null ? DURATION : 0)
+                | (row.getDiscount() != null ? DISCOUNT : 0)
+                | (row.getPeriod() != null ? PERIOD : 0)
+                | (row.getFeatureCategory() != null ? FEATURE_CATEGORY : 0)
+                | (row.getDiscountCode() != null ? DISCOUNT_CODE : 0);
+        out.writeByte(flags);
+        writeString(out, row.getName());
+        writeString(out, row.getGroupName());
+        if (row.getTotalAmount() != null) {
+            writeAmount(out, row.getTotalAmount());
+        }
+        if (row.getQuantity() != null) {
+            writeQuantity(out, row.getQuantity());
+        }
+        if (row.getDuration() != null) {
+            writeQuantity(out, row.getDuration());
+        }
+        if (row.getDiscount() != null) {
+            writeString(out, row.getDiscount().getPercentage());
+            AmountWithDoubles discountAmount = row.getDiscount().getDiscountAmount();
+            out.writeBoolean(discountAmount != null);
+            if (discountAmount != null) {
+                writeAmount(out, discountAmount);
+            }
+        }
+        if (row.getPeriod() != null) {
+            Date start = row.getPeriod().getStart();
+            Date end = row.getPeriod().getEnd();
+            out.writeByte((start != null ? START : 0) | (end != null ? END : 0));
+            out.writeLong(start != null ? start.getTime() : 0);
+            out.writeLong(end != null ? end.getTime() : 0);
+        }
+        if (row.getFeatureCategory() != null) {
+            writeString(out, row.getFeatureCategory());
+        }
+        if (row.getDiscountCode() != null) {
+            writeString(out, row.getDiscountCode());
+        }
+    }
+
+    /**
+     * Decodes the row starting at the buffer's position, leaving the position after it.
+     */
+    static ChargeRow read(ByteBuffer in) {
+        int flags = in.get();
+        ChargeRow row = new ChargeRow();
+        row.setName(readString(in));
+        row.setGroupName(readString(in));
+        if ((flags & TOTAL_AMOUNT) != 0) {
+            row.setTotalAmount(readAmount(in));
+        }
+        if ((flags & QUANTITY) != 0) {
+            row.setQuantity(readQuantity(in));
+        }
+        if ((flags & DURATION) != 0) {
+            row.setDuration(readQuantity(in));
+        }
+        if ((flags & DISCOUNT) != 0) {
+            String percentage = readString(in);
+            row.setDiscount(in.get() != 0
+                    ? new DiscountWithDouble(percentage, readAmount(in))
+                    : new DiscountWithDouble(percentage));
+        }
+        if ((flags & PERIOD) != 0) {
+            int present = in.get();
+            long start = in.getLong();
+            long end = in.getLong();
+            row.setPeriod(new TimePeriod((present & START) != 0 ? new Date(start) : null, (present & END) != 0 ? new Date(end) : null));
+        }
+        if ((flags & FEATURE_CATEGORY) != 0) {
+            row.setFeatureCategory(readString(in));
+        }
+        if ((flags & DISCOUNT_CODE) != 0) {
+            row.setDiscountCode(readString(in));
+        }
+        return row;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            in.duplicate().get(bytes);
+            value = new String(bytes, UTF_8);
+        }
+        in.position(in.position() + length);
+        return value;
+    }
+
+    static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+
+    /**
+     * Compares the string at the buffer's position without decoding it, leaving the position after it.
+     * Falls back to decoding when the bytes aren't plain ASCII.
+     */
+    static boolean stringEqualsIgnoreCase(ByteBuffer in, String expected) {
+        int start = in.position();
+        int length = in.getInt();
+        if (length < 0) {
+            return expected == null;
+        }
+        int offset = in.position();
+        in.position(offset + length);
+        if (expected == null) {
+            return false;
+        }
+        if (!isAscii(in, offset, length)) {
+            return expected.equalsIgnoreCase(reread(in, start));
+        }
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char b = (char) in.get(offset + i);
+            char c = expected.charAt(i);
+            if (b != c && Character.toUpperCase(b) != Character.toUpperCase(c) && Character.toLowerCase(b) != Character.toLowerCase(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(ByteBuffer in, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (in.get(offset + i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String reread(ByteBuffer in, int start) {
+        int end = in.position();
+        in.position(start);
+        String value = readString(in);
+        in.position(end);
+        return value;
+    }
+
+    private static void writeAmount(DataOutput out, AmountWithDoubles amount) throws IOException {
+        out.writeByte((amount.getAmount() != null ? AMOUNT : 0)
+                | (amount.getAmountExcludingVat() != null ? AMOUNT_EXCLUDING_VAT : 0)
+                | (amount.getVat() != null ? VAT : 0)
+                | (amount.getAmountString() != null ? AMOUNT_STRING : 0));
+        out.writeDouble(amount.getAmount() != null ? amount.getAmount() : 0);
+        out.writeDouble(amount.getAmountExcludingVat() != null ? amount.getAmountExcludingVat() : 0);
+        out.writeDouble(amount.getVat() != null ? amount.getVat() : 0);
+        writeString(out, amount.getCurrency());
+        if (amount.getAmountString() != null) {
+            writeString(out, amount.getAmountString());
+        }
+    }
+
+    static AmountWithDoubles readAmount(ByteBuffer in) {
+        int present = in.get();
+        double amount = in.getDouble();
+        double amountExcludingVat = in.getDouble();
+        double vat = in.getDouble();
+        String currency = readString(in);
+        if ((present & AMOUNT_STRING) != 0) {
+            return new AmountWithDoubles(readString(in), currency);
+        }
+        if ((present & (AMOUNT | AMOUNT_EXCLUDING_VAT)) == 0) {
+            return new AmountWithDoubles();
+        }
+        return new AmountWithDoubles(
+                (present & AMOUNT) != 0 ? amount : null,
+                (present & AMOUNT_EXCLUDING_VAT) != 0 ? amountExcludingVat : null,
+                (present & VAT) != 0 ? vat : null,
+                currency);
+    }
+
+    /**
+     * Reads the <code>amount</code> of the amount block at the buffer's position without decoding the block.
+     *
+     * @return the amount, or NaN when it is null
+     */
+    static double peekAmount(ByteBuffer in) {
+        int position = in.position();
+        return (in.get(position) & AMOUNT) != 0 ? in.getDouble(position + 1) : Double.NaN;
+    }
+
+    /**
+     * @return the currency of the amount block at the buffer's position, leaving the position unchanged
+     */
+    static String peekCurrency(ByteBuffer in) {
+        int position = in.position();
+        in.position(position + 1 + 3 * 8);
+        String currency = readString(in);
+        in.position(position);
+        return currency;
+    }
+
+    private static void writeQuantity(DataOutput out, QuantityWithString quantity) throws IOException {
+        writeString(out, quantity.getQuantity());
+        writeString(out, quantity.getUnit());
+    }
+
+    private static QuantityWithString readQuantity(ByteBuffer in) {
+        String quantity = readString(in);
+        return new QuantityWithString(quantity, readString(in));
+    }
+}
@@ -0,0 +1,202 @@
+package com.gigaspaces.marcello.rollup;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceExclude;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceIndex;
+import com.gigaspaces.annotation.pojo.SpaceRouting;
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.google.common.base.Objects;
+import org.apache.commons.lang.Validate;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Materialized total of the charge rows of one account, for one calendar month, one charge group and one currency.
+ * <p>
+ * <code>month</code> is encoded as <code>yyyyMM</code> in the JVM's default time zone, the same zone
+ * {@link com.gigaspaces.marcello.model.TimePeriod} is built in. Routed by <code>customerAccountId</code>,
+ * so it lives in the partition of the documents it sums.
+ * </p>
+ *
+ * @since 10.2
+ */
+@SpaceClass
+public class MonthlyRollup implements Serializable {
+    private static final long serialVersionUID = 2284517044962397823L;
+
+    private String id;
+    private String customerAccountId;
+    private Integer month;
+    private String groupName;
+    private String currency;
+    private Double amount;
+    private Double amountExcludingVat;
+    private Double vat;
+    private Integer rows;
+
+    public MonthlyRollup() {
+
+    }
+
+    public MonthlyRollup(String customerAccountId, int month, String groupName, String currency) {
+        this.id = idFor(customerAccountId, month, groupName, currency);
+        this.customerAccountId = customerAccountId;
+        this.month = month;
+        this.groupName = groupName;
+        this.currency = currency;
+        this.amount = 0d;
+        this.amountExcludingVat = 0d;
+        this.vat = 0d;
+        this.rows = 0;
+    }
+
+    public static String idFor(String customerAccountId, int month, String groupName, String currency) {
+        return customerAccountId + "_" + month + "_" + groupName + "_" + currency;
+    }
+
+    /**
+     * @return the <code>yyyyMM</code> month the date falls in
+     */
+    public static int monthOf(Date date) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTime(date);
+        return calendar.get(Calendar.YEAR) * 100 + calendar.get(Calendar.MONTH) + 1;
+    }
+
+    @SpaceId
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @SpaceIndex
+    @SpaceRouting
+    public String getCustomerAccountId() {
+        return customerAccountId;
+    }
+
+    public void setCustomerAccountId(String customerAccountId) {
+        this.customerAccountId = customerAccountId;
+    }
+
+    @SpaceIndex(type = SpaceIndexType.EXTENDED)
+    public Integer getMonth() {
+        return month;
+    }
+
+    public void setMonth(Integer month) {
+        this.month = month;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    public Double getAmountExcludingVat() {
+        return amountExcludingVat;
+    }
+
+    public void setAmountExcludingVat(Double amountExcludingVat) {
+        this.amountExcludingVat = amountExcludingVat;
+    }
+
+    public Double getVat() {
+        return vat;
+    }
+
+    public void setVat(Double vat) {
+        this.vat = vat;
+    }
+
+    /**
+     * @return the number of charge rows summed into this total
+     */
+    public Integer getRows() {
+        return rows;
+    }
+
+    public void setRows(Integer rows) {
+        this.rows = rows;
+    }
+
+    @SpaceExclude
+    public AmountWithDoubles getTotalAmount() {
+        return new AmountWithDoubles(amount, amountExcludingVat, vat, currency);
+    }
+
+    /**
+     * @return true when no rows are summed into it; whatever amounts it still holds are floating point leftovers
+     */
+    @SpaceExclude
+    public boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * @return true for a difference that leaves a rollup as it is. Compared exactly, since skipping even a tiny
+     * difference would let the rollup drift from its rows.
+     */
+    boolean changesNothing() {
+        return rows == 0 && amount == 0d && amountExcludingVat == 0d && vat == 0d;
+    }
+
+    /**
+     * Adds the given totals, scaled by <code>sign</code>, to this one.
+     */
+    void add(MonthlyRollup other, int sign) {
+        Validate.isTrue(currency.equals(other.currency), "currencies can't be different");
+
+        amount += sign * other.amount;
+        amountExcludingVat += sign * other.amountExcludingVat;
+        vat += sign * other.vat;
+        rows += sign * other.rows;
+    }
+
+    void add(AmountWithDoubles total) {
+        Validate.isTrue(currency.equals(total.getCurrency()), "currencies can't be different");
+        amount += total.getAmount() != null ? total.getAmount() : 0d;
+        amountExcludingVat += total.getAmountExcludingVat() != null ? total.getAmountExcludingVat() : 0d;
+        vat += total.getVat() != null ? total.getVat() : 0d;
+        rows++;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("ban", customerAccountId)
+                .add("month", month)
+                .add("groupName", groupName)
+                .add("amount", amount)
+                .add("currency", currency)
+                .add("rows", rows)
+                .toString();
+    }
+}
@@ -0,0 +1,230 @@
+package com.gigaspaces.marcello.rollup;
+
+import com.gigaspaces.client.ChangeResult;
+import com.gigaspaces.client.ChangeSet;
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.EntryAlreadyInSpaceException;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.transaction.manager.DistributedJiniTxManagerConfigurer;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyContainerConfigurer;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the {@link MonthlyRollup} totals of one partition up to date as documents are written, changed or removed.
+ * <p>
+ * Meant to run inside each primary partition, on the partition's embedded (non-clustered) space proxy.
+ * On every notification the document is re-read and its rows summed per month and charge group; the difference
+ * from its previous {@link RollupContribution} is then applied to the rollups with increment changes, in one
+ * local transaction with the new contribution, so a failure in between can't count a document twice or not at
+ * all. Since the current state is always re-read, late or repeated notifications can't skew the totals,
+ * and {@link #rebuild()} can safely be run over data written before the maintainer started.
+ * </p>
+ * <p>
+ * A row is bucketed by the start of its own period, or of the document's period when it has none, and by its
+ * currency. Rows without a group name or a total are left out, as in {@link ChargeData#createChargeGroupTotals()}.
+ * A rollup whose last row is gone is removed.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class PeriodRollupMaintainer<T extends ChargeData> implements Closeable {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final GigaSpace gigaSpace;
+    private final Class<T> type;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final DistributedJiniTxManagerConfigurer transactionManagerConfigurer;
+    private final PlatformTransactionManager transactionManager;
+    private final SimpleNotifyEventListenerContainer notifyContainer;
+
+    public PeriodRollupMaintainer(GigaSpace gigaSpace, Class<T> type) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(type, "type can't be null");
+
+        this.type = type;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.transactionManagerConfigurer = new DistributedJiniTxManagerConfigurer();
+        try {
+            this.transactionManager = transactionManagerConfigurer.transactionManager();
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to start the rollup transaction manager", e);
+        }
+        this.gigaSpace = new GigaSpaceConfigurer(gigaSpace.getSpace()).transactionManager(transactionManager).gigaSpace();
+        this.notifyContainer = new SimpleNotifyContainerConfigurer(gigaSpace)
+                .template(new SQLQuery<T>(type, ""))
+                .notifyWrite(true)
+                .notifyUpdate(true)
+                .notifyTake(true)
+                .notifyLeaseExpire(true)
+                .eventListener(new SpaceDataEventListener<T>() {
+                    @Override
+                    public void onEvent(T data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        refresh(data.getId(), data.getCustomerAccountId());
+                    }
+                })
+                .notifyContainer();
+    }
+
+    /**
+     * Brings the rollups in line with the current state of the given document.
+     */
+    public void refresh(String id, String customerAccountId) {
+        Validate.notNull(id, "id can't be null");
+
+        // by account, so no two transactions of this partition ever increment the same rollup
+        String lockKey = customerAccountId != null ? customerAccountId : id;
+        synchronized (locks[(lockKey.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES]) {
+            TransactionStatus transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                refreshInTransaction(id, customerAccountId);
+            } catch (RuntimeException | Error e) {
+                transactionManager.rollback(transaction);
+                throw e;
+            }
+            transactionManager.commit(transaction);
+        }
+    }
+
+    private void refreshInTransaction(String id, String customerAccountId) {
+        T current = gigaSpace.readById(type, id, customerAccountId);
+        RollupContribution previous = gigaSpace.readById(RollupContribution.class, id, customerAccountId);
+
+        Map<String, MonthlyRollup> now = current != null ? contributionOf(current) : Collections.<String, MonthlyRollup>emptyMap();
+        Map<String, MonthlyRollup> before = previous != null ? byId(previous.getParts()) : Collections.<String, MonthlyRollup>emptyMap();
+
+        Set<String> rollupIds = new HashSet<>(now.keySet());
+        rollupIds.addAll(before.keySet());
+        for (String rollupId : rollupIds) {
+            MonthlyRollup delta = delta(now.get(rollupId), before.get(rollupId));
+            if (!delta.changesNothing()) {
+                apply(delta);
+            }
+        }
+
+        if (current != null) {
+            gigaSpace.write(new RollupContribution(id, customerAccountId, new ArrayList<>(now.values())));
+        } else if (previous != null) {
+            gigaSpace.takeById(RollupContribution.class, id, customerAccountId);
+        }
+    }
+
+    /**
+     * Refreshes every document of the partition, e.g. after deploying the maintainer on existing data.
+     *
+     * @return the number of documents refreshed
+     */
+    public int rebuild() {
+        T[] documents = gigaSpace.readMultiple(new SQLQuery<>(type, "").setProjections("id", "customerAccountId"), Integer.MAX_VALUE);
+        for (T document : documents) {
+            refresh(document.getId(), document.getCustomerAccountId());
+        }
+        return documents.length;
+    }
+
+    @Override
+    public void close() {
+        notifyContainer.destroy();
+        try {
+            transactionManagerConfigurer.destroy();
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to stop the rollup transaction manager", e);
+        }
+    }
+
+    static Map<String, MonthlyRollup> contributionOf(ChargeData data) {
+        Map<String, MonthlyRollup> parts = new LinkedHashMap<>();
+        if (data.getChargeRows() == null) {
+            return parts;
+        }
+        Date documentStart = data.getPeriod() != null ? data.getPeriod().getStart() : null;
+        for (ChargeRow row : data.getChargeRows()) {
+            if (row.getGroupName() == null || row.getTotalAmount() == null) {
+                continue;
+            }
+            Date start = row.getPeriod() != null && row.getPeriod().getStart() != null ? row.getPeriod().getStart() : documentStart;
+            if (start == null) {
+                continue;
+            }
+            int month = MonthlyRollup.monthOf(start);
+            String rollupId = MonthlyRollup.idFor(data.getCustomerAccountId(), month, row.getGroupName(),
+                    row.getTotalAmount().getCurrency());
+            MonthlyRollup part = parts.get(rollupId);
+            if (part == null) {
+                part = new MonthlyRollup(data.getCustomerAccountId(), month, row.getGroupName(), row.getTotalAmount().getCurrency());
+                parts.put(rollupId, part);
+            }
+            part.add(row.getTotalAmount());
+        }
+        return parts;
+    }
+
+    private static Map<String, MonthlyRollup> byId(List<MonthlyRollup> parts) {
+        Map<String, MonthlyRollup> byId = new LinkedHashMap<>();
+        if (parts != null) {
+            for (MonthlyRollup part : parts) {
+                byId.put(part.getId(), part);
+            }
+        }
+        return byId;
+    }
+
+    private static MonthlyRollup delta(MonthlyRollup now, MonthlyRollup before) {
+        MonthlyRollup template = now != null ? now : before;
+        MonthlyRollup delta = new MonthlyRollup(template.getCustomerAccountId(), template.getMonth(), template.getGroupName(), template.getCurrency());
+        if (now != null) {
+            delta.add(now, 1);
+        }
+        if (before != null) {
+            delta.add(before, -1);
+        }
+        return delta;
+    }
+
+    private void apply(MonthlyRollup delta) {
+        IdQuery<MonthlyRollup> query = new IdQuery<>(MonthlyRollup.class, delta.getId(), delta.getCustomerAccountId());
+        ChangeSet increments = new ChangeSet()
+                .increment("amount", delta.getAmount())
+                .increment("amountExcludingVat", delta.getAmountExcludingVat())
+                .increment("vat", delta.getVat())
+                .increment("rows", delta.getRows());
+        ChangeResult<MonthlyRollup> result = gigaSpace.change(query, increments);
+        if (result.getNumberOfChangedEntries() == 0) {
+            try {
+                gigaSpace.write(delta, WriteModifiers.WRITE_ONLY);
+                return;
+            } catch (EntryAlreadyInSpaceException e) {
+                // another document of the account created it first
+                gigaSpace.change(query, increments);
+            }
+        }
+        if (delta.getRows() < 0) {
+            MonthlyRollup rollup = gigaSpace.readById(MonthlyRollup.class, delta.getId(), delta.getCustomerAccountId());
+            if (rollup != null && rollup.isEmpty()) {
+                gigaSpace.takeById(MonthlyRollup.class, delta.getId(), delta.getCustomerAccountId());
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.gigaspaces.marcello.rollup;
+
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.TimePeriod;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Range-total queries served from the {@link MonthlyRollup} entries instead of the documents.
+ * <p>
+ * Totals are kept per whole month, so a range covers every month touched by
+ * <code>[start, end)</code>: a range ending on the first instant of a month doesn't include that month.
+ * </p>
+ *
+ * @since 10.2
+ */
+public final class PeriodRollups {
+
+    private PeriodRollups() {
+    }
+
+    /**
+     * @return the account's monthly totals for the range, ordered by month, group name and currency
+     */
+    public static List<MonthlyRollup> monthly(GigaSpace gigaSpace, String customerAccountId, TimePeriod range) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(customerAccountId, "customerAccountId can't be null");
+        Validate.notNull(range, "range can't be null");
+        Validate.notNull(range.getStart(), "range start can't be null");
+        Validate.notNull(range.getEnd(), "range end can't be null");
+
+        int from = MonthlyRollup.monthOf(range.getStart());
+        int to = MonthlyRollup.monthOf(new Date(range.getEnd().getTime() - 1));
+        SQLQuery<MonthlyRollup> query = new SQLQuery<>(MonthlyRollup.class, "customerAccountId = ? AND month >= ? AND month <= ?",
+                customerAccountId, from, to);
+        query.setRouting(customerAccountId);
+
+        MonthlyRollup[] rollups = gigaSpace.readMultiple(query, Integer.MAX_VALUE);
+        Arrays.sort(rollups, new Comparator<MonthlyRollup>() {
+            @Override
+            public int compare(MonthlyRollup o1, MonthlyRollup o2) {
+                int result = o1.getMonth().compareTo(o2.getMonth());
+                if (result == 0) {
+                    result = o1.getGroupName().compareTo(o2.getGroupName());
+                }
+                return result != 0 ? result : o1.getCurrency().compareTo(o2.getCurrency());
+            }
+        });
+        return Arrays.asList(rollups);
+    }
+
+    /**
+     * @return the account's totals over the range per charge group, each keyed by currency, since amounts in
+     * different currencies can't be added
+     */
+    public static Map<String, Map<String, AmountWithDoubles>> totalsByGroup(GigaSpace gigaSpace, String customerAccountId, TimePeriod range) {
+        Map<String, Map<String, AmountWithDoubles>> totals = new LinkedHashMap<>();
+        for (MonthlyRollup rollup : monthly(gigaSpace, customerAccountId, range)) {
+            if (rollup.isEmpty()) {
+                continue;
+            }
+            Map<String, AmountWithDoubles> byCurrency = totals.get(rollup.getGroupName());
+            if (byCurrency == null) {
+                byCurrency = new TreeMap<>();
+                totals.put(rollup.getGroupName(), byCurrency);
+            }
+            AmountWithDoubles total = byCurrency.get(rollup.getCurrency());
+            byCurrency.put(rollup.getCurrency(), total == null ? rollup.getTotalAmount() : total.add(rollup.getTotalAmount()));
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,59 @@
+package com.gigaspaces.marcello.rollup;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceRouting;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * What one document last added to the {@link MonthlyRollup} totals, so a later version of the document
+ * can be applied as a difference. Shares the document's id and routing.
+ *
+ * @since 10.2
+ */
+@SpaceClass
+public class RollupContribution implements Serializable {
+    private static final long serialVersionUID = -3015622467019381571L;
+
+    private String id;
+    private String customerAccountId;
+    private List<MonthlyRollup> parts;
+
+    public RollupContribution() {
+
+    }
+
+    public RollupContribution(String id, String customerAccountId, List<MonthlyRollup> parts) {
+        this.id = id;
+        this.customerAccountId = customerAccountId;
+        this.parts = parts;
+    }
+
+    @SpaceId
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @SpaceRouting
+    public String getCustomerAccountId() {
+        return customerAccountId;
+    }
+
+    public void setCustomerAccountId(String customerAccountId) {
+        this.customerAccountId = customerAccountId;
+    }
+
+    public List<MonthlyRollup> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<MonthlyRollup> parts) {
+        this.parts = parts;
+    }
+}
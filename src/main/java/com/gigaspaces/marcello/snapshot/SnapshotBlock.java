@@ -0,0 +1,83 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.google.common.base.Objects;
+
+/**
+ * Where one block of a snapshot file is, and the range of <code>period.start</code> and <code>period.end</code>
+ * of its documents. Documents without a period are counted as starting and ending at {@link Long#MIN_VALUE}.
+ *
+ * @since 10.2
+ */
+public class SnapshotBlock {
+
+    private final long offset;
+    private final int length;
+    private final int documents;
+    private final long minStart;
+    private final long maxStart;
+    private final long minEnd;
+    private final long maxEnd;
+
+    SnapshotBlock(long offset, int length, int documents, long minStart, long maxStart, long minEnd, long maxEnd) {
+        this.offset = offset;
+        this.length = length;
+        this.documents = documents;
+        this.minStart = minStart;
+        this.maxStart = maxStart;
+        this.minEnd = minEnd;
+        this.maxEnd = maxEnd;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getDocuments() {
+        return documents;
+    }
+
+    public long getMinStart() {
+        return minStart;
+    }
+
+    public long getMaxStart() {
+        return maxStart;
+    }
+
+    public long getMinEnd() {
+        return minEnd;
+    }
+
+    public long getMaxEnd() {
+        return maxEnd;
+    }
+
+    /**
+     * @return whether any document of the block may have a period overlapping <code>[from, to)</code>
+     */
+    public boolean overlaps(long from, long to) {
+        return minStart < to && maxEnd >= from;
+    }
+
+    /**
+     * @return whether any document of the block may have a <code>period.start</code> within <code>[from, to)</code>
+     */
+    public boolean startsWithin(long from, long to) {
+        return minStart < to && maxStart >= from;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("offset", offset)
+                .add("length", length)
+                .add("documents", documents)
+                .add("minStart", minStart)
+                .add("maxStart", maxStart)
+                .toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import org.apache.commons.lang.Validate;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a file written by {@link SnapshotWriter}, memory-mapping each block as it is read so blocks can be
+ * deserialized from any number of threads without copying the file through the heap.
+ *
+ * @since 10.2
+ */
+public class SnapshotReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean compressed;
+    private final List<SnapshotBlock> blocks;
+
+    public SnapshotReader(File path) throws IOException {
+        Validate.notNull(path, "path can't be null");
+
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        try {
+            int trailer = 4 + SnapshotWriter.MAGIC.length;
+            byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+            file.readFully(magic);
+            checkMagic(magic, path);
+            file.seek(file.length() - trailer);
+            int footerLength = file.readInt();
+            file.readFully(magic);
+            checkMagic(magic, path);
+
+            ByteBuffer footer = map(file.length() - trailer - footerLength, footerLength);
+            this.compressed = footer.get() != 0;
+            int count = footer.getInt();
+            List<SnapshotBlock> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(new SnapshotBlock(footer.getLong(), footer.getInt(), footer.getInt(),
+                        footer.getLong(), footer.getLong(), footer.getLong(), footer.getLong()));
+            }
+            this.blocks = Collections.unmodifiableList(blocks);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static void checkMagic(byte[] magic, File path) throws IOException {
+        if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+            throw new IOException(path + " is not a snapshot file");
+        }
+    }
+
+    /**
+     * @return the blocks in file order, which is <code>period.start</code> order for snapshots taken by {@link SnapshotTask}
+     */
+    public List<SnapshotBlock> getBlocks() {
+        return blocks;
+    }
+
+    public long getDocuments() {
+        long documents = 0;
+        for (SnapshotBlock block : blocks) {
+            documents += block.getDocuments();
+        }
+        return documents;
+    }
+
+    /**
+     * Deserializes one block; safe to call from several threads at once.
+     */
+    public List<ChargeData> read(SnapshotBlock block) throws IOException {
+        InputStream bytes = new ByteBufferInputStream(map(block.getOffset(), block.getLength()));
+        try (ObjectInputStream in = new ObjectInputStream(compressed ? new InflaterInputStream(bytes) : bytes)) {
+            int count = in.readInt();
+            List<ChargeData> documents = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                documents.add((ChargeData) in.readObject());
+            }
+            return documents;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("snapshot holds a class that isn't on the classpath", e);
+        }
+    }
+
+    private MappedByteBuffer map(long offset, int length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of taking or loading a snapshot, per partition or summed over all partitions.
+ *
+ * @since 10.2
+ */
+public class SnapshotResult implements Serializable {
+    private static final long serialVersionUID = 6217893402251197342L;
+
+    private final List<String> files = new ArrayList<>();
+    private long documents;
+    private long bytes;
+    private long elapsedMillis;
+
+    /**
+     * @return the files written or loaded, as <code>host:path</code> since they are local to a partition's machine
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the longest time any partition took
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void partitionDone(String file, long documents, long bytes, long elapsedMillis) {
+        this.files.add(file);
+        this.documents = documents;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void merge(SnapshotResult other) {
+        files.addAll(other.files);
+        documents += other.documents;
+        bytes += other.bytes;
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("files", files.size())
+                .add("documents", documents)
+                .add("bytes", bytes)
+                .add("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.client.ChargeDataStream;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshots every document of a type to a {@link SnapshotWriter} file on each partition's own machine, all
+ * partitions in parallel, for a {@link WarmStartLoader} to reload after a restart.
+ * <p>
+ * Each partition writes <code>directory/partition-N.snapshot</code> with its documents in <code>period.start</code>
+ * order, then id order, reading them <code>batchSize</code> at a time. To order them it holds the ids of the
+ * partition, streamed from the space in pages with their periods, but never more than a batch of documents. The file is written under a temporary name and renamed
+ * when complete, so an interrupted snapshot never replaces the previous one.
+ * </p>
+ * <pre>
+ * SnapshotResult result = gigaSpace.execute(
+ *         new SnapshotTask&lt;&gt;(SubscriberChargeData.class, "/data/snapshots/current", 500)).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class SnapshotTask<T extends ChargeData> implements DistributedTask<SnapshotResult, SnapshotResult>, ClusterInfoAware {
+    private static final long serialVersionUID = -1538426208866417203L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final Class<T> type;
+    private final String directory;
+    private final int batchSize;
+
+    /**
+     * @param directory the directory on the partitions' machines the snapshot is written to
+     */
+    public SnapshotTask(Class<T> type, String directory, int batchSize) {
+        Validate.notNull(type, "type can't be null");
+        Validate.notEmpty(directory, "directory can't be empty");
+        Validate.isTrue(batchSize > 0, "batchSize must be positive");
+
+        this.type = type;
+        this.directory = directory;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public SnapshotResult execute() throws Exception {
+        long start = System.currentTimeMillis();
+        int partition = clusterInfo != null && clusterInfo.getInstanceId() != null ? clusterInfo.getInstanceId() - 1 : 0;
+
+        File snapshotDirectory = new File(directory);
+        Validate.isTrue(snapshotDirectory.isDirectory() || snapshotDirectory.mkdirs(), "can't create " + snapshotDirectory);
+        File file = new File(snapshotDirectory, "partition-" + (partition + 1) + ".snapshot");
+        File temporary = new File(snapshotDirectory, file.getName() + ".tmp");
+
+        String[] ids = idsByPeriodStart();
+        SnapshotWriter writer = new SnapshotWriter(temporary, SnapshotWriter.DEFAULT_BLOCK_DOCUMENTS);
+        try {
+            for (int i = 0; i < ids.length; i += batchSize) {
+                T[] batch = gigaSpace.readByIds(type, Arrays.copyOfRange(ids, i, Math.min(ids.length, i + batchSize))).getResultsArray();
+                for (T document : batch) {
+                    // taken since the ids were read
+                    if (document != null) {
+                        writer.write(document);
+                    }
+                }
+            }
+            writer.close();
+        } catch (Exception e) {
+            writer.close();
+            temporary.delete();
+            throw e;
+        }
+        if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+            throw new IOException("can't rename " + temporary + " to " + file);
+        }
+
+        SnapshotResult result = new SnapshotResult();
+        result.partitionDone(InetAddress.getLocalHost().getHostName() + ":" + file.getAbsolutePath(),
+                writer.getDocuments(), writer.getBytes(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @Override
+    public SnapshotResult reduce(List<AsyncResult<SnapshotResult>> results) throws Exception {
+        SnapshotResult total = new SnapshotResult();
+        for (AsyncResult<SnapshotResult> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            total.merge(result.getResult());
+        }
+        return total;
+    }
+
+    private String[] idsByPeriodStart() {
+        List<PeriodStartAndId> keys = new ArrayList<>();
+        SQLQuery<T> query = new SQLQuery<T>(type, "").setProjections("id", "period");
+        try (ChargeDataStream<T> documents = new ChargeDataStream<>(gigaSpace, query, batchSize, 0)) {
+            while (documents.hasNext()) {
+                T document = documents.next();
+                keys.add(new PeriodStartAndId(SnapshotWriter.startOf(document.getPeriod()), document.getId()));
+            }
+        }
+        Collections.sort(keys);
+
+        String[] ids = new String[keys.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = keys.get(i).id;
+        }
+        return ids;
+    }
+
+    private static final class PeriodStartAndId implements Comparable<PeriodStartAndId> {
+        private final long start;
+        private final String id;
+
+        PeriodStartAndId(long start, String id) {
+            this.start = start;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(PeriodStartAndId other) {
+            if (start != other.start) {
+                return start < other.start ? -1 : 1;
+            }
+            return id.compareTo(other.id);
+        }
+    }
+}
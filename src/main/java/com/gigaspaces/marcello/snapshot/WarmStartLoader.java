@@ -0,0 +1,154 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Reloads snapshots taken by {@link SnapshotTask}, deserializing memory-mapped blocks on several threads and
+ * writing them back with <code>writeMultiple</code>.
+ * <p>
+ * Blocks are loaded newest period first, so the cycles that take most of the traffic are back before the
+ * old ones. Within a block the documents arrive in <code>period.start</code> order, which keeps inserts into
+ * the extended period indexes local.
+ * </p>
+ * <p>
+ * Given a partition's own proxy, the loader restores that partition without network hops; given a clustered
+ * proxy, documents are routed again, so a snapshot also loads into a cluster with a different partition count.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class WarmStartLoader {
+
+    private static final Logger logger = Logger.getLogger(WarmStartLoader.class.getName());
+
+    private static final Comparator<BlockLoad> NEWEST_FIRST = new Comparator<BlockLoad>() {
+        @Override
+        public int compare(BlockLoad left, BlockLoad right) {
+            return Long.compare(right.block.getMaxStart(), left.block.getMaxStart());
+        }
+    };
+
+    private final GigaSpace gigaSpace;
+    private final int threads;
+    private final int batchSize;
+
+    public WarmStartLoader(GigaSpace gigaSpace, int threads, int batchSize) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.isTrue(threads > 0, "threads must be positive");
+        Validate.isTrue(batchSize > 0, "batchSize must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Loads every <code>.snapshot</code> file of the directory.
+     */
+    public SnapshotResult loadDirectory(File directory) throws IOException, InterruptedException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".snapshot");
+            }
+        });
+        Validate.notNull(files, directory + " is not a directory");
+        return load(Arrays.asList(files));
+    }
+
+    public SnapshotResult load(List<File> snapshots) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        List<SnapshotReader> readers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("warm-start-%d").setDaemon(true).build());
+        try {
+            List<BlockLoad> loads = new ArrayList<>();
+            List<AtomicLong> loaded = new ArrayList<>();
+            for (File snapshot : snapshots) {
+                SnapshotReader reader = new SnapshotReader(snapshot);
+                readers.add(reader);
+                AtomicLong documents = new AtomicLong();
+                loaded.add(documents);
+                for (SnapshotBlock block : reader.getBlocks()) {
+                    loads.add(new BlockLoad(reader, block, documents));
+                }
+            }
+            Collections.sort(loads, NEWEST_FIRST);
+
+            List<Future<?>> futures = new ArrayList<>(loads.size());
+            for (final BlockLoad load : loads) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        load.documents.addAndGet(write(load.reader.read(load.block)));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("warm start failed", e.getCause());
+                }
+            }
+
+            String host = InetAddress.getLocalHost().getHostName();
+            long elapsed = System.currentTimeMillis() - start;
+            SnapshotResult result = new SnapshotResult();
+            for (int i = 0; i < snapshots.size(); i++) {
+                SnapshotResult file = new SnapshotResult();
+                file.partitionDone(host + ":" + snapshots.get(i).getAbsolutePath(), loaded.get(i).get(),
+                        snapshots.get(i).length(), elapsed);
+                result.merge(file);
+            }
+            logger.info("warm start loaded " + result);
+            return result;
+        } finally {
+            executor.shutdownNow();
+            for (SnapshotReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private int write(List<ChargeData> documents) {
+        for (int i = 0; i < documents.size(); i += batchSize) {
+            List<ChargeData> batch = documents.subList(i, Math.min(documents.size(), i + batchSize));
+            gigaSpace.writeMultiple(batch.toArray(new ChargeData[batch.size()]));
+        }
+        return documents.size();
+    }
+
+    private static class BlockLoad {
+        private final SnapshotReader reader;
+        private final SnapshotBlock block;
+        private final AtomicLong documents;
+
+        BlockLoad(SnapshotReader reader, SnapshotBlock block, AtomicLong documents) {
+            this.reader = reader;
+            this.block = block;
+            this.documents = documents;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.io.Closeable;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps only the last <code>horizonMonths</code> months of a type in the space, moving older documents to the
+ * cold tier every <code>delay</code>.
+ * <p>
+ * The horizon is the first day of the month <code>horizonMonths</code> back, so it moves once a month and each
+ * move carries one month of cycles. A move copies the old documents on every partition, moves the
+ * {@link TierBoundary} so {@link TieredQueries} read the range from the cold tier, then evicts them from the space.
+ * A failed copy is redone by the next run; documents a failed eviction leaves in the space are served once by
+ * {@link TieredQueries} and moved again by the next month's move.
+ * </p>
+ * <p>
+ * Documents older than the horizon are expected to be closed cycles: a change made to one between its copy
+ * and its eviction is lost.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class AgeOutScheduler<T extends ChargeData> implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(AgeOutScheduler.class.getName());
+
+    private final GigaSpace gigaSpace;
+    private final Class<T> type;
+    private final String directory;
+    private final int horizonMonths;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param gigaSpace a clustered proxy
+     * @param directory the tiering root directory, shared by the machines that can host the partitions
+     */
+    public AgeOutScheduler(GigaSpace gigaSpace, Class<T> type, String directory, int horizonMonths, int batchSize,
+                           long delay, TimeUnit unit) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notNull(type, "type can't be null");
+        Validate.notEmpty(directory, "directory can't be empty");
+        Validate.isTrue(horizonMonths > 0, "horizonMonths must be positive");
+        Validate.isTrue(batchSize > 0, "batchSize must be positive");
+        Validate.isTrue(delay > 0, "delay must be positive");
+
+        this.gigaSpace = gigaSpace;
+        this.type = type;
+        this.directory = directory;
+        this.horizonMonths = horizonMonths;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("age-out-%d").setDaemon(true).build());
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ageOut(new Date());
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "failed to age out " + AgeOutScheduler.this.type.getSimpleName(), e);
+                }
+            }
+        }, delay, delay, unit);
+    }
+
+    /**
+     * Moves the documents older than the horizon as of <code>now</code> to the cold tier.
+     *
+     * @return the eviction result, or <code>null</code> if the boundary is already at the horizon
+     */
+    public TieringResult ageOut(Date now) throws Exception {
+        Date coldBefore = horizon(now, horizonMonths);
+        TierBoundary boundary = gigaSpace.readById(TierBoundary.class, TierBoundary.idFor(type));
+        if (boundary != null && !boundary.getColdBefore().before(coldBefore)) {
+            return null;
+        }
+
+        String moveId = "move-" + new SimpleDateFormat("yyyyMMdd").format(coldBefore);
+        TieringResult copied = gigaSpace.execute(
+                new AgeOutTask<>(type, directory, moveId, coldBefore, AgeOutTask.Phase.COPY, batchSize)).get();
+        gigaSpace.write(new TierBoundary(type, coldBefore, moveId));
+        TieringResult evicted = gigaSpace.execute(
+                new AgeOutTask<>(type, directory, moveId, coldBefore, AgeOutTask.Phase.EVICT, batchSize)).get();
+        logger.info(type.getSimpleName() + " before " + coldBefore + " copied " + copied + ", evicted " + evicted);
+        return evicted;
+    }
+
+    static Date horizon(Date now, int months) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTime(now);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MONTH, -months);
+        return calendar.getTime();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
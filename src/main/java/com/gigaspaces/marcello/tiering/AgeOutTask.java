@@ -0,0 +1,194 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.snapshot.SnapshotBlock;
+import com.gigaspaces.marcello.snapshot.SnapshotReader;
+import com.gigaspaces.marcello.snapshot.SnapshotWriter;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One phase of moving the documents whose <code>period.start</code> is before <code>coldBefore</code> from the
+ * space to the cold tier, run on every partition in parallel.
+ * <ul>
+ * <li>{@link Phase#COPY} writes the partition's old documents, in <code>period.start</code> order, to a deflated
+ * segment <code>directory/partition-N/moveId.cold</code> under a temporary name, renamed when complete.</li>
+ * <li>{@link Phase#EVICT} takes from the space exactly the documents recorded in that segment, so documents
+ * written since the copy stay hot until the next move.</li>
+ * </ul>
+ * {@link AgeOutScheduler} runs the two phases in turn and moves the {@link TierBoundary} in between.
+ *
+ * @since 10.2
+ */
+public class AgeOutTask<T extends ChargeData> implements DistributedTask<TieringResult, TieringResult>, ClusterInfoAware {
+    private static final long serialVersionUID = 8243659130072291844L;
+
+    public enum Phase {
+        COPY, EVICT
+    }
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final Class<T> type;
+    private final String directory;
+    private final String moveId;
+    private final Date coldBefore;
+    private final Phase phase;
+    private final int batchSize;
+
+    /**
+     * @param directory the tiering root directory, shared by the machines that can host the partitions
+     */
+    public AgeOutTask(Class<T> type, String directory, String moveId, Date coldBefore, Phase phase, int batchSize) {
+        Validate.notNull(type, "type can't be null");
+        Validate.notEmpty(directory, "directory can't be empty");
+        Validate.notEmpty(moveId, "moveId can't be empty");
+        Validate.notNull(coldBefore, "coldBefore can't be null");
+        Validate.notNull(phase, "phase can't be null");
+        Validate.isTrue(batchSize > 0, "batchSize must be positive");
+
+        this.type = type;
+        this.directory = directory;
+        this.moveId = moveId;
+        this.coldBefore = coldBefore;
+        this.phase = phase;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public TieringResult execute() throws Exception {
+        long start = System.currentTimeMillis();
+        int partition = clusterInfo != null && clusterInfo.getInstanceId() != null ? clusterInfo.getInstanceId() - 1 : 0;
+
+        File partitionDirectory = ColdStore.partitionDirectory(directory, partition);
+        if (phase == Phase.COPY) {
+            Validate.isTrue(partitionDirectory.isDirectory() || partitionDirectory.mkdirs(), "can't create " + partitionDirectory);
+        } else if (!partitionDirectory.isDirectory()) {
+            // the copy ran on a machine that doesn't share the root, so there is no segment to evict by
+            throw new IOException("cold tier " + partitionDirectory + " not found; the tiering root must be shared by the machines that can host the partition");
+        }
+        File segment = new File(partitionDirectory, moveId + ColdStore.SEGMENT_SUFFIX);
+
+        long documents = phase == Phase.COPY ? copy(segment) : evict(segment);
+
+        TieringResult result = new TieringResult();
+        result.partitionDone(segment.exists() ? InetAddress.getLocalHost().getHostName() + ":" + segment.getAbsolutePath() : null,
+                documents, segment.length(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @Override
+    public TieringResult reduce(List<AsyncResult<TieringResult>> results) throws Exception {
+        TieringResult total = new TieringResult();
+        for (AsyncResult<TieringResult> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            total.merge(result.getResult());
+        }
+        return total;
+    }
+
+    private long copy(File segment) throws Exception {
+        String[] ids = oldIdsByPeriodStart();
+        if (ids.length == 0) {
+            return 0;
+        }
+        File temporary = new File(segment.getParentFile(), segment.getName() + ".tmp");
+        SnapshotWriter writer = new SnapshotWriter(temporary, SnapshotWriter.DEFAULT_BLOCK_DOCUMENTS, true);
+        try {
+            for (int i = 0; i < ids.length; i += batchSize) {
+                T[] batch = gigaSpace.readByIds(type, Arrays.copyOfRange(ids, i, Math.min(ids.length, i + batchSize))).getResultsArray();
+                for (T document : batch) {
+                    // taken since the ids were read
+                    if (document != null) {
+                        writer.write(document);
+                    }
+                }
+            }
+            writer.close();
+        } catch (Exception e) {
+            writer.close();
+            temporary.delete();
+            throw e;
+        }
+        if (!temporary.renameTo(segment) && !(segment.delete() && temporary.renameTo(segment))) {
+            throw new IOException("can't rename " + temporary + " to " + segment);
+        }
+        return writer.getDocuments();
+    }
+
+    private long evict(File segment) throws IOException {
+        if (!segment.exists()) {
+            return 0;
+        }
+        long taken = 0;
+        try (SnapshotReader reader = new SnapshotReader(segment)) {
+            List<String> ids = new ArrayList<>(batchSize);
+            for (SnapshotBlock block : reader.getBlocks()) {
+                for (ChargeData document : reader.read(block)) {
+                    ids.add(document.getId());
+                    if (ids.size() == batchSize) {
+                        taken += take(ids);
+                    }
+                }
+            }
+            taken += take(ids);
+        }
+        return taken;
+    }
+
+    private int take(List<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int taken = 0;
+        for (T document : gigaSpace.takeByIds(type, ids.toArray()).getResultsArray()) {
+            if (document != null) {
+                taken++;
+            }
+        }
+        ids.clear();
+        return taken;
+    }
+
+    private String[] oldIdsByPeriodStart() {
+        T[] documents = gigaSpace.readMultiple(new SQLQuery<T>(type, "period.start < ?", coldBefore)
+                .setProjections("id", "period"), Integer.MAX_VALUE);
+        Arrays.sort(documents, new Comparator<T>() {
+            @Override
+            public int compare(T left, T right) {
+                int byStart = left.getPeriod().getStart().compareTo(right.getPeriod().getStart());
+                return byStart != 0 ? byStart : left.getId().compareTo(right.getId());
+            }
+        });
+
+        String[] ids = new String[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            ids[i] = documents[i].getId();
+        }
+        return ids;
+    }
+}
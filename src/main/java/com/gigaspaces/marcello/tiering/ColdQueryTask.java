@@ -0,0 +1,77 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.model.ChargeData;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.DistributedTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans the cold tier of each partition for documents whose <code>period.start</code> is within
+ * <code>[from, to)</code>, on the partitions' own machines. Executed with an account as routing, only that
+ * account's partition is scanned.
+ *
+ * @since 10.2
+ */
+public class ColdQueryTask<T extends ChargeData> implements DistributedTask<ArrayList<T>, List<T>>, ClusterInfoAware {
+    private static final long serialVersionUID = -5146823064119258391L;
+
+    private transient ClusterInfo clusterInfo;
+
+    private final Class<T> type;
+    private final String directory;
+    private final long from;
+    private final long to;
+    private final String customerAccountId;
+    private final int max;
+
+    /**
+     * @param directory         the tiering root directory, shared by the machines that can host the partitions
+     * @param customerAccountId restricts the scan to one account, or <code>null</code> for all
+     */
+    public ColdQueryTask(Class<T> type, String directory, long from, long to, String customerAccountId, int max) {
+        Validate.notNull(type, "type can't be null");
+        Validate.notEmpty(directory, "directory can't be empty");
+        Validate.isTrue(max > 0, "max must be positive");
+
+        this.type = type;
+        this.directory = directory;
+        this.from = from;
+        this.to = to;
+        this.customerAccountId = customerAccountId;
+        this.max = max;
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public ArrayList<T> execute() throws Exception {
+        int partition = clusterInfo != null && clusterInfo.getInstanceId() != null ? clusterInfo.getInstanceId() - 1 : 0;
+        ColdStore store = new ColdStore(ColdStore.partitionDirectory(directory, partition));
+        return new ArrayList<>(store.scan(type, from, to, customerAccountId, max));
+    }
+
+    @Override
+    public List<T> reduce(List<AsyncResult<ArrayList<T>>> results) throws Exception {
+        List<T> documents = new ArrayList<>();
+        for (AsyncResult<ArrayList<T>> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            for (T document : result.getResult()) {
+                if (documents.size() == max) {
+                    return documents;
+                }
+                documents.add(document);
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,120 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.snapshot.SnapshotBlock;
+import com.gigaspaces.marcello.snapshot.SnapshotReader;
+import org.apache.commons.lang.Validate;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The cold tier of one partition: a directory of deflated {@link com.gigaspaces.marcello.snapshot.SnapshotWriter}
+ * segments, one per age-out move, each in <code>period.start</code> order.
+ * <p>
+ * A scan only inflates the blocks whose recorded <code>period.start</code> range meets the requested one, so
+ * reading one old cycle touches a few blocks rather than years of history.
+ * </p>
+ * <p>
+ * The tiering root must be on storage every machine that can host the partition's primary mounts at the same
+ * path, shared or replicated: after a failover the backup's machine reads the segments its old primary wrote.
+ * The first move creates the directory of every partition, so once anything was moved a missing directory means
+ * the root isn't shared, and reading fails instead of answering as if the tier were empty.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class ColdStore {
+
+    public static final String SEGMENT_SUFFIX = ".cold";
+
+    private final File directory;
+
+    public ColdStore(File directory) {
+        Validate.notNull(directory, "directory can't be null");
+
+        this.directory = directory;
+    }
+
+    /**
+     * @return the cold tier directory of a partition under the tiering root directory
+     */
+    public static File partitionDirectory(String root, int partition) {
+        return new File(root, "partition-" + (partition + 1));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the segments in move order, none if the move that created the directory found nothing to move
+     * @throws IOException when the directory is missing, which it is on a machine that doesn't share the root
+     */
+    public List<File> getSegments() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            throw new IOException("cold tier " + directory + " not found; the tiering root must be shared by the machines that can host the partition");
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * A document moved twice, because an eviction failed and it stayed in the space, is in two segments; it is
+     * returned once, from the newer segment, and counts once against <code>max</code>.
+     *
+     * @param customerAccountId restricts the scan to one account, or <code>null</code> for all
+     * @return up to <code>max</code> documents of the type whose <code>period.start</code> is within <code>[from, to)</code>
+     */
+    public <T extends ChargeData> List<T> scan(Class<T> type, long from, long to, String customerAccountId, int max) throws IOException {
+        Validate.notNull(type, "type can't be null");
+        Validate.isTrue(max > 0, "max must be positive");
+
+        List<File> segments = new ArrayList<>(getSegments());
+        Collections.reverse(segments);
+        Set<String> ids = new HashSet<>();
+        List<T> found = new ArrayList<>();
+        for (File segment : segments) {
+            try (SnapshotReader reader = new SnapshotReader(segment)) {
+                for (SnapshotBlock block : reader.getBlocks()) {
+                    if (!block.startsWithin(from, to)) {
+                        continue;
+                    }
+                    for (ChargeData document : reader.read(block)) {
+                        if (matches(document, type, from, to, customerAccountId) && ids.add(document.getId())) {
+                            found.add(type.cast(document));
+                            if (found.size() == max) {
+                                return found;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(ChargeData document, Class<?> type, long from, long to, String customerAccountId) {
+        if (!type.isInstance(document) || document.getPeriod() == null || document.getPeriod().getStart() == null) {
+            return false;
+        }
+        if (customerAccountId != null && !customerAccountId.equals(document.getCustomerAccountId())) {
+            return false;
+        }
+        long start = document.getPeriod().getStart().getTime();
+        return start >= from && start < to;
+    }
+}
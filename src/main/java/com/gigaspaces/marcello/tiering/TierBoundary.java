@@ -0,0 +1,75 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Where the hot space ends for one type: documents whose <code>period.start</code> is before
+ * <code>coldBefore</code> live in the cold tier, the others in the space.
+ * <p>
+ * Moved forward by {@link AgeOutScheduler} once a move has been copied to the cold tier and before it is
+ * evicted from the space, so a query that honours the boundary never misses a document.
+ * </p>
+ *
+ * @since 10.2
+ */
+@SpaceClass
+public class TierBoundary implements Serializable {
+    private static final long serialVersionUID = 3650714290528831046L;
+
+    private String id;
+    private Date coldBefore;
+    private String lastMoveId;
+
+    public TierBoundary() {
+
+    }
+
+    public TierBoundary(Class<?> type, Date coldBefore, String lastMoveId) {
+        this.id = idFor(type);
+        this.coldBefore = coldBefore;
+        this.lastMoveId = lastMoveId;
+    }
+
+    public static String idFor(Class<?> type) {
+        return type.getName();
+    }
+
+    @SpaceId
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Date getColdBefore() {
+        return coldBefore;
+    }
+
+    public void setColdBefore(Date coldBefore) {
+        this.coldBefore = coldBefore;
+    }
+
+    public String getLastMoveId() {
+        return lastMoveId;
+    }
+
+    public void setLastMoveId(String lastMoveId) {
+        this.lastMoveId = lastMoveId;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("id", id)
+                .add("coldBefore", coldBefore)
+                .add("lastMoveId", lastMoveId)
+                .toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.j_spaces.core.client.SQLQuery;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Period range queries that fall through to the cold tier for ranges older than the type's {@link TierBoundary}.
+ * <p>
+ * The space is always queried through its extended period index. The cold tier is only scanned when the range
+ * starts before the boundary, and only up to it, so queries on recent cycles cost what they did without tiering.
+ * While a move is between its copy and evict phases a document is in both tiers; the space copy wins.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class TieredQueries {
+
+    private final GigaSpace gigaSpace;
+    private final String directory;
+
+    /**
+     * @param gigaSpace a clustered proxy
+     * @param directory the tiering root directory, shared by the machines that can host the partitions
+     */
+    public TieredQueries(GigaSpace gigaSpace, String directory) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+        Validate.notEmpty(directory, "directory can't be empty");
+
+        this.gigaSpace = gigaSpace;
+        this.directory = directory;
+    }
+
+    /**
+     * @return up to <code>max</code> documents whose period starts within <code>[from, to)</code>, from all partitions
+     */
+    public <T extends ChargeData> List<T> byPeriod(Class<T> type, Date from, Date to, int max) {
+        Validate.notNull(from, "from can't be null");
+        Validate.notNull(to, "to can't be null");
+
+        SQLQuery<T> query = new SQLQuery<T>(type, "period.start >= ? AND period.start < ?", from, to);
+        return query(type, query, from, to, null, max);
+    }
+
+    /**
+     * @return up to <code>max</code> documents of the account whose period starts within <code>[from, to)</code>,
+     * from the account's partition only
+     */
+    public <T extends ChargeData> List<T> byAccount(Class<T> type, String customerAccountId, Date from, Date to, int max) {
+        Validate.notEmpty(customerAccountId, "customerAccountId can't be empty");
+        Validate.notNull(from, "from can't be null");
+        Validate.notNull(to, "to can't be null");
+
+        SQLQuery<T> query = new SQLQuery<T>(type, "customerAccountId = ? AND period.start >= ? AND period.start < ?",
+                customerAccountId, from, to);
+        query.setRouting(customerAccountId);
+        return query(type, query, from, to, customerAccountId, max);
+    }
+
+    /**
+     * @return the date before which the type's documents are cold, <code>null</code> if nothing was moved yet
+     */
+    public Date coldBefore(Class<? extends ChargeData> type) {
+        TierBoundary boundary = gigaSpace.readById(TierBoundary.class, TierBoundary.idFor(type));
+        return boundary != null ? boundary.getColdBefore() : null;
+    }
+
+    private <T extends ChargeData> List<T> query(Class<T> type, SQLQuery<T> query, Date from, Date to,
+                                                 String customerAccountId, int max) {
+        Validate.isTrue(max > 0, "max must be positive");
+
+        Map<String, T> documents = new LinkedHashMap<>();
+        for (T document : gigaSpace.readMultiple(query, max)) {
+            documents.put(document.getId(), document);
+        }
+
+        Date coldBefore = coldBefore(type);
+        if (documents.size() < max && coldBefore != null && from.before(coldBefore)) {
+            long coldTo = Math.min(to.getTime(), coldBefore.getTime());
+            ColdQueryTask<T> task = new ColdQueryTask<>(type, directory, from.getTime(), coldTo, customerAccountId, max);
+            for (T document : cold(task, customerAccountId)) {
+                if (documents.size() == max) {
+                    break;
+                }
+                if (!documents.containsKey(document.getId())) {
+                    documents.put(document.getId(), document);
+                }
+            }
+        }
+        return new ArrayList<>(documents.values());
+    }
+
+    private <T extends ChargeData> List<T> cold(ColdQueryTask<T> task, String customerAccountId) {
+        try {
+            return customerAccountId != null ? gigaSpace.execute(task, customerAccountId).get() : gigaSpace.execute(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while scanning the cold tier", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to scan the cold tier", e.getCause());
+        }
+    }
+}
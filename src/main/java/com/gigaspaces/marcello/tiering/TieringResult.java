@@ -0,0 +1,72 @@
+package com.gigaspaces.marcello.tiering;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one phase of an age-out move, per partition or summed over all partitions.
+ *
+ * @since 10.2
+ */
+public class TieringResult implements Serializable {
+    private static final long serialVersionUID = -2873319487095412658L;
+
+    private final List<String> segments = new ArrayList<>();
+    private long documents;
+    private long bytes;
+    private long elapsedMillis;
+
+    /**
+     * @return the cold segments written or evicted, as <code>host:path</code> since they are local to a partition's machine
+     */
+    public List<String> getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the documents copied to the cold tier, or taken from the space when evicting
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the longest time any partition took
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void partitionDone(String segment, long documents, long bytes, long elapsedMillis) {
+        if (segment != null) {
+            this.segments.add(segment);
+        }
+        this.documents = documents;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void merge(TieringResult other) {
+        segments.addAll(other.segments);
+        documents += other.documents;
+        bytes += other.bytes;
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("segments", segments.size())
+                .add("documents", documents)
+                .add("bytes", bytes)
+                .add("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.gigaspaces.marcello.topk;
+
+import com.gigaspaces.marcello.client.ChargeDataStream;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.TimePeriod;
+import com.gigaspaces.marcello.model.codec.ChargeRowView;
+import com.gigaspaces.marcello.model.codec.LazyRowList;
+import com.j_spaces.core.client.SQLQuery;
+import org.openspaces.core.GigaSpace;
+
+import java.util.List;
+
+/**
+ * Query and row helpers shared by the top-k tasks.
+ *
+ * @since 10.2
+ */
+final class ChargeScan {
+
+    /**
+     * Documents a partition scan holds at once.
+     */
+    static final int PAGE_SIZE = 1000;
+
+    private ChargeScan() {
+    }
+
+    /**
+     * @return the documents matching the query, read {@link #PAGE_SIZE} at a time on the calling thread
+     */
+    static <T extends ChargeData> ChargeDataStream<T> scan(GigaSpace gigaSpace, SQLQuery<T> query) {
+        return new ChargeDataStream<>(gigaSpace, query, PAGE_SIZE, 0);
+    }
+
+    /**
+     * @return a query for the documents whose period starts within <code>[start, end)</code>, or for all
+     * documents when the period is null
+     */
+    static <T extends ChargeData> SQLQuery<T> periodQuery(Class<T> type, TimePeriod period, String... projections) {
+        SQLQuery<T> query = period != null
+                ? new SQLQuery<>(type, "period.start >= ? AND period.start < ?", period.getStart(), period.getEnd())
+                : new SQLQuery<>(type, "");
+        return query.setProjections(projections);
+    }
+
+    /**
+     * @return the sum of the document's group totals, or of its rows when it has no group totals
+     */
+    static double spendOf(ChargeData data) {
+        List<ChargeRow> totals = data.getChargeGroupTotals();
+        if (totals != null && !totals.isEmpty()) {
+            return sum(totals);
+        }
+        return data.getChargeRows() != null ? sum(data.getChargeRows()) : 0d;
+    }
+
+    private static double sum(List<ChargeRow> rows) {
+        double sum = 0d;
+        if (rows instanceof LazyRowList) {
+            ChargeRowView view = ((LazyRowList) rows).view();
+            for (int i = 0; i < rows.size(); i++) {
+                double amount = view.moveTo(i).getAmount();
+                if (!Double.isNaN(amount)) {
+                    sum += amount;
+                }
+            }
+            return sum;
+        }
+        for (ChargeRow row : rows) {
+            if (row.getTotalAmount() != null && row.getTotalAmount().getAmount() != null) {
+                sum += row.getTotalAmount().getAmount();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,150 @@
+package com.gigaspaces.marcello.topk;
+
+import org.apache.commons.lang.Validate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving summary: tracks at most <code>capacity</code> keys and their approximate totals.
+ * <p>
+ * When a new key arrives and the summary is full, the key with the smallest total is replaced and the new key
+ * inherits that total as its error. Every key whose true total exceeds <code>W / capacity</code>, W being the
+ * sum of all weights, is guaranteed to be tracked, and no estimate undercounts. Summaries of different partitions
+ * merge into a summary with the same guarantees over the union. A capacity of {@link Integer#MAX_VALUE} never
+ * evicts and gives exact totals.
+ * </p>
+ * <p>
+ * Weights must not be negative.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class SpaceSavingSketch implements Serializable {
+    private static final long serialVersionUID = 8857128493520573361L;
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private transient TreeSet<Counter> byCount;
+
+    public SpaceSavingSketch(int capacity) {
+        Validate.isTrue(capacity > 0, "capacity must be positive");
+
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public void add(String key, double weight) {
+        Validate.isTrue(weight >= 0, "weight can't be negative");
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            update(counter, counter.count + weight, counter.error);
+            return;
+        }
+        if (counters.size() < capacity) {
+            insert(new Counter(key, weight, 0d));
+            return;
+        }
+        Counter smallest = byCount().pollFirst();
+        counters.remove(smallest.key);
+        insert(new Counter(key, smallest.count + weight, smallest.count));
+    }
+
+    /**
+     * Merges the other summary into this one; a key missing from a full summary is assumed to have that
+     * summary's smallest total there, within the error bound.
+     */
+    public SpaceSavingSketch merge(SpaceSavingSketch other) {
+        double thisMinimum = counters.size() >= capacity ? byCount().first().count : 0d;
+        double otherMinimum = other.counters.size() >= other.capacity ? other.byCount().first().count : 0d;
+
+        Map<String, Counter> merged = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            Counter theirs = other.counters.get(counter.key);
+            merged.put(counter.key, theirs != null
+                    ? new Counter(counter.key, counter.count + theirs.count, counter.error + theirs.error)
+                    : new Counter(counter.key, counter.count + otherMinimum, counter.error + otherMinimum));
+        }
+        for (Counter theirs : other.counters.values()) {
+            if (!merged.containsKey(theirs.key)) {
+                merged.put(theirs.key, new Counter(theirs.key, theirs.count + thisMinimum, theirs.error + thisMinimum));
+            }
+        }
+
+        List<Counter> kept = new ArrayList<>(merged.values());
+        Collections.sort(kept, Collections.reverseOrder());
+        counters.clear();
+        byCount = null;
+        for (Counter counter : kept.subList(0, Math.min(capacity, kept.size()))) {
+            counters.put(counter.key, counter);
+        }
+        return this;
+    }
+
+    /**
+     * @return the k keys with the highest estimated totals, highest first
+     */
+    public List<TopKEntry> top(int k) {
+        List<TopKEntry> top = new ArrayList<>(Math.min(k, counters.size()));
+        for (Counter counter : byCount().descendingSet()) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(new TopKEntry(counter.key, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    private void insert(Counter counter) {
+        counters.put(counter.key, counter);
+        byCount().add(counter);
+    }
+
+    private void update(Counter counter, double count, double error) {
+        TreeSet<Counter> ordered = byCount();
+        ordered.remove(counter);
+        counter.count = count;
+        counter.error = error;
+        ordered.add(counter);
+    }
+
+    private TreeSet<Counter> byCount() {
+        if (byCount == null) {
+            byCount = new TreeSet<>(counters.values());
+        }
+        return byCount;
+    }
+
+    private static final class Counter implements Comparable<Counter>, Serializable {
+        private static final long serialVersionUID = -7311497357823012215L;
+
+        private final String key;
+        private double count;
+        private double error;
+
+        Counter(String key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        @Override
+        public int compareTo(Counter other) {
+            int result = Double.compare(count, other.count);
+            return result != 0 ? result : key.compareTo(other.key);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.gigaspaces.marcello.topk;
+
+import org.apache.commons.lang.Validate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The <code>k</code> highest scored entries offered so far, kept in a bounded min-heap.
+ * <p>
+ * Offering n entries costs <code>O(n log k)</code> and keeps only k of them, so a partition returns k entries
+ * however many documents it scans. Merging partial results gives the exact global top k, provided every key
+ * was scored in a single partition.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class TopK implements Serializable {
+    private static final long serialVersionUID = 3602367402863779315L;
+
+    private final int k;
+    private final PriorityQueue<TopKEntry> heap;
+
+    public TopK(int k) {
+        Validate.isTrue(k > 0, "k must be positive");
+
+        this.k = k;
+        this.heap = new PriorityQueue<>(k, Collections.reverseOrder(TopKEntry.BY_SCORE_DESCENDING));
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void offer(String key, double score) {
+        if (heap.size() < k || score >= heap.peek().getScore()) {
+            offer(new TopKEntry(key, score));
+        }
+    }
+
+    public void offer(TopKEntry entry) {
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (TopKEntry.BY_SCORE_DESCENDING.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    public TopK merge(TopK other) {
+        for (TopKEntry entry : other.heap) {
+            offer(entry);
+        }
+        return this;
+    }
+
+    /**
+     * @return the entries, highest score first
+     */
+    public List<TopKEntry> toList() {
+        List<TopKEntry> entries = new ArrayList<>(heap);
+        Collections.sort(entries, TopKEntry.BY_SCORE_DESCENDING);
+        return entries;
+    }
+}
@@ -0,0 +1,73 @@
+package com.gigaspaces.marcello.topk;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * A key with its score. For estimates from a {@link SpaceSavingSketch}, <code>error</code> bounds how much
+ * the score may overestimate the true value; exact entries have an error of 0.
+ *
+ * @since 10.2
+ */
+public class TopKEntry implements Serializable {
+    private static final long serialVersionUID = -5238864121046802671L;
+
+    /**
+     * Highest score first, then by key so results are stable across partitions.
+     */
+    public static final Comparator<TopKEntry> BY_SCORE_DESCENDING = new ScoreDescending();
+
+    private final String key;
+    private final double score;
+    private final double error;
+
+    public TopKEntry(String key, double score) {
+        this(key, score, 0d);
+    }
+
+    public TopKEntry(String key, double score, double error) {
+        this.key = key;
+        this.score = score;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * @return true when the score is exact rather than an upper-bound estimate
+     */
+    public boolean isExact() {
+        return error == 0d;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).omitNullValues()
+                .add("key", key)
+                .add("score", score)
+                .add("error", error != 0d ? error : null)
+                .toString();
+    }
+
+    private static class ScoreDescending implements Comparator<TopKEntry>, Serializable {
+        private static final long serialVersionUID = 1734601843206364718L;
+
+        @Override
+        public int compare(TopKEntry o1, TopKEntry o2) {
+            int result = Double.compare(o2.score, o1.score);
+            return result != 0 ? result : o1.key.compareTo(o2.key);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.gigaspaces.marcello.topk;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.client.ChargeDataStream;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.TimePeriod;
+import com.gigaspaces.marcello.model.codec.ChargeRowView;
+import com.gigaspaces.marcello.model.codec.LazyRowList;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.List;
+
+/**
+ * Finds the <code>k</code> row keys (feature category, charge group or row name) with the highest revenue
+ * across all accounts.
+ * <p>
+ * The same key appears in many partitions, so partial top-k lists can't simply be merged. With the default
+ * unbounded capacity each partition returns its exact total per key; for high-cardinality keys a capacity
+ * bounds every partition's result to a {@link SpaceSavingSketch} of that many heavy hitters, whose entries
+ * carry their error bound. Partitions read their documents a page at a time, so only the sketch grows with the
+ * data. Rows with a negative total, such as credits, are not counted.
+ * </p>
+ * <pre>
+ * List&lt;TopKEntry&gt; top = gigaSpace.execute(
+ *         new TopRevenueTask&lt;&gt;(SubscriberChargeData.class, Dimension.FEATURE_CATEGORY, period, 10)).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class TopRevenueTask<T extends ChargeData> implements DistributedTask<SpaceSavingSketch, List<TopKEntry>> {
+    private static final long serialVersionUID = 5493002604176914187L;
+
+    public enum Dimension {
+        FEATURE_CATEGORY, GROUP_NAME, ROW_NAME
+    }
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+
+    private final Class<T> type;
+    private final Dimension dimension;
+    private final TimePeriod period;
+    private final int k;
+    private final int capacity;
+
+    /**
+     * Exact totals per key.
+     */
+    public TopRevenueTask(Class<T> type, Dimension dimension, TimePeriod period, int k) {
+        this(type, dimension, period, k, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param capacity the number of keys each partition tracks, {@link Integer#MAX_VALUE} for exact totals
+     */
+    public TopRevenueTask(Class<T> type, Dimension dimension, TimePeriod period, int k, int capacity) {
+        Validate.notNull(type, "type can't be null");
+        Validate.notNull(dimension, "dimension can't be null");
+        Validate.isTrue(k > 0, "k must be positive");
+        Validate.isTrue(capacity >= k, "capacity can't be less than k");
+
+        this.type = type;
+        this.dimension = dimension;
+        this.period = period;
+        this.k = k;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public SpaceSavingSketch execute() throws Exception {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        try (ChargeDataStream<T> documents = ChargeScan.scan(gigaSpace, ChargeScan.periodQuery(type, period, "id", "chargeRows"))) {
+            while (documents.hasNext()) {
+                addRows(sketch, documents.next().getChargeRows());
+            }
+        }
+        return sketch;
+    }
+
+    private void addRows(SpaceSavingSketch sketch, List<ChargeRow> rows) {
+        if (rows == null) {
+            return;
+        }
+        if (rows instanceof LazyRowList && dimension != Dimension.FEATURE_CATEGORY) {
+            ChargeRowView view = ((LazyRowList) rows).view();
+            for (int i = 0; i < rows.size(); i++) {
+                view.moveTo(i);
+                add(sketch, dimension == Dimension.GROUP_NAME ? view.getGroupName() : view.getName(), view.getAmount());
+            }
+        } else {
+            for (ChargeRow row : rows) {
+                double amount = row.getTotalAmount() != null && row.getTotalAmount().getAmount() != null
+                        ? row.getTotalAmount().getAmount() : Double.NaN;
+                add(sketch, keyOf(row), amount);
+            }
+        }
+    }
+
+    @Override
+    public List<TopKEntry> reduce(List<AsyncResult<SpaceSavingSketch>> results) throws Exception {
+        SpaceSavingSketch merged = new SpaceSavingSketch(capacity);
+        for (AsyncResult<SpaceSavingSketch> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            merged.merge(result.getResult());
+        }
+        return merged.top(k);
+    }
+
+    private String keyOf(ChargeRow row) {
+        switch (dimension) {
+            case FEATURE_CATEGORY:
+                return row.getFeatureCategory();
+            case GROUP_NAME:
+                return row.getGroupName();
+            default:
+                return row.getName();
+        }
+    }
+
+    private static void add(SpaceSavingSketch sketch, String key, double amount) {
+        if (key != null && amount > 0) {
+            sketch.add(key, amount);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.gigaspaces.marcello.topk;
+
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.marcello.client.ChargeDataStream;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.TimePeriod;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.List;
+
+/**
+ * Finds the <code>k</code> documents with the highest total spend, e.g. the top subscribers of a period.
+ * <p>
+ * Each partition scores its documents a page at a time and keeps its own top k in a bounded heap; only those k
+ * entries are returned and merged, which yields the exact global top k since every document lives in one
+ * partition.
+ * Entries are keyed by document id.
+ * </p>
+ * <pre>
+ * List&lt;TopKEntry&gt; top = gigaSpace.execute(new TopSpendersTask&lt;&gt;(SubscriberChargeData.class, period, 10)).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class TopSpendersTask<T extends ChargeData> implements DistributedTask<TopK, List<TopKEntry>> {
+    private static final long serialVersionUID = -1950325036416826247L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+
+    private final Class<T> type;
+    private final TimePeriod period;
+    private final int k;
+
+    /**
+     * @param period only documents whose period starts within it, or null for all
+     */
+    public TopSpendersTask(Class<T> type, TimePeriod period, int k) {
+        Validate.notNull(type, "type can't be null");
+        Validate.isTrue(k > 0, "k must be positive");
+
+        this.type = type;
+        this.period = period;
+        this.k = k;
+    }
+
+    @Override
+    public TopK execute() throws Exception {
+        TopK top = new TopK(k);
+        try (ChargeDataStream<T> documents = ChargeScan.scan(gigaSpace,
+                ChargeScan.periodQuery(type, period, "id", "chargeRows", "chargeGroupTotals"))) {
+            while (documents.hasNext()) {
+                T data = documents.next();
+                top.offer(data.getId(), ChargeScan.spendOf(data));
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public List<TopKEntry> reduce(List<AsyncResult<TopK>> results) throws Exception {
+        TopK top = new TopK(k);
+        for (AsyncResult<TopK> result : results) {
+            if (result.getException() != null) {
+                throw result.getException();
+            }
+            top.merge(result.getResult());
+        }
+        return top.toList();
+    }
+}
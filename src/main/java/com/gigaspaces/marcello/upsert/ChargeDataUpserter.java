@@ -0,0 +1,75 @@
+package com.gigaspaces.marcello.upsert;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Streams usage into the space as upserts: each document carries only the rows to add, and is aggregated into
+ * the stored copy, or created, by an {@link UpsertRowsTask} in its account's partition.
+ * <p>
+ * A batch is split by account and every account's task is sent at once, so a batch costs one round trip to
+ * each partition it touches instead of a read and a write per document, and never retries on a version
+ * conflict since the aggregation runs atomically in the space.
+ * </p>
+ * <pre>
+ * SubscriberChargeData usage = new SubscriberChargeData(ban, billSequence, telephoneNumber, period);
+ * usage.addRows(rows);
+ * new ChargeDataUpserter(gigaSpace).upsert(Collections.singletonList(usage));
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class ChargeDataUpserter {
+
+    private final GigaSpace gigaSpace;
+
+    /**
+     * @param gigaSpace a clustered proxy
+     */
+    public ChargeDataUpserter(GigaSpace gigaSpace) {
+        Validate.notNull(gigaSpace, "gigaSpace can't be null");
+
+        this.gigaSpace = gigaSpace;
+    }
+
+    public UpsertResult upsert(List<? extends ChargeData> documents) {
+        Validate.notNull(documents, "documents can't be null");
+
+        Map<String, List<ChargeData>> byAccount = new LinkedHashMap<>();
+        for (ChargeData document : documents) {
+            Validate.notNull(document, "documents can't hold null");
+            Validate.notNull(document.getCustomerAccountId(), "customerAccountId can't be null");
+            List<ChargeData> account = byAccount.get(document.getCustomerAccountId());
+            if (account == null) {
+                account = new ArrayList<>();
+                byAccount.put(document.getCustomerAccountId(), account);
+            }
+            account.add(document);
+        }
+
+        List<Future<UpsertResult>> futures = new ArrayList<>(byAccount.size());
+        for (Map.Entry<String, List<ChargeData>> account : byAccount.entrySet()) {
+            futures.add(gigaSpace.execute(new UpsertRowsTask(account.getValue()), account.getKey()));
+        }
+        UpsertResult total = new UpsertResult();
+        try {
+            for (Future<UpsertResult> future : futures) {
+                total.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while upserting", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to upsert", e.getCause());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gigaspaces.marcello.upsert;
+
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+
+/**
+ * How many upserted documents were written new and how many were aggregated into a stored copy, for one
+ * account or summed over a batch.
+ *
+ * @since 10.2
+ */
+public class UpsertResult implements Serializable {
+    private static final long serialVersionUID = 5519846093731871620L;
+
+    private long created;
+    private long merged;
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getMerged() {
+        return merged;
+    }
+
+    void documentDone(boolean written) {
+        if (written) {
+            created++;
+        } else {
+            merged++;
+        }
+    }
+
+    void merge(UpsertResult other) {
+        created += other.created;
+        merged += other.merged;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("created", created)
+                .add("merged", merged)
+                .toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.gigaspaces.marcello.upsert;
+
+import com.gigaspaces.marcello.existence.ExistenceFilter;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeDataChanges;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import org.apache.commons.lang.Validate;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.cluster.ClusterInfoAware;
+import org.openspaces.core.executor.Task;
+import org.openspaces.core.executor.TaskGigaSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upserts documents of one account inside the account's partition: the rows of each document are aggregated
+ * into its stored copy by {@link ChargeDataChanges#upsert}, and documents the space doesn't have are written.
+ * <p>
+ * Only the new rows travel, once, and the read-modify-write happens next to the data. Where the partition runs
+ * an {@link ExistenceFilter}, subscriber documents it knows to be missing are written without trying the change
+ * first.
+ * </p>
+ * <pre>
+ * UpsertResult result = gigaSpace.execute(new UpsertRowsTask(deltas), ban).get();
+ * </pre>
+ *
+ * @since 10.2
+ */
+public class UpsertRowsTask implements Task<UpsertResult>, ClusterInfoAware {
+    private static final long serialVersionUID = -6406270830412561958L;
+
+    @TaskGigaSpace
+    private transient GigaSpace gigaSpace;
+    private transient ClusterInfo clusterInfo;
+
+    private final ArrayList<ChargeData> documents;
+
+    /**
+     * @param documents documents of a single account, holding the rows to add
+     */
+    public UpsertRowsTask(List<? extends ChargeData> documents) {
+        Validate.notEmpty(documents, "documents can't be empty");
+        String customerAccountId = documents.get(0).getCustomerAccountId();
+        Validate.notNull(customerAccountId, "customerAccountId can't be null");
+        for (ChargeData document : documents) {
+            Validate.notNull(document, "documents can't hold null");
+            Validate.isTrue(customerAccountId.equals(document.getCustomerAccountId()), "documents must belong to one account");
+        }
+
+        this.documents = new ArrayList<>(documents);
+    }
+
+    @Override
+    public void setClusterInfo(ClusterInfo clusterInfo) {
+        this.clusterInfo = clusterInfo;
+    }
+
+    @Override
+    public UpsertResult execute() throws Exception {
+        ExistenceFilter filter = ExistenceFilter.forPartition(gigaSpace.getName(), clusterInfo);
+
+        UpsertResult result = new UpsertResult();
+        for (ChargeData document : documents) {
+            // the filter only knows subscriber documents
+            boolean mightExist = filter == null || !(document instanceof SubscriberChargeData)
+                    || filter.mightContainId(document.getId());
+            result.documentDone(ChargeDataChanges.upsert(gigaSpace, document, mightExist));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package com.gigaspaces.marcello.benchmark;
+
+import com.gigaspaces.marcello.feeder.Feeder;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.codec.CompressedRowList;
+import com.gigaspaces.marcello.model.codec.DeflateRowCodec;
+import com.gigaspaces.marcello.model.codec.RowCodec;
+import com.gigaspaces.marcello.model.codec.RowCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the compression ratio of the {@link RowCodec}s against their CPU cost on generated row lists.
+ * <p>
+ * For every codec it reports the average serialized size of a document's rows, the average encoded
+ * size, and the time to encode and decode one document. Arguments: documents, rows per document.
+ * </p>
+ *
+ * @since 10.2
+ */
+public class CompressionBenchmark {
+
+    private static final int TRAINING_DOCUMENTS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rowsPerDocument = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+
+        Feeder feeder = new Feeder();
+        List<List<ChargeRow>> samples = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            List<ChargeRow> rows = new ArrayList<>(rowsPerDocument);
+            for (int k = 0; k < rowsPerDocument; k++) {
+                rows.add(feeder.generateChargeRow());
+            }
+            samples.add(rows);
+        }
+
+        byte[] trained = RowCodecs.trainDictionary(samples.subList(0, Math.min(TRAINING_DOCUMENTS, documents)), 32 * 1024);
+        List<RowCodec> codecs = Arrays.asList(
+                RowCodecs.NONE,
+                RowCodecs.DEFLATE_NO_DICTIONARY,
+                RowCodecs.DEFLATE,
+                new DeflateRowCodec((byte) 100, "deflate-trained", Deflater.BEST_SPEED, trained),
+                new DeflateRowCodec((byte) 101, "deflate-6-trained", 6, trained));
+
+        for (RowCodec codec : codecs) {
+            RowCodecs.register(codec);
+        }
+
+        List<byte[]> raw = new ArrayList<>(documents);
+        for (List<ChargeRow> rows : samples) {
+            raw.add(serialize(rows));
+        }
+
+        System.out.println(String.format("%-20s %12s %12s %8s %12s %12s %14s",
+                "codec", "raw(B)", "encoded(B)", "ratio", "encode(us)", "decode(us)", "round trip(us)"));
+        for (RowCodec codec : codecs) {
+            run(codec, samples, raw, false);
+            run(codec, samples, raw, true);
+        }
+    }
+
+    private static void run(RowCodec codec, List<List<ChargeRow>> samples, List<byte[]> raw, boolean report) throws Exception {
+        int documents = raw.size();
+        long rawBytes = 0;
+        long encodedBytes = 0;
+
+        List<byte[]> encoded = new ArrayList<>(documents);
+        long start = System.nanoTime();
+        for (byte[] bytes : raw) {
+            encoded.add(codec.encode(bytes));
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            rawBytes += codec.decode(encoded.get(i), raw.get(i).length).length;
+            encodedBytes += encoded.get(i).length;
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        start = System.nanoTime();
+        for (List<ChargeRow> rows : samples) {
+            CompressedRowList copy = (CompressedRowList) deserialize(serialize(new CompressedRowList(rows, codec)));
+            checksum += copy.get(0).getName().length();
+        }
+        long roundTripNanos = System.nanoTime() - start;
+
+        if (report) {
+            System.out.println(String.format("%-20s %12d %12d %8.2f %12.2f %12.2f %14.2f",
+                    codec.getName(),
+                    rawBytes / documents,
+                    encodedBytes / documents,
+                    (double) rawBytes / encodedBytes,
+                    encodeNanos / 1000.0 / documents,
+                    decodeNanos / 1000.0 / documents,
+                    roundTripNanos / 1000.0 / documents + (checksum < 0 ? 1 : 0)));
+        }
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+}
@@ -0,0 +1,105 @@
+package com.gigaspaces.marcello.benchmark;
+
+import com.gigaspaces.marcello.feeder.Feeder;
+import com.gigaspaces.marcello.harness.EmbeddedCluster;
+import com.gigaspaces.marcello.model.IndexProfile;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of writing documents under each {@link IndexProfile} to an embedded single partition space.
+ * Every iteration starts an empty space and writes the same seeded batches into it once, so the index structures
+ * grow alike across profiles and the score is the time the whole load takes. After the load, outside the measured
+ * time, the iteration prints the heap the space retains per document after a full GC; the
+ * <code>indexProfile</code> argument of {@link com.gigaspaces.marcello.footprint.FootprintAnalyzer} projects the
+ * index share of it. Run <code>main</code>, or <code>org.openjdk.jmh.Main IndexProfileBenchmark -prof gc</code> to
+ * also see the allocation of the load.
+ *
+ * @since 10.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexProfileBenchmark {
+
+    private static final long SEED = 42;
+    private static final int BATCH_SIZE = 500;
+    private static final int BATCHES = 256;
+
+    @Param({"full", "ingest", "minimal"})
+    private String profile;
+
+    private SubscriberChargeData[][] batches;
+    private EmbeddedCluster cluster;
+    private long heapBefore;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Feeder feeder = new Feeder(SEED);
+        batches = new SubscriberChargeData[BATCHES][];
+        for (int i = 0; i < BATCHES; i++) {
+            batches[i] = feeder.generateBatch(i * BATCH_SIZE, BATCH_SIZE);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startSpace() {
+        cluster = new EmbeddedCluster("index-profile-" + profile, 1, null, 0, IndexProfile.parse(profile, null));
+        heapBefore = usedHeapAfterGc(ManagementFactory.getMemoryMXBean());
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopSpace() {
+        try {
+            long heapAfter = usedHeapAfterGc(ManagementFactory.getMemoryMXBean());
+            System.out.println(String.format("%s: %.1f heap bytes/doc", profile,
+                    (double) (heapAfter - heapBefore) / (BATCHES * BATCH_SIZE)));
+        } finally {
+            cluster.close();
+        }
+    }
+
+    /**
+     * Writes every seeded batch into the empty space of the iteration.
+     */
+    @Benchmark
+    public int writeAll() {
+        int written = 0;
+        for (SubscriberChargeData[] batch : batches) {
+            written += cluster.getGigaSpace().writeMultiple(batch).length;
+        }
+        return written;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(IndexProfileBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
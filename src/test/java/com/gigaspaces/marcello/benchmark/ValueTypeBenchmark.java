@@ -0,0 +1,163 @@
+package com.gigaspaces.marcello.benchmark;
+
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import com.gigaspaces.marcello.model.TimePeriod;
+import org.apache.commons.lang.builder.CompareToBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the value types' <code>equals</code>, <code>hashCode</code> and <code>compareTo</code> with the
+ * commons-lang builder implementations they replaced, which are reproduced here as the <code>legacy</code>
+ * benchmarks. Run <code>main</code>, or <code>org.openjdk.jmh.Main ValueTypeBenchmark -prof gc</code> to also see
+ * the allocation rate.
+ *
+ * @since 10.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValueTypeBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private TelephoneNumber[] numbers;
+    private TelephoneNumber[] equalNumbers;
+    private TimePeriod[] periods;
+    private TimePeriod[] equalPeriods;
+    private AmountWithDoubles[] amounts;
+    private Map<TelephoneNumber, Integer> byNumber;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        numbers = new TelephoneNumber[KEYS];
+        equalNumbers = new TelephoneNumber[KEYS];
+        periods = new TimePeriod[KEYS];
+        equalPeriods = new TimePeriod[KEYS];
+        amounts = new AmountWithDoubles[KEYS];
+        byNumber = new HashMap<>(KEYS * 2);
+        for (int i = 0; i < KEYS; i++) {
+            String countryCode = String.valueOf(10 + random.nextInt(90));
+            String localNumber = String.valueOf(10000000 + random.nextInt(90000000));
+            numbers[i] = new TelephoneNumber(countryCode, localNumber);
+            equalNumbers[i] = new TelephoneNumber(countryCode, localNumber);
+            long start = 1420070400000L + random.nextInt(365) * 86400000L;
+            periods[i] = TimePeriod.valueOf(start, start + 30 * 86400000L);
+            equalPeriods[i] = TimePeriod.valueOf(start, start + 30 * 86400000L);
+            amounts[i] = new AmountWithDoubles(random.nextInt(100000) / 100d, "SEK");
+            byNumber.put(numbers[i], i);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (KEYS - 1);
+        return index;
+    }
+
+    @Benchmark
+    public int telephoneNumberHashCode() {
+        return numbers[next()].hashCode();
+    }
+
+    @Benchmark
+    public int telephoneNumberHashCodeLegacy() {
+        TelephoneNumber number = numbers[next()];
+        return new HashCodeBuilder(17, 37).append(number.getCountryCode()).append(number.getLocalNumber()).toHashCode();
+    }
+
+    @Benchmark
+    public boolean telephoneNumberEquals() {
+        int i = next();
+        return numbers[i].equals(equalNumbers[i]);
+    }
+
+    @Benchmark
+    public boolean telephoneNumberEqualsLegacy() {
+        int i = next();
+        return new EqualsBuilder()
+                .append(numbers[i].getCountryCode(), equalNumbers[i].getCountryCode())
+                .append(numbers[i].getLocalNumber(), equalNumbers[i].getLocalNumber())
+                .isEquals();
+    }
+
+    @Benchmark
+    public int telephoneNumberCompareTo() {
+        int i = next();
+        return numbers[i].compareTo(numbers[(i + 1) & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public void telephoneNumberLookup(Blackhole blackhole) {
+        blackhole.consume(byNumber.get(equalNumbers[next()]));
+    }
+
+    @Benchmark
+    public int timePeriodHashCode() {
+        return periods[next()].hashCode();
+    }
+
+    @Benchmark
+    public int timePeriodHashCodeLegacy() {
+        TimePeriod period = periods[next()];
+        return new HashCodeBuilder(17, 37).append(period.getStart()).append(period.getEnd()).toHashCode();
+    }
+
+    @Benchmark
+    public boolean timePeriodEquals() {
+        int i = next();
+        return periods[i].equals(equalPeriods[i]);
+    }
+
+    @Benchmark
+    public boolean timePeriodEqualsLegacy() {
+        int i = next();
+        return new EqualsBuilder()
+                .append(periods[i].getStart(), equalPeriods[i].getStart())
+                .append(periods[i].getEnd(), equalPeriods[i].getEnd())
+                .isEquals();
+    }
+
+    @Benchmark
+    public int amountCompareTo() {
+        int i = next();
+        return amounts[i].compareTo(amounts[(i + 1) & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public int amountCompareToLegacy() {
+        int i = next();
+        AmountWithDoubles other = amounts[(i + 1) & (KEYS - 1)];
+        return new CompareToBuilder()
+                .append(amounts[i].getAmount(), other.getAmount())
+                .append(amounts[i].getCurrency(), other.getCurrency())
+                .toComparison();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ValueTypeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
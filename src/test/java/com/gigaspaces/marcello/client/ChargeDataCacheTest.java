@@ -0,0 +1,147 @@
+package com.gigaspaces.marcello.client;
+
+import com.gigaspaces.marcello.harness.EmbeddedCluster;
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import com.gigaspaces.marcello.model.TelephoneNumber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openspaces.core.GigaSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ChargeDataCacheTest {
+
+    private static final long NOTIFICATION_TIMEOUT_MILLIS = 30000;
+    private static final String BAN = "ban";
+
+    private EmbeddedCluster cluster;
+    private GigaSpace gigaSpace;
+
+    @Before
+    public void startSpace() {
+        cluster = new EmbeddedCluster("charge-data-cache-test", 1, null, 0);
+        gigaSpace = cluster.getGigaSpace();
+    }
+
+    @After
+    public void stopSpace() {
+        cluster.close();
+    }
+
+    @Test
+    public void readsThroughOnAMissOnly() {
+        SubscriberChargeData document = version(1);
+        gigaSpace.write(document);
+
+        try (ChargeDataCache<SubscriberChargeData> cache = new ChargeDataCache<>(gigaSpace, SubscriberChargeData.class, 1000)) {
+            SubscriberChargeData read = cache.readById(document.getId(), BAN);
+            assertSame(read, cache.readById(document.getId(), BAN));
+            assertEquals(1, cache.stats().missCount());
+            assertEquals(1, cache.stats().hitCount());
+
+            cache.invalidate(document.getId());
+            assertEquals(0, cache.size());
+            assertNull(cache.readById("missing", BAN));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void updatesAndTakesInvalidateTheDocument() throws Exception {
+        SubscriberChargeData document = version(1);
+        gigaSpace.write(document);
+
+        try (ChargeDataCache<SubscriberChargeData> cache = new ChargeDataCache<>(gigaSpace, SubscriberChargeData.class, 1000)) {
+            cache.readById(document.getId(), BAN);
+            gigaSpace.write(version(2));
+            awaitVersion(cache, document.getId(), 2);
+
+            gigaSpace.takeById(SubscriberChargeData.class, document.getId(), BAN);
+            long deadline = System.currentTimeMillis() + NOTIFICATION_TIMEOUT_MILLIS;
+            while (cache.readById(document.getId(), BAN) != null) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("the cache kept a taken document");
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void readsRacingUpdatesNeverKeepAStaleDocument() throws Exception {
+        final String id = version(0).getId();
+        gigaSpace.write(version(0));
+
+        try (final ChargeDataCache<SubscriberChargeData> cache = new ChargeDataCache<>(gigaSpace, SubscriberChargeData.class, 1000)) {
+            final AtomicBoolean updating = new AtomicBoolean(true);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread reader = new Thread("reader-" + i) {
+                    @Override
+                    public void run() {
+                        try {
+                            while (updating.get()) {
+                                // invalidated by the notifications, so most reads miss and race with the next update
+                                cache.readById(id, BAN);
+                            }
+                        } catch (RuntimeException | Error e) {
+                            failure.set(e);
+                        }
+                    }
+                };
+                reader.start();
+                readers.add(reader);
+            }
+            int last = 500;
+            try {
+                for (int version = 1; version <= last; version++) {
+                    gigaSpace.write(version(version));
+                }
+            } finally {
+                updating.set(false);
+                for (Thread reader : readers) {
+                    reader.join();
+                }
+            }
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+            // a read that raced with the last update must not stay cached once its notification is in
+            awaitVersion(cache, id, last);
+        }
+    }
+
+    private static void awaitVersion(ChargeDataCache<SubscriberChargeData> cache, String id, int version) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + NOTIFICATION_TIMEOUT_MILLIS;
+        String expected = "version-" + version;
+        while (!expected.equals(cache.readById(id, BAN).getChargeRows().get(0).getName())) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("the cache kept " + cache.readById(id, BAN).getChargeRows().get(0).getName() + " instead of " + expected);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * The same document, told apart by the name of its only row.
+     */
+    private static SubscriberChargeData version(int version) {
+        SubscriberChargeData document = new SubscriberChargeData(BAN, 1, new TelephoneNumber("47", "90000000"));
+        List<ChargeRow> rows = new ArrayList<>();
+        rows.add(new ChargeRow("group", "version-" + version, new AmountWithDoubles((double) version, "NOK")));
+        document.setChargeRows(rows);
+        return document;
+    }
+}
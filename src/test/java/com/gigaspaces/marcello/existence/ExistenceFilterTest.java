@@ -0,0 +1,117 @@
+package com.gigaspaces.marcello.existence;
+
+import com.gigaspaces.marcello.feeder.Feeder;
+import com.gigaspaces.marcello.harness.EmbeddedCluster;
+import com.gigaspaces.marcello.model.SubscriberChargeData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.cluster.ClusterInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ExistenceFilterTest {
+
+    private static final long NOTIFICATION_TIMEOUT_MILLIS = 30000;
+
+    private EmbeddedCluster cluster;
+    private GigaSpace gigaSpace;
+
+    @Before
+    public void startSpace() {
+        cluster = new EmbeddedCluster("existence-filter-test", 1, null, 0);
+        gigaSpace = cluster.getPartition(0);
+    }
+
+    @After
+    public void stopSpace() {
+        cluster.close();
+    }
+
+    @Test
+    public void knowsTheDocumentsWrittenBeforeAndAfterItStarts() throws Exception {
+        Feeder feeder = new Feeder(48);
+        List<SubscriberChargeData> documents = new ArrayList<>(Arrays.asList(feeder.generateBatch(0, 500)));
+        gigaSpace.writeMultiple(documents.toArray());
+
+        try (ExistenceFilter filter = new ExistenceFilter(gigaSpace, null, 10000, 0.001)) {
+            assertSame(filter, ExistenceFilter.forPartition(gigaSpace.getName(), null));
+            assertSame(filter, ExistenceFilter.forPartition(gigaSpace.getName(), new ClusterInfo(null, 1, null, 1, 0)));
+
+            SubscriberChargeData[] later = feeder.generateBatch(500, 500);
+            gigaSpace.writeMultiple(later);
+            documents.addAll(Arrays.asList(later));
+            awaitAll(filter, documents);
+        }
+        assertNull(ExistenceFilter.forPartition(gigaSpace.getName(), null));
+    }
+
+    @Test
+    public void keepsTheDocumentsWrittenWhileItRebuilds() throws Exception {
+        Feeder feeder = new Feeder(49);
+        List<SubscriberChargeData> documents = new ArrayList<>(Arrays.asList(feeder.generateBatch(0, 2000)));
+        gigaSpace.writeMultiple(documents.toArray());
+
+        try (final ExistenceFilter filter = new ExistenceFilter(gigaSpace, null, 100000, 0.001)) {
+            int firstId = 2000;
+            for (int round = 0; round < 20; round++) {
+                final AtomicReference<Throwable> failure = new AtomicReference<>();
+                Thread rebuilder = new Thread("rebuilder") {
+                    @Override
+                    public void run() {
+                        try {
+                            filter.rebuild();
+                        } catch (RuntimeException | Error e) {
+                            failure.set(e);
+                        }
+                    }
+                };
+                rebuilder.start();
+                // small batches for as long as the rebuild runs, so some land while it scans and while it swaps
+                // the filters; checked before the next rebuild, which would scan them again
+                do {
+                    SubscriberChargeData[] batch = feeder.generateBatch(firstId, 25);
+                    gigaSpace.writeMultiple(batch);
+                    documents.addAll(Arrays.asList(batch));
+                    firstId += 25;
+                } while (rebuilder.isAlive());
+                rebuilder.join();
+                if (failure.get() != null) {
+                    throw new AssertionError(failure.get());
+                }
+                awaitAll(filter, documents);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runsOncePerPartition() {
+        try (ExistenceFilter filter = new ExistenceFilter(gigaSpace, null, 1000, 0.01)) {
+            new ExistenceFilter(gigaSpace, null, 1000, 0.01);
+        }
+    }
+
+    /**
+     * Notifications arrive asynchronously, so a document may show up a little after its write returns; one that
+     * a rebuild lost never shows up.
+     */
+    private static void awaitAll(ExistenceFilter filter, List<SubscriberChargeData> documents) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + NOTIFICATION_TIMEOUT_MILLIS;
+        for (SubscriberChargeData document : documents) {
+            while (!filter.mightContainId(document.getId()) || !filter.mightContainTelephoneKey(document.getTelephoneKey())) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("the filter lost " + document.getId());
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.gigaspaces.marcello.export;
+
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.TestDocuments;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void everyColumnReadsBackAsWritten() throws IOException {
+        List<ChargeData> documents = TestDocuments.documents(new Random(44), 60);
+        List<ChargeData> rowDocuments = new ArrayList<>();
+        List<ChargeRow> rows = new ArrayList<>();
+        for (ChargeData document : documents) {
+            for (ChargeRow row : document.getChargeRows()) {
+                rowDocuments.add(document);
+                rows.add(row);
+            }
+        }
+
+        int blockRows = 100;
+        File file = write(documents, blockRows);
+
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertEquals(rows.size(), reader.getRows());
+            assertEquals((rows.size() + blockRows - 1) / blockRows, reader.getBlocks().size());
+            assertEquals(ExportColumn.values().length, reader.getColumns().size());
+            int first = 0;
+            for (int b = 0; b < reader.getBlocks().size(); b++) {
+                int blockSize = reader.getBlocks().get(b).getRows();
+                for (ExportColumn column : ExportColumn.values()) {
+                    Object[] expected = new Object[blockSize];
+                    for (int i = 0; i < blockSize; i++) {
+                        expected[i] = column.valueOf(rowDocuments.get(first + i), rows.get(first + i));
+                    }
+                    assertArrayEquals(column + " of block " + b, expected, reader.read(b, column));
+                    BlockMetadata.ColumnChunk chunk = reader.getChunk(b, column);
+                    assertEquals(column + " nulls", ColumnEncoding.nullCount(expected, blockSize), chunk.getNullCount());
+                    assertStatistics(column.getType(), expected, chunk.getMin(), chunk.getMax());
+                }
+                first += blockSize;
+            }
+            assertEquals(rows.size(), first);
+        }
+    }
+
+    @Test
+    public void stringDictionariesKeepEmptyAndNonAsciiValues() throws IOException {
+        // 300 distinct values, so past the first 128 the dictionary indexes take two varint bytes
+        Object[] values = new Object[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 7 == 0 ? null : "value-" + (i % 300);
+        }
+        values[1] = "";
+        values[2] = "\u0000";
+        values[3] = "bl\u00e5b\u00e6r";
+        values[4] = "\ud83d\udcde";
+        values[values.length - 1] = "";
+
+        Object[] read = roundTrip(ExportColumn.Type.STRING, values);
+        assertArrayEquals(values, read);
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() throws IOException {
+        Object[] repeated = new Object[1000];
+        Object[] distinct = new Object[1000];
+        for (int i = 0; i < repeated.length; i++) {
+            repeated[i] = "a value long enough to matter";
+            distinct[i] = "a value long enough to matter " + i;
+        }
+        int repeatedBytes = chunk(ExportColumn.Type.STRING, repeated).length;
+        // the dictionary holds the value once, then every row is a one byte index
+        assertEquals(1 + 2 + 29 + repeated.length, repeatedBytes);
+        assertTrue(repeatedBytes * 10 < chunk(ExportColumn.Type.STRING, distinct).length);
+    }
+
+    @Test
+    public void longDeltasSurviveOverflow() throws IOException {
+        Object[] values = {Long.MIN_VALUE, Long.MAX_VALUE, null, Long.MIN_VALUE, 0L, -1L, null, 1L, Long.MAX_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE + 1};
+        assertArrayEquals(values, roundTrip(ExportColumn.Type.LONG, values));
+
+        Object[] ints = {Integer.MAX_VALUE, Integer.MIN_VALUE, 0, null, -1, Integer.MAX_VALUE, 1};
+        assertArrayEquals(ints, roundTrip(ExportColumn.Type.INT, ints));
+    }
+
+    @Test
+    public void ascendingLongsTakeOneByteEach() throws IOException {
+        Object[] values = new Object[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 946684800000L + i * 20L;
+        }
+        // the first delta is the whole value, every later one fits in a zigzag varint byte
+        assertEquals(varLongBytes(946684800000L * 2) + values.length - 1, chunk(ExportColumn.Type.LONG, values).length);
+        assertArrayEquals(values, roundTrip(ExportColumn.Type.LONG, values));
+    }
+
+    @Test
+    public void varLongsRoundTripAtEveryByteBoundary() throws IOException {
+        for (int bytes = 1; bytes <= 10; bytes++) {
+            long first = bytes == 1 ? 0 : 1L << (7 * (bytes - 1));
+            long last = bytes == 10 ? -1L : (1L << (7 * bytes)) - 1;
+            for (long value : new long[]{first, last}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ColumnEncoding.writeVarLong(new DataOutputStream(out), value);
+                assertEquals(value + " bytes", bytes, out.size());
+                assertEquals(value, ColumnEncoding.readVarLong(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+            }
+        }
+    }
+
+    @Test
+    public void doublesKeepTheirBitsAndNaNStaysOutOfTheStatistics() throws IOException {
+        Object[] values = {Double.NaN, -0.0d, 0.0d, null, Double.NEGATIVE_INFINITY, 12.5d, Double.MIN_VALUE, Double.NaN};
+        Object[] read = roundTrip(ExportColumn.Type.DOUBLE, values);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                assertNull(read[i]);
+            } else {
+                assertEquals("bits of " + values[i], Double.doubleToRawLongBits((Double) values[i]), Double.doubleToRawLongBits((Double) read[i]));
+            }
+        }
+
+        Object[] stats = ColumnEncoding.writeChunk(new DataOutputStream(new ByteArrayOutputStream()), ExportColumn.Type.DOUBLE, values, values.length);
+        assertEquals(Double.NEGATIVE_INFINITY, stats[0]);
+        assertEquals(12.5d, stats[1]);
+
+        Object[] nanOnly = {Double.NaN, null};
+        stats = ColumnEncoding.writeChunk(new DataOutputStream(new ByteArrayOutputStream()), ExportColumn.Type.DOUBLE, nanOnly, nanOnly.length);
+        assertNull(stats[0]);
+        assertNull(stats[1]);
+    }
+
+    @Test
+    public void presenceBitmapsEndOnAnyRow() throws IOException {
+        for (int rows = 1; rows <= 17; rows++) {
+            for (ExportColumn.Type type : ExportColumn.Type.values()) {
+                Object[] allNull = new Object[rows];
+                assertArrayEquals(allNull, roundTrip(type, allNull));
+
+                Object[] lastNull = new Object[rows];
+                for (int i = 0; i < rows - 1; i++) {
+                    lastNull[i] = valueOf(type, i);
+                }
+                assertArrayEquals(lastNull, roundTrip(type, lastNull));
+            }
+        }
+    }
+
+    @Test
+    public void writesAnEmptyFile() throws IOException {
+        File file = folder.newFile();
+        ColumnarWriter writer = new ColumnarWriter(file, 10);
+        writer.close();
+        writer.close();
+        assertEquals(file.length(), writer.getBytes());
+
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertEquals(0, reader.getRows());
+            assertTrue(reader.getBlocks().isEmpty());
+        }
+    }
+
+    @Test
+    public void rejectsAnExportCutShort() throws IOException {
+        File file = write(TestDocuments.documents(new Random(45), 20), 10);
+        try (RandomAccessFile cut = new RandomAccessFile(file, "rw")) {
+            cut.setLength(cut.length() - 1);
+        }
+        try {
+            new ColumnarReader(file).close();
+            fail("read an export without its footer");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWritesAfterClose() throws IOException {
+        ColumnarWriter writer = new ColumnarWriter(folder.newFile(), 10);
+        writer.close();
+        writer.write(TestDocuments.documents(new Random(0), 1).get(0));
+    }
+
+    private File write(List<ChargeData> documents, int blockRows) throws IOException {
+        File file = folder.newFile();
+        try (ColumnarWriter writer = new ColumnarWriter(file, blockRows)) {
+            for (ChargeData document : documents) {
+                writer.write(document);
+            }
+        }
+        return file;
+    }
+
+    private static byte[] chunk(ExportColumn.Type type, Object[] values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Object[] stats = ColumnEncoding.writeChunk(new DataOutputStream(out), type, values, values.length);
+        if (type != ExportColumn.Type.DOUBLE) {
+            assertStatistics(type, values, stats[0], stats[1]);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object[] roundTrip(ExportColumn.Type type, Object[] values) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(chunk(type, values)));
+        Object[] read = ColumnEncoding.readChunk(in, type, values.length, ColumnEncoding.nullCount(values, values.length));
+        assertEquals("unread bytes", 0, in.available());
+        return read;
+    }
+
+    private static int varLongBytes(long value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnEncoding.writeVarLong(new DataOutputStream(out), value);
+        return out.size();
+    }
+
+    private static Object valueOf(ExportColumn.Type type, int i) {
+        switch (type) {
+            case STRING:
+                return "value-" + i;
+            case INT:
+                return i;
+            case LONG:
+                return (long) i;
+            default:
+                return (double) i;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertStatistics(ExportColumn.Type type, Object[] values, Object actualMin, Object actualMax) {
+        Comparable min = null;
+        Comparable max = null;
+        for (Object value : values) {
+            if (value != null && !(value instanceof Double && ((Double) value).isNaN())) {
+                Comparable comparable = (Comparable) value;
+                min = min == null || comparable.compareTo(min) < 0 ? comparable : min;
+                max = max == null || comparable.compareTo(max) > 0 ? comparable : max;
+            }
+        }
+        assertEquals(type + " min", min, actualMin);
+        assertEquals(type + " max", max, actualMax);
+    }
+}
@@ -0,0 +1,116 @@
+package com.gigaspaces.marcello.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiscountEngineTest {
+
+    private static final String[] PERCENTAGES = {"0", "1", "5", "7.5", "10", "12.5", "20", "25", "33", "33.33", "50", "99.99", "100"};
+
+    private final DiscountEngine engine = new DiscountEngine();
+
+    @Test
+    public void partRoundsHalfDownLikeBigDecimal() {
+        Random random = new Random(33);
+        for (String percentage : PERCENTAGES) {
+            DiscountEngine.Rate rate = new DiscountEngine.Rate(percentage);
+            for (int i = 0; i < 100000; i++) {
+                double value = randomValue(random);
+                assertEquals(percentage + "% of " + value, halfDown(value, percentage), DiscountEngine.part(value, rate), 0d);
+            }
+        }
+    }
+
+    @Test
+    public void partRoundsTiesDown() {
+        DiscountEngine.Rate half = new DiscountEngine.Rate("50");
+        for (int cents = -100000; cents <= 100000; cents++) {
+            // every odd number of cents halves to a tie
+            double value = cents / 100d;
+            assertEquals("50% of " + value, halfDown(value, "50"), DiscountEngine.part(value, half), 0d);
+        }
+        assertEquals(0.01, DiscountEngine.part(0.03, half), 0d);
+        assertEquals(-0.01, DiscountEngine.part(-0.03, half), 0d);
+        assertEquals(0.12, DiscountEngine.part(1.25, new DiscountEngine.Rate("10")), 0d);
+    }
+
+    @Test
+    public void partFallsBackToBigDecimalForHugeValues() {
+        DiscountEngine.Rate rate = new DiscountEngine.Rate("12.5");
+        for (double value : new double[]{1e14, 3.3e15, -7.77e16, 1e20, Double.MAX_VALUE / 1e10}) {
+            assertEquals(halfDown(value, "12.5"), DiscountEngine.part(value, rate), 0d);
+        }
+    }
+
+    @Test
+    public void createForAmountMatchesDiscountWithDouble() {
+        Random random = new Random(3);
+        for (int i = 0; i < 50000; i++) {
+            AmountWithDoubles amount = TestRows.randomAmount(random, "NOK");
+            String percentage = PERCENTAGES[random.nextInt(PERCENTAGES.length)];
+            DiscountWithDouble expected = DiscountWithDouble.createForAmount(amount, percentage);
+            DiscountWithDouble actual = engine.createForAmount(amount, percentage);
+            assertEquals(expected.getPercentage(), actual.getPercentage());
+            TestRows.assertAmountEquals(percentage + "% of " + amount, expected.getDiscountAmount(), actual.getDiscountAmount());
+        }
+        assertNull(engine.createForAmount(null, "10"));
+        assertNull(engine.createForAmount(new AmountWithDoubles(1d, "NOK"), null));
+    }
+
+    @Test
+    public void applyMatchesCreateForAmountAndSubtract() {
+        Random random = new Random(333);
+        for (int i = 0; i < 50000; i++) {
+            AmountWithDoubles total = TestRows.randomAmount(random, "SEK");
+            String percentage = PERCENTAGES[random.nextInt(PERCENTAGES.length)];
+            ChargeRow row = new ChargeRow("group", "name", total);
+            row.setDiscountCode("NO-DISC");
+
+            assertTrue(engine.apply(row, percentage));
+
+            DiscountWithDouble expected = DiscountWithDouble.createForAmount(total, percentage);
+            assertEquals(percentage, row.getDiscount().getPercentage());
+            TestRows.assertAmountEquals(percentage + "% of " + total, expected.getDiscountAmount(), row.getDiscount().getDiscountAmount());
+            TestRows.assertAmountEquals(total + " less " + percentage + "%", total.subtract(expected.getDiscountAmount()), row.getTotalAmount());
+        }
+    }
+
+    @Test
+    public void applyOnlyDiscountsRowsWithoutADiscountCode() {
+        ChargeRow discounted = new ChargeRow("group", "name", new AmountWithDoubles(10d, "NOK"));
+        discounted.setDiscountCode("CAMPAIGN");
+        ChargeRow withoutTotal = new ChargeRow("group", "name", null);
+        withoutTotal.setDiscountCode("NO-DISC");
+
+        assertFalse(engine.apply(discounted, "10"));
+        assertFalse(engine.apply(withoutTotal, "10"));
+        assertNull(discounted.getDiscount());
+        assertEquals(new AmountWithDoubles(10d, "NOK"), discounted.getTotalAmount());
+    }
+
+    private static double randomValue(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                // whole cents, as amounts are
+                return (random.nextInt(20000000) - 10000000) / 100d;
+            case 1:
+                // sums of cents, which drift off whole cents
+                return (random.nextInt(2000) - 1000) / 100d + (random.nextInt(2000) - 1000) / 100d + random.nextInt(100) / 100d;
+            default:
+                return (random.nextDouble() - 0.5) * 1e6;
+        }
+    }
+
+    private static double halfDown(double value, String percentage) {
+        return new BigDecimal(value).multiply(new BigDecimal(percentage).divide(BigDecimal.valueOf(100)))
+                .setScale(2, RoundingMode.HALF_DOWN).doubleValue();
+    }
+}
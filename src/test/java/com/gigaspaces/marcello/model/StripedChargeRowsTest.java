@@ -0,0 +1,165 @@
+package com.gigaspaces.marcello.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+public class StripedChargeRowsTest {
+
+    private static final Comparator<ChargeRow> BY_KEY = new Comparator<ChargeRow>() {
+        @Override
+        public int compare(ChargeRow left, ChargeRow right) {
+            int result = String.valueOf(left.getName()).compareTo(String.valueOf(right.getName()));
+            return result != 0 ? result : String.valueOf(left.getFeatureCategory()).compareTo(String.valueOf(right.getFeatureCategory()));
+        }
+    };
+
+    @Test
+    public void aggregatesLikeAddRowForSubscribers() {
+        for (long seed = 0; seed < 50; seed++) {
+            assertSameAsAddRow(subscriber(), TestRows.randomRows(new Random(seed), 300));
+        }
+    }
+
+    @Test
+    public void aggregatesLikeAddRowForAccounts() {
+        for (long seed = 0; seed < 50; seed++) {
+            assertSameAsAddRow(new AccountChargeData("ban", 1, null), discounted(TestRows.randomRows(new Random(seed), 300)));
+        }
+    }
+
+    @Test
+    public void startsFromTheStoredRowsWithoutAggregatingThem() {
+        Random random = new Random(50);
+        List<ChargeRow> stored = TestRows.randomRows(random, 40);
+        // the same rows twice, which addRow would have aggregated
+        stored.addAll(copies(stored));
+        SubscriberChargeData document = subscriber();
+        document.setChargeRows(copies(stored));
+
+        assertSameAsAddRow(document, TestRows.randomRows(random, 200));
+    }
+
+    @Test
+    public void concurrentAddsSumLikeSequentialOnes() throws Exception {
+        final List<ChargeRow> rows = new ArrayList<>();
+        Random random = new Random(51);
+        for (int i = 0; i < 20000; i++) {
+            // no discounts and whole amounts, so the sums don't depend on the order the threads add in
+            ChargeRow row = new ChargeRow("group", "name-" + random.nextInt(64), new AmountWithDoubles((double) random.nextInt(1000), "NOK"));
+            row.setFeatureCategory("category-" + random.nextInt(2));
+            row.setQuantity(QuantityWithString.valueOf(random.nextInt(10)));
+            rows.add(row);
+        }
+        SubscriberChargeData expected = subscriber();
+        expected.addRows(copies(rows));
+
+        final int threads = 8;
+        final StripedChargeRows striped = new StripedChargeRows(subscriber(), 4);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final List<ChargeRow> share = copies(rows.subList(t * rows.size() / threads, (t + 1) * rows.size() / threads));
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        striped.addRows(share);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TestRows.assertRowsEqual(sorted(expected.getChargeRows()), sorted(striped.snapshot()));
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        StripedChargeRows striped = new StripedChargeRows(subscriber(), 2);
+        striped.addRow(new ChargeRow("group", "name", new AmountWithDoubles(1d, "NOK")));
+        striped.snapshot().get(0).setName("changed");
+
+        SubscriberChargeData document = subscriber();
+        striped.writeTo(document);
+        assertTrue("name".equals(document.getChargeRows().get(0).getName()));
+    }
+
+    private static void assertSameAsAddRow(ChargeData template, List<ChargeRow> added) {
+        ChargeData expected = copyOf(template);
+        for (ChargeRow row : copies(added)) {
+            expected.addRow(row);
+        }
+
+        for (int stripes : new int[]{1, 3, 16}) {
+            StripedChargeRows striped = new StripedChargeRows(copyOf(template), stripes);
+            striped.addRows(copies(added));
+            ChargeData actual = copyOf(template);
+            striped.writeTo(actual);
+            TestRows.assertRowsEqual(expected.getChargeRows(), actual.getChargeRows());
+        }
+    }
+
+    /**
+     * Subscriber rows reach the account documents with their discounts applied, so every discount has an amount.
+     */
+    private static List<ChargeRow> discounted(List<ChargeRow> rows) {
+        for (ChargeRow row : rows) {
+            if (row.getDiscount() != null && row.getDiscount().getDiscountAmount() == null) {
+                row.setDiscount(new DiscountWithDouble(row.getDiscount().getPercentage(), new AmountWithDoubles(-1d, "NOK")));
+            }
+        }
+        return rows;
+    }
+
+    private static ChargeData copyOf(ChargeData template) {
+        ChargeData copy = template instanceof AccountChargeData
+                ? new AccountChargeData(template.getCustomerAccountId(), template.getBillSequence(), null)
+                : new SubscriberChargeData(template.getCustomerAccountId(), template.getBillSequence(), new TelephoneNumber("47", "90000000"));
+        if (template.getChargeRows() != null) {
+            copy.setChargeRows(copies(template.getChargeRows()));
+        }
+        return copy;
+    }
+
+    private static SubscriberChargeData subscriber() {
+        return new SubscriberChargeData("ban", 1, new TelephoneNumber("47", "90000000"));
+    }
+
+    private static List<ChargeRow> copies(List<ChargeRow> rows) {
+        List<ChargeRow> copies = new ArrayList<>(rows.size());
+        for (ChargeRow row : rows) {
+            copies.add(row.copy());
+        }
+        return copies;
+    }
+
+    private static List<ChargeRow> sorted(List<ChargeRow> rows) {
+        List<ChargeRow> sorted = new ArrayList<>(rows);
+        Collections.sort(sorted, BY_KEY);
+        return sorted;
+    }
+}
@@ -0,0 +1,134 @@
+package com.gigaspaces.marcello.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TelephoneNumberKeyTest {
+
+    @Test
+    public void keysAreDistinct() {
+        Random random = new Random(38);
+        Set<String> numbers = new HashSet<>();
+        Set<Long> keys = new HashSet<>();
+        for (TelephoneNumber number : randomNumbers(random, 100000)) {
+            if (numbers.add(number.getCountryCode() + "/" + number.getLocalNumber())) {
+                assertTrue(number.toString(), keys.add(key(number)));
+            }
+        }
+    }
+
+    @Test
+    public void keepsCountryCodeAndLengthApart() {
+        assertNotEquals(key("46", "123"), key("4", "6123"));
+        assertNotEquals(key("46", "12"), key("46", "120"));
+        assertNotEquals(key("46", "12"), key("461", "2"));
+        assertNotEquals(key("1", "0"), key("1", "00"));
+    }
+
+    @Test
+    public void hasNoKeyPastMaxDigits() {
+        assertNotNull(TelephoneNumberKey.of(new TelephoneNumber("46", "1234567890123")));
+        assertNull(TelephoneNumberKey.of(new TelephoneNumber("46", "12345678901234")));
+        assertNull(TelephoneNumberKey.of(new TelephoneNumber("4711", "123456789012")));
+    }
+
+    @Test
+    public void prefixRangeHoldsExactlyTheNumbersWithThePrefix() {
+        Random random = new Random(83);
+        List<TelephoneNumber> numbers = randomNumbers(random, 20000);
+        for (int i = 0; i < 200; i++) {
+            TelephoneNumber sample = numbers.get(random.nextInt(numbers.size()));
+            String countryCode = sample.getCountryCode();
+            String localPrefix = sample.getLocalNumber().substring(0, random.nextInt(sample.getLocalNumber().length() + 1));
+            long from = TelephoneNumberKey.prefixFrom(countryCode, localPrefix);
+            long to = TelephoneNumberKey.prefixTo(countryCode, localPrefix);
+            for (TelephoneNumber number : numbers) {
+                long key = key(number);
+                boolean inRange = key >= from && key < to;
+                boolean hasPrefix = number.getCountryCode().equals(countryCode) && number.getLocalNumber().startsWith(localPrefix);
+                assertEquals(number + " against +" + countryCode + localPrefix, hasPrefix, inRange);
+            }
+        }
+    }
+
+    @Test
+    public void countryRangeHoldsExactlyTheNumbersOfTheCountry() {
+        List<TelephoneNumber> numbers = randomNumbers(new Random(8), 20000);
+        for (String countryCode : new String[]{"1", "4", "46", "47", "460", "4711"}) {
+            long from = TelephoneNumberKey.countryCodeFrom(countryCode);
+            long to = TelephoneNumberKey.countryCodeTo(countryCode);
+            for (TelephoneNumber number : numbers) {
+                long key = key(number);
+                assertEquals(number + " against +" + countryCode, number.getCountryCode().equals(countryCode), key >= from && key < to);
+            }
+        }
+    }
+
+    @Test
+    public void prefixRangesOfLongerPrefixesNest() {
+        long from = TelephoneNumberKey.prefixFrom("46", "");
+        long to = TelephoneNumberKey.prefixTo("46", "");
+        for (String prefix : new String[]{"7", "70", "701", "7012", "70123456789", "7012345678901"}) {
+            long prefixFrom = TelephoneNumberKey.prefixFrom("46", prefix);
+            long prefixTo = TelephoneNumberKey.prefixTo("46", prefix);
+            assertTrue(prefix, prefixFrom >= from && prefixTo <= to && prefixFrom < prefixTo);
+            from = prefixFrom;
+            to = prefixTo;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonDigitPrefixes() {
+        TelephoneNumberKey.prefixFrom("46", "70x");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPrefixesPastMaxDigits() {
+        TelephoneNumberKey.prefixTo("46", "1234567890123456");
+    }
+
+    @Test
+    public void subscriberDocumentsCarryTheKey() {
+        TelephoneNumber number = new TelephoneNumber("47", "90123456");
+        SubscriberChargeData data = new SubscriberChargeData("ban", 1, number);
+        assertEquals(TelephoneNumberKey.of(number), data.getTelephoneKey());
+    }
+
+    /**
+     * Numbers crowded around a few prefixes, so ranges are tested against neighbours that differ only in the
+     * last digits or in length.
+     */
+    private static List<TelephoneNumber> randomNumbers(Random random, int count) {
+        String[] countryCodes = {"1", "4", "46", "47", "460", "4711"};
+        List<TelephoneNumber> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String countryCode = countryCodes[random.nextInt(countryCodes.length)];
+            int length = 1 + random.nextInt(TelephoneNumberKey.MAX_DIGITS - countryCode.length());
+            StringBuilder localNumber = new StringBuilder(length);
+            for (int d = 0; d < length; d++) {
+                localNumber.append((char) ('0' + (d < 3 ? random.nextInt(2) * 7 : random.nextInt(10))));
+            }
+            numbers.add(new TelephoneNumber(countryCode, localNumber.toString()));
+        }
+        return numbers;
+    }
+
+    private static long key(String countryCode, String localNumber) {
+        return key(new TelephoneNumber(countryCode, localNumber));
+    }
+
+    private static long key(TelephoneNumber number) {
+        return TelephoneNumberKey.of(number);
+    }
+}
@@ -0,0 +1,38 @@
+package com.gigaspaces.marcello.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds subscriber and account documents with {@link TestRows} rows for the tests of the file formats.
+ *
+ * @since 10.2
+ */
+public final class TestDocuments {
+
+    private static final long FIRST_START = 946684800000L;
+    private static final long HOUR = 3600000L;
+
+    private TestDocuments() {
+    }
+
+    /**
+     * @return documents in <code>period.start</code> order, the way the partition tasks write them, the first
+     * ones without a period; every fourth or so is an account document, and some have no rows
+     */
+    public static List<ChargeData> documents(Random random, int count) {
+        List<ChargeData> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TimePeriod period = i < count / 10 ? null
+                    : TimePeriod.valueOf(FIRST_START + i * HOUR, FIRST_START + (i + random.nextInt(1000)) * HOUR);
+            ChargeData document = random.nextInt(4) == 0
+                    ? new AccountChargeData("ban-" + i, 1 + random.nextInt(3), period)
+                    : new SubscriberChargeData("ban-" + i, 1 + random.nextInt(3),
+                    new TelephoneNumber("47", String.valueOf(90000000 + random.nextInt(1000))), period);
+            document.setChargeRows(TestRows.randomRows(random, random.nextInt(12)));
+            documents.add(document);
+        }
+        return documents;
+    }
+}
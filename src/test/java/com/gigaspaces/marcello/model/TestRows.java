@@ -0,0 +1,117 @@
+package com.gigaspaces.marcello.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Builds charge rows for tests and compares them field by field, since {@link ChargeRow} has no <code>equals</code>.
+ *
+ * @since 10.2
+ */
+public final class TestRows {
+
+    private static final String CURRENCY = "NOK";
+
+    private TestRows() {
+    }
+
+    /**
+     * @return rows with every field filled in some of them and left null in others; names repeat, so that
+     * rows aggregate
+     */
+    public static List<ChargeRow> randomRows(Random random, int count) {
+        List<ChargeRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(randomRow(random));
+        }
+        return rows;
+    }
+
+    public static ChargeRow randomRow(Random random) {
+        ChargeRow row = new ChargeRow("group-" + random.nextInt(4), "name-" + random.nextInt(8), null);
+        if (random.nextInt(8) != 0) {
+            row.setTotalAmount(randomAmount(random, CURRENCY));
+        }
+        if (random.nextBoolean()) {
+            row.setFeatureCategory("category-" + random.nextInt(3));
+        }
+        if (random.nextBoolean()) {
+            row.setQuantity(QuantityWithString.valueOf(random.nextInt(1000), "SMS"));
+        }
+        if (random.nextBoolean()) {
+            row.setDuration(QuantityWithString.valueOf(random.nextInt(100000), "SECONDS"));
+        }
+        if (random.nextInt(4) == 0) {
+            String percentage = String.valueOf(5 * random.nextInt(10));
+            row.setDiscount(random.nextBoolean()
+                    ? new DiscountWithDouble(percentage, randomAmount(random, CURRENCY))
+                    : new DiscountWithDouble(percentage));
+        }
+        if (random.nextBoolean()) {
+            long start = 946684800000L + random.nextInt(1000000) * 60000L;
+            row.setPeriod(TimePeriod.valueOf(start, start + random.nextInt(100000) * 60000L));
+        }
+        if (random.nextInt(3) == 0) {
+            row.setDiscountCode("NO-DISC");
+        }
+        return row;
+    }
+
+    /**
+     * @return an amount of whole cents, with or without the vat fields
+     */
+    public static AmountWithDoubles randomAmount(Random random, String currency) {
+        long cents = random.nextInt(1000000) - 10000;
+        if (random.nextBoolean()) {
+            return new AmountWithDoubles(cents / 100d, currency);
+        }
+        long vatCents = cents / 5;
+        return new AmountWithDoubles(cents / 100d, (cents - vatCents) / 100d, vatCents / 100d, currency);
+    }
+
+    public static void assertRowsEqual(List<ChargeRow> expected, List<ChargeRow> actual) {
+        assertEquals("rows", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertRowEquals("row " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    public static void assertRowEquals(String message, ChargeRow expected, ChargeRow actual) {
+        assertNotNull(message, actual);
+        assertEquals(message + " name", expected.getName(), actual.getName());
+        assertEquals(message + " groupName", expected.getGroupName(), actual.getGroupName());
+        assertEquals(message + " featureCategory", expected.getFeatureCategory(), actual.getFeatureCategory());
+        assertEquals(message + " discountCode", expected.getDiscountCode(), actual.getDiscountCode());
+        assertEquals(message + " quantity", expected.getQuantity(), actual.getQuantity());
+        assertEquals(message + " duration", expected.getDuration(), actual.getDuration());
+        assertEquals(message + " period", expected.getPeriod(), actual.getPeriod());
+        assertAmountEquals(message + " totalAmount", expected.getTotalAmount(), actual.getTotalAmount());
+        if (expected.getDiscount() == null) {
+            assertNull(message + " discount", actual.getDiscount());
+        } else {
+            assertNotNull(message + " discount", actual.getDiscount());
+            assertEquals(message + " discount percentage", expected.getDiscount().getPercentage(), actual.getDiscount().getPercentage());
+            assertAmountEquals(message + " discount amount", expected.getDiscount().getDiscountAmount(), actual.getDiscount().getDiscountAmount());
+        }
+    }
+
+    /**
+     * Unlike {@link AmountWithDoubles#equals(Object)}, also compares the vat.
+     */
+    public static void assertAmountEquals(String message, AmountWithDoubles expected, AmountWithDoubles actual) {
+        if (expected == null) {
+            assertNull(message, actual);
+            return;
+        }
+        assertNotNull(message, actual);
+        assertEquals(message + " amount", expected.getAmount(), actual.getAmount());
+        assertEquals(message + " amountExcludingVat", expected.getAmountExcludingVat(), actual.getAmountExcludingVat());
+        assertEquals(message + " vat", expected.getVat(), actual.getVat());
+        assertEquals(message + " currency", expected.getCurrency(), actual.getCurrency());
+    }
+}
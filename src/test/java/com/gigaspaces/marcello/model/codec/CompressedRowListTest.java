@@ -0,0 +1,156 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.TestRows;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedRowListTest {
+
+    private static final RowCodec[] CODECS = {RowCodecs.NONE, RowCodecs.DEFLATE, RowCodecs.DEFLATE_NO_DICTIONARY};
+
+    @Test
+    public void codecsRoundTrip() {
+        Random random = new Random(30);
+        for (RowCodec codec : CODECS) {
+            for (int length : new int[]{0, 1, 100, 100000}) {
+                byte[] raw = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    // compressible, like serialized rows
+                    raw[i] = (byte) (random.nextInt(8) == 0 ? random.nextInt() : 'a' + i % 7);
+                }
+                assertArrayEquals(raw, codec.decode(codec.encode(raw), length));
+            }
+        }
+    }
+
+    @Test
+    public void rowsRoundTripWithEveryCodec() throws Exception {
+        for (RowCodec codec : CODECS) {
+            for (int count : new int[]{0, 1, 13, 500}) {
+                List<ChargeRow> rows = TestRows.randomRows(new Random(count), count);
+                CompressedRowList read = roundTrip(new CompressedRowList(rows, codec));
+
+                assertTrue(read.isEncoded());
+                assertSame(codec, read.getCodec());
+                TestRows.assertRowsEqual(rows, read);
+                assertFalse(read.isEncoded());
+            }
+        }
+    }
+
+    @Test
+    public void untouchedListIsWrittenBackAsRead() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(31), 50);
+        CompressedRowList read = roundTrip(new CompressedRowList(rows, RowCodecs.DEFLATE));
+
+        int encodedLength = read.getEncodedLength();
+        byte[] first = serialize(read);
+        assertTrue(read.isEncoded());
+        assertEquals(encodedLength, read.getEncodedLength());
+        assertArrayEquals(first, serialize(roundTrip(read)));
+    }
+
+    @Test
+    public void modifiedListIsEncodedAgain() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(32), 20);
+        CompressedRowList read = roundTrip(new CompressedRowList(rows, RowCodecs.DEFLATE));
+
+        read.get(3).setName("renamed");
+        read.remove(0);
+        read.add(TestRows.randomRow(new Random(0)));
+        assertEquals(-1, read.getEncodedLength());
+
+        List<ChargeRow> expected = new ArrayList<>(read);
+        TestRows.assertRowsEqual(expected, roundTrip(read));
+        assertEquals("renamed", roundTrip(read).get(2).getName());
+    }
+
+    @Test
+    public void wrapKeepsNullsAndEncodedLists() {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(33), 3);
+        CompressedRowList compressed = new CompressedRowList(rows, RowCodecs.DEFLATE);
+
+        assertSame(rows, CompressedRowList.wrap(rows, null));
+        assertSame(compressed, CompressedRowList.wrap(compressed, RowCodecs.NONE));
+        assertEquals(null, CompressedRowList.wrap(null, RowCodecs.DEFLATE));
+        assertTrue(CompressedRowList.wrap(rows, RowCodecs.DEFLATE) instanceof CompressedRowList);
+    }
+
+    @Test
+    public void wrappedListsAreBackedByTheGivenRows() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(36), 3);
+        List<ChargeRow> compressed = CompressedRowList.wrap(rows, RowCodecs.DEFLATE);
+        List<ChargeRow> lazy = LazyRowList.wrap(rows, RowCodecs.DEFLATE);
+
+        rows.add(TestRows.randomRow(new Random(37)));
+        compressed.get(0).setName("renamed");
+        assertEquals(4, compressed.size());
+        assertEquals(4, lazy.size());
+        assertEquals("renamed", lazy.get(0).getName());
+        TestRows.assertRowsEqual(rows, roundTrip(compressed));
+        TestRows.assertRowsEqual(rows, roundTrip(lazy));
+    }
+
+    @Test
+    public void trainedDictionaryCodecRoundTrips() throws Exception {
+        List<List<ChargeRow>> samples = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            samples.add(TestRows.randomRows(new Random(i), 20));
+        }
+        byte[] dictionary = RowCodecs.trainDictionary(samples, 4096);
+        assertEquals(4096, dictionary.length);
+
+        RowCodec trained = new DeflateRowCodec((byte) 100, "deflate-trained-test", 6, dictionary);
+        RowCodecs.register(trained);
+        List<ChargeRow> rows = TestRows.randomRows(new Random(34), 40);
+        TestRows.assertRowsEqual(rows, roundTrip(new CompressedRowList(rows, trained)));
+        assertSame(trained, RowCodecs.get((byte) 100));
+        assertSame(trained, RowCodecs.forName("DEFLATE-TRAINED-TEST"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsASecondCodecWithTheSameId() {
+        RowCodecs.register(new DeflateRowCodec((byte) 1, "another", 1, null));
+    }
+
+    @Test
+    public void wrapLikeKeepsTheStorageForm() {
+        List<ChargeRow> rows = Collections.singletonList(TestRows.randomRow(new Random(35)));
+
+        assertSame(rows, RowCodecs.wrapLike(rows, rows));
+        List<ChargeRow> compressed = RowCodecs.wrapLike(new CompressedRowList(rows, RowCodecs.DEFLATE_NO_DICTIONARY), rows);
+        assertSame(RowCodecs.DEFLATE_NO_DICTIONARY, ((CompressedRowList) compressed).getCodec());
+        List<ChargeRow> lazy = RowCodecs.wrapLike(new LazyRowList(rows, RowCodecs.DEFLATE), rows);
+        assertSame(RowCodecs.DEFLATE, ((LazyRowList) lazy).getCodec());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T roundTrip(T value) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(value)));
+        return (T) in.readObject();
+    }
+
+    static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(value);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
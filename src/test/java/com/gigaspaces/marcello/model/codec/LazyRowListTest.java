@@ -0,0 +1,119 @@
+package com.gigaspaces.marcello.model.codec;
+
+import com.gigaspaces.marcello.model.AmountWithDoubles;
+import com.gigaspaces.marcello.model.ChargeRow;
+import com.gigaspaces.marcello.model.TestRows;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.gigaspaces.marcello.model.codec.CompressedRowListTest.roundTrip;
+import static com.gigaspaces.marcello.model.codec.CompressedRowListTest.serialize;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LazyRowListTest {
+
+    private static final RowCodec[] CODECS = {RowCodecs.NONE, RowCodecs.DEFLATE, RowCodecs.DEFLATE_NO_DICTIONARY};
+
+    @Test
+    public void rowsRoundTripWithEveryCodec() throws Exception {
+        for (RowCodec codec : CODECS) {
+            for (int count : new int[]{0, 1, 13, 500}) {
+                List<ChargeRow> rows = TestRows.randomRows(new Random(count), count);
+                LazyRowList read = roundTrip(new LazyRowList(rows, codec));
+
+                assertSame(codec, read.getCodec());
+                assertEquals(count, read.size());
+                TestRows.assertRowsEqual(rows, read);
+            }
+        }
+    }
+
+    @Test
+    public void viewReadsTheRowsWithoutDecodingThem() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(31), 200);
+        LazyRowList read = roundTrip(new LazyRowList(rows, RowCodecs.DEFLATE));
+
+        ChargeRowView view = read.view();
+        for (int i = 0; i < rows.size(); i++) {
+            ChargeRow row = rows.get(i);
+            view.moveTo(i);
+            assertEquals(i, view.getIndex());
+            assertEquals(row.getName(), view.getName());
+            assertEquals(row.getGroupName(), view.getGroupName());
+            assertTrue(view.nameEqualsIgnoreCase(row.getName().toUpperCase()));
+            assertEquals(row.getTotalAmount() != null, view.hasTotalAmount());
+            AmountWithDoubles total = row.getTotalAmount();
+            assertEquals(total != null ? total.getAmount() : Double.NaN, view.getAmount(), 0d);
+            assertEquals(total != null ? total.getCurrency() : null, view.getCurrency());
+        }
+        // nothing was decoded, so the list is still written back as it was read
+        assertArrayEquals(serialize(roundTrip(new LazyRowList(rows, RowCodecs.DEFLATE))), serialize(read));
+    }
+
+    @Test
+    public void indexOfNameIgnoresCase() throws Exception {
+        List<ChargeRow> rows = new ArrayList<>();
+        rows.add(new ChargeRow("group", "Calls", null));
+        rows.add(new ChargeRow("group", "SMS", new AmountWithDoubles(1.5, "NOK")));
+        rows.add(new ChargeRow("group", "sms", null));
+        LazyRowList read = roundTrip(new LazyRowList(rows, RowCodecs.NONE));
+
+        assertEquals(1, read.indexOfName("Sms"));
+        assertEquals(0, read.indexOfName("CALLS"));
+        assertEquals(-1, read.indexOfName("data"));
+    }
+
+    @Test
+    public void rowsModifiedInPlaceAreEncodedAgain() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(32), 30);
+        LazyRowList read = roundTrip(new LazyRowList(rows, RowCodecs.DEFLATE));
+
+        read.get(7).setName("renamed");
+        read.get(7).setTotalAmount(null);
+        assertEquals("renamed", read.view().moveTo(7).getName());
+        assertTrue(Double.isNaN(read.view().moveTo(7).getAmount()));
+
+        LazyRowList reread = roundTrip(read);
+        rows.get(7).setName("renamed");
+        rows.get(7).setTotalAmount(null);
+        TestRows.assertRowsEqual(rows, reread);
+    }
+
+    @Test
+    public void structuralChangesRoundTrip() throws Exception {
+        List<ChargeRow> rows = TestRows.randomRows(new Random(33), 30);
+        LazyRowList read = roundTrip(new LazyRowList(rows, RowCodecs.DEFLATE_NO_DICTIONARY));
+
+        ChargeRow added = TestRows.randomRow(new Random(0));
+        read.remove(0);
+        read.add(added);
+        read.set(4, added.copy());
+        List<ChargeRow> expected = new ArrayList<>(rows.subList(1, rows.size()));
+        expected.add(added);
+        expected.set(4, added);
+
+        TestRows.assertRowsEqual(expected, read);
+        TestRows.assertRowsEqual(expected, roundTrip(read));
+        assertEquals(added.getName(), roundTrip(read).view().moveTo(4).getName());
+    }
+
+    @Test
+    public void nullNamesSurvive() throws Exception {
+        List<ChargeRow> rows = new ArrayList<>();
+        rows.add(new ChargeRow(null, null, null));
+        LazyRowList read = roundTrip(new LazyRowList(rows, RowCodecs.NONE));
+
+        assertNull(read.view().moveTo(0).getName());
+        assertNull(read.view().moveTo(0).getGroupName());
+        assertNull(read.view().moveTo(0).getCurrency());
+        assertTrue(Double.isNaN(read.view().moveTo(0).getAmount()));
+        TestRows.assertRowsEqual(rows, read);
+    }
+}
@@ -0,0 +1,221 @@
+package com.gigaspaces.marcello.snapshot;
+
+import com.gigaspaces.marcello.export.ColumnarWriter;
+import com.gigaspaces.marcello.model.ChargeData;
+import com.gigaspaces.marcello.model.TestDocuments;
+import com.gigaspaces.marcello.model.TestRows;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rawDocumentsReadBackInBlocks() throws IOException {
+        assertReadsBack(false);
+    }
+
+    @Test
+    public void deflatedDocumentsReadBackInBlocks() throws IOException {
+        assertReadsBack(true);
+    }
+
+    @Test
+    public void rawBlocksAreSerializationStreamsAndDeflatedOnesInflateToThem() throws IOException {
+        List<ChargeData> documents = TestDocuments.documents(new Random(46), 100);
+        File raw = write(documents, 10, false);
+        File deflated = write(documents, 10, true);
+
+        try (SnapshotReader rawReader = new SnapshotReader(raw);
+             SnapshotReader deflatedReader = new SnapshotReader(deflated)) {
+            assertEquals(rawReader.getBlocks().size(), deflatedReader.getBlocks().size());
+            for (int b = 0; b < rawReader.getBlocks().size(); b++) {
+                byte[] rawBlock = bytesOf(raw, rawReader.getBlocks().get(b));
+                byte[] deflatedBlock = bytesOf(deflated, deflatedReader.getBlocks().get(b));
+                assertEquals(ObjectStreamConstants.STREAM_MAGIC, new DataInputStream(new ByteArrayInputStream(rawBlock)).readShort());
+                assertTrue("block " + b + " wasn't deflated", deflatedBlock.length < rawBlock.length);
+
+                // each block is a whole deflate stream of its own, so it inflates without the blocks before it
+                byte[] inflated = new byte[rawBlock.length];
+                try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(deflatedBlock)))) {
+                    in.readFully(inflated);
+                    assertEquals("block " + b + " inflated past the raw block", -1, in.read());
+                }
+                assertEquals(ObjectStreamConstants.STREAM_MAGIC, new DataInputStream(new ByteArrayInputStream(inflated)).readShort());
+            }
+        }
+    }
+
+    @Test
+    public void deflatedBlocksDecodeInAnyOrderFromSeveralThreads() throws Exception {
+        final List<ChargeData> documents = TestDocuments.documents(new Random(47), 400);
+        File file = write(documents, 7, true);
+
+        try (final SnapshotReader reader = new SnapshotReader(file)) {
+            final List<Integer> firstDocuments = new ArrayList<>();
+            int first = 0;
+            for (SnapshotBlock block : reader.getBlocks()) {
+                firstDocuments.add(first);
+                first += block.getDocuments();
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    final List<Integer> order = new ArrayList<>();
+                    for (int b = 0; b < reader.getBlocks().size(); b++) {
+                        order.add(b);
+                    }
+                    Collections.shuffle(order, new Random(t));
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            for (int b : order) {
+                                List<ChargeData> read = reader.read(reader.getBlocks().get(b));
+                                for (int i = 0; i < read.size(); i++) {
+                                    assertEquals(documents.get(firstDocuments.get(b) + i).getId(), read.get(i).getId());
+                                }
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void compressionShrinksTheFile() throws IOException {
+        List<ChargeData> documents = TestDocuments.documents(new Random(48), 300);
+        long raw = write(documents, 50, false).length();
+        long deflated = write(documents, 50, true).length();
+        assertTrue(deflated + " >= " + raw, deflated < raw);
+    }
+
+    @Test
+    public void rejectsAColumnarExport() throws IOException {
+        File file = folder.newFile();
+        try (ColumnarWriter writer = new ColumnarWriter(file, 10)) {
+            for (ChargeData document : TestDocuments.documents(new Random(49), 20)) {
+                writer.write(document);
+            }
+        }
+        try {
+            new SnapshotReader(file).close();
+            fail("read an export as a snapshot");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void blocksTellWhichPeriodsTheyMayHold() {
+        SnapshotBlock block = new SnapshotBlock(0, 0, 2, 100, 200, 150, 300);
+
+        assertTrue(block.overlaps(300, 400));
+        assertFalse(block.overlaps(301, 400));
+        assertTrue(block.overlaps(0, 101));
+        assertFalse(block.overlaps(0, 100));
+        assertTrue(block.startsWithin(200, 201));
+        assertFalse(block.startsWithin(201, 1000));
+    }
+
+    private void assertReadsBack(boolean compressed) throws IOException {
+        List<ChargeData> documents = TestDocuments.documents(new Random(45), 257);
+        int blockDocuments = 16;
+        File file = write(documents, blockDocuments, compressed);
+
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            assertEquals(documents.size(), reader.getDocuments());
+            assertEquals((documents.size() + blockDocuments - 1) / blockDocuments, reader.getBlocks().size());
+            int first = 0;
+            long previousEnd = SnapshotWriter.MAGIC.length;
+            for (SnapshotBlock block : reader.getBlocks()) {
+                assertEquals(previousEnd, block.getOffset());
+                previousEnd = block.getOffset() + block.getLength();
+
+                List<ChargeData> read = reader.read(block);
+                assertEquals(block.getDocuments(), read.size());
+                long minStart = Long.MAX_VALUE;
+                long maxStart = Long.MIN_VALUE;
+                long minEnd = Long.MAX_VALUE;
+                long maxEnd = Long.MIN_VALUE;
+                for (int i = 0; i < read.size(); i++) {
+                    ChargeData expected = documents.get(first + i);
+                    ChargeData actual = read.get(i);
+                    assertEquals(expected.getClass(), actual.getClass());
+                    assertEquals(expected.getId(), actual.getId());
+                    assertEquals(expected, actual);
+                    assertEquals(expected.getPeriod(), actual.getPeriod());
+                    TestRows.assertRowsEqual(expected.getChargeRows(), actual.getChargeRows());
+                    long start = SnapshotWriter.startOf(expected.getPeriod());
+                    long end = SnapshotWriter.endOf(expected.getPeriod());
+                    minStart = Math.min(minStart, start);
+                    maxStart = Math.max(maxStart, start);
+                    minEnd = Math.min(minEnd, end);
+                    maxEnd = Math.max(maxEnd, end);
+                }
+                assertEquals(minStart, block.getMinStart());
+                assertEquals(maxStart, block.getMaxStart());
+                assertEquals(minEnd, block.getMinEnd());
+                assertEquals(maxEnd, block.getMaxEnd());
+                first += read.size();
+            }
+            assertEquals(documents.size(), first);
+        }
+    }
+
+    private File write(List<ChargeData> documents, int blockDocuments, boolean compressed) throws IOException {
+        File file = folder.newFile();
+        SnapshotWriter writer = new SnapshotWriter(file, blockDocuments, compressed);
+        try {
+            for (ChargeData document : documents) {
+                writer.write(document);
+            }
+            assertEquals(documents.size(), writer.getDocuments());
+        } finally {
+            writer.close();
+        }
+        assertEquals(file.length(), writer.getBytes());
+        return file;
+    }
+
+    private static byte[] bytesOf(File file, SnapshotBlock block) throws IOException {
+        byte[] bytes = new byte[block.getLength()];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(block.getOffset());
+            in.readFully(bytes);
+        }
+        return bytes;
+    }
+}